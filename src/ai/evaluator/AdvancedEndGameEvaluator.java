@@ -185,7 +185,7 @@ public class AdvancedEndGameEvaluator implements LateGameEvaluator {
 
     //will get to this later. For now, I'm using this file to store position values
     @Override
-    public double evaluate(Board board) {
+    public int evaluate(Board board) {
 
         FastBoard fb = (FastBoard) board;
 
@@ -448,7 +448,7 @@ public class AdvancedEndGameEvaluator implements LateGameEvaluator {
     }
 
     @Override
-    public double staticExchangeEvaluation(Board board, int toSquare, int target, int fromSquare, int attacker, int color) {
+    public int staticExchangeEvaluation(Board board, int toSquare, int target, int fromSquare, int attacker, int color) {
         return 0;
     }
 
@@ -2,6 +2,7 @@ package ai.evaluator;
 
 import ai.evaluator.decider.BoardPhaseDecider;
 import ai.evaluator.decider.SimpleDecider;
+import ai.tools.tables.PawnTable;
 import ai.tools.tensor.Tensor1D;
 import board.Board;
 import board.FastBoard;
@@ -338,7 +339,24 @@ public class AdvancedEvaluator implements Evaluator<AdvancedEvaluator> {
                                                "Queen Position", "Queen Existence", "Queen visibility", "Queen covered visibility", "Queen trapped",
                                                "King position", "King friendly pieces", "King hostile pieces", "King pawn shield"};
 
-    private double[] evalResults = new double[evalNames.length];
+    /**
+     * the scratch data of a single evaluation. Each thread evaluates into its own context so the same evaluator
+     * can be used concurrently. The pawn table of a context is cleared lazily once the parameters have changed.
+     */
+    private static class Context {
+        private final double[]  evalResults;
+        private final double[]  pawnStructure = new double[2];  //early and late pawn structure score while filling the pawn table
+        private final PawnTable pawnTable = new PawnTable(PawnTable.DEFAULT_SIZE, 2);
+        private int             parameterVersion;
+
+        private Context(int evalResults) {
+            this.evalResults = new double[evalResults];
+        }
+    }
+
+    private final ThreadLocal<Context> context = ThreadLocal.withInitial(() -> new Context(evalNames.length));
+
+    private volatile int parameterVersion;                      //increased whenever the parameters are changed
 
 
     public AdvancedEvaluator(BoardPhaseDecider phaseDecider) {
@@ -386,7 +404,7 @@ public class AdvancedEvaluator implements Evaluator<AdvancedEvaluator> {
      * @return
      */
     @Override
-    public double evaluate(Board board) {
+    public int evaluate(Board board) {
         double phase = phaseDecider.getGamePhase(board);
         FastBoard fb = (FastBoard) board;
 
@@ -394,11 +412,13 @@ public class AdvancedEvaluator implements Evaluator<AdvancedEvaluator> {
 
 
 
-        return evaluateWhite(fb, phase) - evaluateBlack(fb, phase);
+        Context ctx = context.get();
+        return (int) Math.round(evaluateWhite(ctx, fb, phase) - evaluateBlack(ctx, fb, phase) + feature_pawn_structure(ctx, fb, phase));
     }
 
-    public double evaluateWhite(FastBoard fb, double phase){
-        return evaluateSide(1,
+    private double evaluateWhite(Context ctx, FastBoard fb, double phase){
+        return evaluateSide(ctx,
+                            1,
                             fb.getWhite_pieces(),
                             WHITE_PST_EARLY,
                             WHITE_PST_LATE,
@@ -412,8 +432,9 @@ public class AdvancedEvaluator implements Evaluator<AdvancedEvaluator> {
                             phase);
     }
 
-    public double evaluateBlack(FastBoard fb, double phase){
-        return evaluateSide(-1,
+    private double evaluateBlack(Context ctx, FastBoard fb, double phase){
+        return evaluateSide(ctx,
+                            -1,
                             fb.getBlack_pieces(),
                             BLACK_PST_EARLY,
                             BLACK_PST_LATE,
@@ -431,6 +452,7 @@ public class AdvancedEvaluator implements Evaluator<AdvancedEvaluator> {
     /**
      * evaluates the position for the given side.
      * requires the following params:
+     * @param ctx                       the context of the calling thread
      * @param color                     1 for white, -1 for black
      * @param ourPieces                 an array of PieceList's for this colored pieces
      * @param earlyPST                  an array of PST for this side for the early game
@@ -445,7 +467,8 @@ public class AdvancedEvaluator implements Evaluator<AdvancedEvaluator> {
      * @param taper                     the taper value for interpolation
      * @return
      */
-    public double evaluateSide(
+    private double evaluateSide(
+            Context ctx,
             int color,
             PieceList[] ourPieces,
             Tensor1D[] earlyPST,
@@ -472,8 +495,8 @@ public class AdvancedEvaluator implements Evaluator<AdvancedEvaluator> {
 
 
 
-        eval += feature_knights(ourPieces, ourTotalOccupancy, opponentPawnCover, earlyPST, latePST, taper);
-        eval += feature_pawns(ourPieces, color, ourPassedPawnMask, ourPieceOccupancy, opponentPieceOccupancy, earlyPST, latePST, taper);
+        eval += feature_knights(ctx, ourPieces, ourTotalOccupancy, opponentPawnCover, earlyPST, latePST, taper);
+        eval += feature_pawns(ourPieces, earlyPST, latePST, taper);
         eval += feature_rooks(ourPieces, ourTotalOccupancy, ourPieceOccupancy, opponentPieceOccupancy, totalOccupied, opponentPawnCover, earlyPST, latePST, taper);
         eval += feature_bishops(ourPieces, ourTotalOccupancy, totalOccupied, opponentPawnCover, earlyPST, latePST, taper, ourPieceOccupancy, opponentPieceOccupancy);
         eval += feature_queens(ourPieces, ourTotalOccupancy, totalOccupied, opponentPawnCover, earlyPST, latePST, taper);
@@ -483,7 +506,7 @@ public class AdvancedEvaluator implements Evaluator<AdvancedEvaluator> {
 
     }
 
-    private double feature_knights(PieceList[] ourPieces,
+    private double feature_knights(Context ctx, PieceList[] ourPieces,
                                    long ourTotalOccupancy,
                                    long opponentPawnCover,
                                    Tensor1D[] pstEarly,
@@ -503,7 +526,7 @@ public class AdvancedEvaluator implements Evaluator<AdvancedEvaluator> {
             ev += taper(PARAMETER_KNIGHT_TRAPPED_EARLY, PARAMETER_KNIGHT_TRAPPED_LATE, taper)
                   * ((attacks & opponentPawnCover) == attacks ? 1 : 0);
         }
-        evalResults[2] = ev;
+        ctx.evalResults[2] = ev;
 
 //        System.out.println("knights: " + ev);
 
@@ -512,14 +535,57 @@ public class AdvancedEvaluator implements Evaluator<AdvancedEvaluator> {
 
 
     private double feature_pawns(PieceList[] ourPieces,
-                                 int color,
-                                 long[] ourPassedPawnMask,
-                                 long[] ourPieceOccupancy,
-                                 long[] opponentPieceOccupancy,
                                  Tensor1D[] pstEarly,
                                  Tensor1D[] pstLate,
                                  double taper) {
+        double ev = 0;
+        for (int i = 0; i < ourPieces[0].size(); i++) {
+            int index = ourPieces[0].get(i);
+            ev += taper(PARAMETER_PAWN_TABLE_FACTOR_EARLY, PARAMETER_PAWN_TABLE_FACTOR_LATE, taper) *
+                  taper(pstEarly[0].get(index), pstLate[0].get(index), taper);
+            ev += taper(CONST_PARAMETER_PAWN_VALUE_EARLY, CONST_PARAMETER_PAWN_VALUE_LATE, taper);
+        }
+        return ev;
+    }
 
+    /**
+     * evaluates the pawn structure of both sides. The result only depends on the pawns so the early and late
+     * scores are cached in the pawn table and tapered afterwards.
+     * @param fb
+     * @param taper
+     * @return
+     */
+    private double feature_pawn_structure(Context ctx, FastBoard fb, double taper){
+        PawnTable pawnTable = ctx.pawnTable;
+        if(ctx.parameterVersion != parameterVersion){
+            ctx.parameterVersion = parameterVersion;
+            pawnTable.clear();
+        }
+        long key = fb.getPawnZobrist();
+        int entry = pawnTable.probe(key);
+        if(entry == -1){
+            ctx.pawnStructure[0] = 0;
+            ctx.pawnStructure[1] = 0;
+            long passed = feature_pawn_structure(ctx, fb.getWhite_pieces(), 1, BitBoard.whitePassedPawnMask, fb.getWhite_values(), fb.getBlack_values())
+                        | feature_pawn_structure(ctx, fb.getBlack_pieces(), -1, BitBoard.blackPassedPawnMask, fb.getBlack_values(), fb.getWhite_values());
+            entry = pawnTable.store(key);
+            pawnTable.setValue(entry, 0, (int) Math.round(ctx.pawnStructure[0]));
+            pawnTable.setValue(entry, 1, (int) Math.round(ctx.pawnStructure[1]));
+            pawnTable.setPassedPawns(entry, passed);
+        }
+        return taper(pawnTable.getValue(entry, 0), pawnTable.getValue(entry, 1), taper);
+    }
+
+    /**
+     * adds the early and late pawn structure score of one side to pawnStructure and returns its passed pawns.
+     * @return
+     */
+    private long feature_pawn_structure(Context ctx,
+                                        PieceList[] ourPieces,
+                                        int color,
+                                        long[] ourPassedPawnMask,
+                                        long[] ourPieceOccupancy,
+                                        long[] opponentPieceOccupancy) {
 
         //connected from east and west
         long connectedPawnsEast;
@@ -533,61 +599,47 @@ public class AdvancedEvaluator implements Evaluator<AdvancedEvaluator> {
             connectedPawnsWest = BitBoard.shiftSouthWest(ourPieceOccupancy[0]) & ourPieceOccupancy[0];
         }
 
-        double ev = 0;
+        double early = 0;
+        double late = 0;
+        long passedPawns = 0L;
         for (int i = 0; i < ourPieces[0].size(); i++) {
             int index = ourPieces[0].get(i);
-            ev += taper(PARAMETER_PAWN_TABLE_FACTOR_EARLY, PARAMETER_PAWN_TABLE_FACTOR_LATE, taper) *
-                  taper(pstEarly[0].get(index), pstLate[0].get(index), taper);
-            ev += taper(CONST_PARAMETER_PAWN_VALUE_EARLY, CONST_PARAMETER_PAWN_VALUE_LATE, taper);
-
-
-
 
             boolean passed = (ourPassedPawnMask[index] & opponentPieceOccupancy[0]) == 0;
             boolean connected = ((1L << index) & (connectedPawnsEast | connectedPawnsWest)) != 0;
             boolean isolated = (BitBoard.files_neighbour[BitBoard.fileIndex(index)] & ourPieceOccupancy[0]) == 0;
-            boolean doubled = ((BitBoard.files[index % 8] & ourPieceOccupancy[0]) - 1) != 0;
+
+            if (passed) {
+                passedPawns |= 1L << index;
+            }
 
             if (passed && connected) {
-                ev += taper(PARAMETER_PAWN_CONNECTED_PASSED_EARLY, PARAMETER_PAWN_CONNECTED_PASSED_LATE, taper);
+                early += PARAMETER_PAWN_CONNECTED_PASSED_EARLY;
+                late += PARAMETER_PAWN_CONNECTED_PASSED_LATE;
             } else {
                 if (passed) {
-                    ev += taper(PARAMETER_PAWN_PASSED_EARLY, PARAMETER_PAWN_PASSED_LATE, taper);
+                    early += PARAMETER_PAWN_PASSED_EARLY;
+                    late += PARAMETER_PAWN_PASSED_LATE;
                 }
                 if (connected) {
-                    ev += taper(PARAMETER_PAWN_CONNECTED_EARLY, PARAMETER_PAWN_CONNECTED_LATE, taper);
+                    early += PARAMETER_PAWN_CONNECTED_EARLY;
+                    late += PARAMETER_PAWN_CONNECTED_LATE;
                 }
             }
 
             if (isolated) {
-                    ev += taper(PARAMETER_PAWN_ISOLATED_EARLY, PARAMETER_PAWN_ISOLATED_LATE, taper);
-               }
-
-            /// didn't work, and is somewhat costly
-//            if (doubled && isolated) {
-//                ev += taper(PARAMETER_PAWN_DOUBLED_ISOLATED_EARLY,PARAMETER_PAWN_DOUBLED_ISOLATED_LATE, taper);
-//            } else {
-//                if (doubled) { // note that this counts doubled pawns twice---once for each pawn
-//                    ev += taper(PARAMETER_PAWN_DOUBLED_EARLY, PARAMETER_PAWN_DOUBLED_LATE, taper);
-//                }
-//                if (isolated) {
-//                    ev += taper(PARAMETER_PAWN_ISOLATED_EARLY, PARAMETER_PAWN_ISOLATED_LATE, taper);
-//                }
-//            }
+                early += PARAMETER_PAWN_ISOLATED_EARLY;
+                late += PARAMETER_PAWN_ISOLATED_LATE;
+            }
         }
 
-        ev += taper(PARAMETER_PAWN_DOUBLED_EARLY, PARAMETER_PAWN_DOUBLED_LATE, taper) *
-                       BitBoard.bitCount((BitBoard.shiftNorth(ourPieceOccupancy[0])) & ourPieceOccupancy[0]);
-
-        //        ev += taper(PARAMETER_PAWN_CONNECTED_EARLY, PARAMETER_PAWN_CONNECTED_LATE, taper) *
-//                       (BitBoard.bitCount(connectedPawnsEast) +
-//                        BitBoard.bitCount(connectedPawnsWest));
-        //evalResults[0] = ev;
-
+        int doubled = BitBoard.bitCount((BitBoard.shiftNorth(ourPieceOccupancy[0])) & ourPieceOccupancy[0]);
+        early += PARAMETER_PAWN_DOUBLED_EARLY * doubled;
+        late += PARAMETER_PAWN_DOUBLED_LATE * doubled;
 
-//        System.out.println("pawns: " + ev);
-
-        return ev;
+        ctx.pawnStructure[0] += color * early;
+        ctx.pawnStructure[1] += color * late;
+        return passedPawns;
     }
 
     private double feature_rooks(PieceList[] ourPieces,
@@ -787,10 +839,11 @@ public class AdvancedEvaluator implements Evaluator<AdvancedEvaluator> {
     public void printEvaluation(Board board){
         double phase = phaseDecider.getGamePhase(board);
         FastBoard fb = (FastBoard) board;
-        double w = evaluateWhite(fb, phase);
-        double[] whiteRes = Arrays.copyOf(evalResults, evalResults.length);
-        double b = evaluateBlack(fb, phase);
-        double[] blackRes = Arrays.copyOf(evalResults, evalResults.length);
+        Context ctx = context.get();
+        double w = evaluateWhite(ctx, fb, phase);
+        double[] whiteRes = Arrays.copyOf(ctx.evalResults, ctx.evalResults.length);
+        double b = evaluateBlack(ctx, fb, phase);
+        double[] blackRes = Arrays.copyOf(ctx.evalResults, ctx.evalResults.length);
 
 
         StringBuilder builder = new StringBuilder();
@@ -814,6 +867,11 @@ public class AdvancedEvaluator implements Evaluator<AdvancedEvaluator> {
 
 
 
+    @Override
+    public PawnTable getPawnTable() {
+        return context.get().pawnTable;
+    }
+
     @Override
     public double[] getEvolvableValues(){
         return new double[]{
@@ -972,6 +1030,7 @@ public class AdvancedEvaluator implements Evaluator<AdvancedEvaluator> {
         PARAMETER_KING_SAFETY_2_LATE = ar[73];
         PARAMETER_KING_SAFETY_3_LATE = ar[74];
         PARAMETER_KING_PAWN_SHIELD_LATE = ar[75];
+        parameterVersion ++;
     }
 
     @Override
@@ -1039,7 +1098,7 @@ public class AdvancedEvaluator implements Evaluator<AdvancedEvaluator> {
         return -1;
     }
 
-    public double staticExchangeEvaluation(Board board, int toSqare, int target, int fromSquare, int attacker, int color){
+    public int staticExchangeEvaluation(Board board, int toSqare, int target, int fromSquare, int attacker, int color){
 
 
         long[] whiteOcc = Arrays.copyOf(((FastBoard)board).getWhite_values(), 6);
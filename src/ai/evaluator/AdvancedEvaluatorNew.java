@@ -1,10 +1,13 @@
 package ai.evaluator;
 
 import ai.evaluator.decider.BoardPhaseDecider;
+import ai.tools.tables.PawnTable;
 import ai.tools.tensor.Tensor1D;
 import board.Board;
 import board.FastBoard;
+import board.PieceSquareTables;
 import board.bitboards.BitBoard;
+import board.moves.Move;
 import board.pieces.PieceList;
 import io.IO;
 import io.UCI;
@@ -221,13 +224,32 @@ public class AdvancedEvaluatorNew implements Evaluator<AdvancedEvaluatorNew> {
 
     //</editor-fold>
 
+    /**
+     * the piece square tables above in centipawns. The board maintains their sums incrementally.
+     */
+    public static final PieceSquareTables PIECE_SQUARE_TABLES = createPieceSquareTables();
+
+    private static PieceSquareTables createPieceSquareTables(){
+        int[][] early = new int[13][64];
+        int[][] late = new int[13][64];
+        for(int p = 1; p <= 6; p++){
+            for(int i = 0; i < 64; i++){
+                early[6 + p][i] = (int) Math.round(WHITE_PST_EARLY[p-1].get(i) * 100);
+                early[6 - p][i] = -(int) Math.round(BLACK_PST_EARLY[p-1].get(i) * 100);
+                late[6 + p][i] = (int) Math.round(WHITE_PST_LATE[p-1].get(i) * 100);
+                late[6 - p][i] = -(int) Math.round(BLACK_PST_LATE[p-1].get(i) * 100);
+            }
+        }
+        return new PieceSquareTables(early, late);
+    }
+
 
     /**
      * some constants like pawn/king values
      */
-    private double CONST_PARAMETER_PAWN_VALUE =                                 100;
-    private double CONST_PARAMETER_KING_VALUE =                                10000;
-    private double CONST_PARAMETER_KING_LONELY =                                -20;
+    private int CONST_PARAMETER_PAWN_VALUE =                                    100;
+    private int CONST_PARAMETER_KING_VALUE =                                   10000;
+    private int CONST_PARAMETER_KING_LONELY =                                   -20;
 
     
     private int c = 0;
@@ -279,7 +301,7 @@ public class AdvancedEvaluatorNew implements Evaluator<AdvancedEvaluatorNew> {
     private int PARAMETER_KING_SAFETY_3 =                                   c++;
     private int PARAMETER_KING_PAWN_SHIELD =                                c++;
 
-    private double[] PARAMSEARLY = new double[]{
+    private volatile double[] PARAMSEARLY = new double[]{
             79,
             16,
             -3,
@@ -323,7 +345,7 @@ public class AdvancedEvaluatorNew implements Evaluator<AdvancedEvaluatorNew> {
             -73,
             -28,
             20};
-    private double[] PARAMSLATE = new double[]{
+    private volatile double[] PARAMSLATE = new double[]{
             137,
             11,
             69,
@@ -369,10 +391,60 @@ public class AdvancedEvaluatorNew implements Evaluator<AdvancedEvaluatorNew> {
             13,
             4};
 
-    private double[] FEATURES = new double[PARAMSEARLY.length];
-    private double[] FEATURE_CONST = new double[3];
+    /**
+     * the parameters rounded to integers. They are used for the evaluation while the parameters above
+     * are only used for tuning. Both are replaced as a whole by setEvolvableValues.
+     */
+    private volatile int[] paramsEarly = quantize(PARAMSEARLY);
+    private volatile int[] paramsLate = quantize(PARAMSLATE);
 
-    private double phase;
+    /**
+     * the piece square table features are stored in centipawns while all other features are simple counts.
+     * To compute the result with integers only, the counts are scaled by 100 as well.
+     */
+    private static final int FEATURE_SCALE = 100;
+    private int[] featureScale = new int[PARAMSEARLY.length];
+    {
+        Arrays.fill(featureScale, FEATURE_SCALE);
+        featureScale[PARAMETER_PAWN_TABLE_FACTOR] = 1;
+        featureScale[PARAMETER_ROOK_TABLE_FACTOR] = 1;
+        featureScale[PARAMETER_KNIGHT_TABLE_FACTOR] = 1;
+        featureScale[PARAMETER_BISHOP_TABLE_FACTOR] = 1;
+        featureScale[PARAMETER_QUEEN_TABLE_FACTOR] = 1;
+        featureScale[PARAMETER_KING_TABLE_FACTOR] = 1;
+    }
+
+    /**
+     * the features which only depend on the pawn structure. They are cached in the pawn table.
+     */
+    private int[] PAWN_STRUCTURE_FEATURES = new int[]{
+            PARAMETER_PAWN_CONNECTED,
+            PARAMETER_PAWN_PASSED,
+            PARAMETER_PAWN_ISOLATED,
+            PARAMETER_PAWN_DOUBLED,
+            PARAMETER_PAWN_CONNECTED_PASSED};
+
+    /**
+     * the scratch data of a single evaluation. The parameters above are shared between all threads
+     * while each thread evaluates into its own context, so the same evaluator can be used concurrently.
+     */
+    private static class Context {
+        private final int[]     features;
+        private final int[]     featureConst = new int[3];
+        private final int[]     gain         = new int[32];        //swap list of the static exchange evaluation
+        private final int[]     pstEarly     = new int[6];         //piece square sums of boards without our tables
+        private final int[]     pstLate      = new int[6];
+        private final PawnTable pawnTable;
+        private int             phase;
+
+        private Context(int features, int pawnStructureFeatures) {
+            this.features = new int[features];
+            this.pawnTable = new PawnTable(PawnTable.DEFAULT_SIZE, pawnStructureFeatures);
+        }
+    }
+
+    private final ThreadLocal<Context> context =
+            ThreadLocal.withInitial(() -> new Context(PARAMSEARLY.length, PAWN_STRUCTURE_FEATURES.length));
 
     private double[] pieceVals = new double[]{0,
             CONST_PARAMETER_PAWN_VALUE,
@@ -388,6 +460,30 @@ public class AdvancedEvaluatorNew implements Evaluator<AdvancedEvaluatorNew> {
         this.phaseDecider = phaseDecider;
     }
 
+    /**
+     * rounds the given parameters to integers
+     * @param params
+     * @return
+     */
+    private static int[] quantize(double[] params){
+        int[] res = new int[params.length];
+        for(int i = 0; i < params.length; i++){
+            res[i] = (int) Math.round(params[i]);
+        }
+        return res;
+    }
+
+    /**
+     * interpolates between the two values with the given phase in [0, BoardPhaseDecider.PHASE_SCALE]
+     * @param early
+     * @param late
+     * @param phase
+     * @return
+     */
+    public static int taper(int early, int late, int phase){
+        return (early * (BoardPhaseDecider.PHASE_SCALE - phase) + late * phase) / BoardPhaseDecider.PHASE_SCALE;
+    }
+
     /**
      * taper is used to interpolate between to params.
      * taper should equal 0 for early game and 1 for late game.
@@ -417,85 +513,164 @@ public class AdvancedEvaluatorNew implements Evaluator<AdvancedEvaluatorNew> {
         return false;
     }
 
+    /**
+     * returns the gradients of the last evaluation done by the calling thread
+     * @return
+     */
     public double[] getGradients(){
-        double[] grads = new double[FEATURES.length * 2];
-
-        for(int i = 0; i < FEATURES.length; i++){
-            grads[i] = FEATURES[i] * (1-phase);
-            grads[i+FEATURES.length] = FEATURES[i] * (phase);
+        Context ctx = context.get();
+        double[] grads = new double[ctx.features.length * 2];
+
+        double phase = (double) ctx.phase / BoardPhaseDecider.PHASE_SCALE;
+        for(int i = 0; i < ctx.features.length; i++){
+            double feature = (double) ctx.features[i] * featureScale[i] / FEATURE_SCALE;
+            grads[i] = feature * (1-phase);
+            grads[i+ctx.features.length] = feature * (phase);
         }
 
         return grads;
     }
 
-
-    private boolean isComputing = false;
-
-
-    public boolean isComputing() {
-        return isComputing;
-    }
-
     /**
      * used to evaluate the board.
      * First the game phase aka. taper is evaluated.
      * Then blacks evaluation is subtracted from white evaluation.
      *
-     *
+     * The features are collected in the context of the calling thread so this method can be called
+     * from multiple threads at the same time. The evaluation only uses integer arithmetic and returns centipawns.
      *
      * @param board
      * @return
      */
     @Override
-    public double evaluate(Board board) {
+    public int evaluate(Board board) {
 
-        if(isComputing) throw new RuntimeException();
-        isComputing = true;
+        Context ctx = context.get();
 
-        phase = phaseDecider.getGamePhase(board);
+        int phase = phaseDecider.getScaledGamePhase(board);
+        ctx.phase = phase;
         FastBoard fb = (FastBoard) board;
 
         if(probablyInsufficientMaterial(fb.getWhite_pieces(), fb.getBlack_pieces())) {
-            isComputing = false;
             return 0;
         }
 
-        Arrays.fill(FEATURE_CONST, 0);
-        Arrays.fill(FEATURES, 0);
+        Arrays.fill(ctx.featureConst, 0);
+        Arrays.fill(ctx.features, 0);
 
-        featureWhite(fb, phase);
-        featureBlack(fb, phase);
+        feature_material(ctx, fb, phase);
+        feature_pawn_structure(ctx, fb);
+        featureWhite(ctx, fb, phase);
+        featureBlack(ctx, fb, phase);
 
-        double res = result(phase);
-        isComputing = false;
-        return res;
+        return result(ctx, phase);
     }
 
-    private double result(double phase){
+    private int result(Context ctx, int phase){
 
-        double early = 0;
-        double late = 0;
+        //the parameters may be replaced by another thread so both arrays are read once
+        int[] paramsEarly = this.paramsEarly;
+        int[] paramsLate = this.paramsLate;
 
-        for(int i = 0; i < FEATURES.length; i++){
-            early += PARAMSEARLY[i] * FEATURES[i];
-            late += PARAMSLATE[i] * FEATURES[i];
+        long early = 0;
+        long late = 0;
+
+        for(int i = 0; i < ctx.features.length; i++){
+            int feature = ctx.features[i] * featureScale[i];
+            early += paramsEarly[i] * feature;
+            late += paramsLate[i] * feature;
         }
 
-        double result = early * (1-phase) + late * phase;
+        int result = (int) ((early * (BoardPhaseDecider.PHASE_SCALE - phase) + late * phase)
+                            / (BoardPhaseDecider.PHASE_SCALE * FEATURE_SCALE));
 
-        result += FEATURE_CONST[0] * CONST_PARAMETER_PAWN_VALUE;
-        result += FEATURE_CONST[1] * CONST_PARAMETER_KING_VALUE;
-        result += FEATURE_CONST[2] * CONST_PARAMETER_KING_LONELY;
+        result += ctx.featureConst[0] * CONST_PARAMETER_PAWN_VALUE;
+        result += ctx.featureConst[1] * CONST_PARAMETER_KING_VALUE;
+        result += ctx.featureConst[2] * CONST_PARAMETER_KING_LONELY;
 
         return result;
 
     }
 
-    public void featureWhite(FastBoard fb, double phase){
-        featureSide(1,
+    /**
+     * installs the piece square tables of this evaluator on the board so it maintains their sums incrementally.
+     * @param board
+     */
+    @Override
+    public void attach(Board board) {
+        FastBoard fb = (FastBoard) board;
+        if(fb.getPieceSquareTables() != PIECE_SQUARE_TABLES){
+            fb.setPieceSquareTables(PIECE_SQUARE_TABLES);
+        }
+    }
+
+    /**
+     * adds the material and the piece square values of all pieces except the kings.
+     * Both are maintained incrementally by the board so they are not computed for each piece.
+     * If the tables of this evaluator have not been attached to the board, the piece square sums are computed here.
+     * @param fb
+     * @param phase
+     */
+    private void feature_material(Context ctx, FastBoard fb, int phase){
+        PieceList[] white = fb.getWhite_pieces();
+        PieceList[] black = fb.getBlack_pieces();
+        int[] early = fb.getPst_early();
+        int[] late = fb.getPst_late();
+        if(fb.getPieceSquareTables() != PIECE_SQUARE_TABLES){
+            early = ctx.pstEarly;
+            late = ctx.pstLate;
+            Arrays.fill(early, 0);
+            Arrays.fill(late, 0);
+            for(int i = 0; i < 64; i++){
+                int piece = fb.getPiece(i);
+                if(piece == 0) continue;
+                early[Math.abs(piece) - 1] += PIECE_SQUARE_TABLES.getEarly()[piece + 6][i];
+                late[Math.abs(piece) - 1] += PIECE_SQUARE_TABLES.getLate()[piece + 6][i];
+            }
+        }
+
+        ctx.featureConst[0] += white[0].size() - black[0].size();
+        ctx.features[PARAMETER_ROOK_VALUE] += white[1].size() - black[1].size();
+        ctx.features[PARAMETER_KNIGHT_VALUE] += white[2].size() - black[2].size();
+        ctx.features[PARAMETER_BISHOP_VALUE] += white[3].size() - black[3].size();
+        ctx.features[PARAMETER_QUEEN_VALUE] += white[4].size() - black[4].size();
+
+        ctx.features[PARAMETER_PAWN_TABLE_FACTOR] += taper(early[0], late[0], phase);
+        ctx.features[PARAMETER_ROOK_TABLE_FACTOR] += taper(early[1], late[1], phase);
+        ctx.features[PARAMETER_KNIGHT_TABLE_FACTOR] += taper(early[2], late[2], phase);
+        ctx.features[PARAMETER_BISHOP_TABLE_FACTOR] += taper(early[3], late[3], phase);
+        ctx.features[PARAMETER_QUEEN_TABLE_FACTOR] += taper(early[4], late[4], phase);
+    }
+
+    /**
+     * adds the pawn structure features of both sides. They only depend on the pawns so they are read
+     * from the pawn table if the same structure has been evaluated before.
+     * @param fb
+     */
+    private void feature_pawn_structure(Context ctx, FastBoard fb){
+        long key = fb.getPawnZobrist();
+        int entry = ctx.pawnTable.probe(key);
+        if(entry != -1){
+            for(int i = 0; i < PAWN_STRUCTURE_FEATURES.length; i++){
+                ctx.features[PAWN_STRUCTURE_FEATURES[i]] = ctx.pawnTable.getValue(entry, i);
+            }
+            return;
+        }
+
+        long passed = feature_pawns(ctx, fb.getWhite_pieces(), 1, BitBoard.whitePassedPawnMask, fb.getWhite_values(), fb.getBlack_values())
+                    | feature_pawns(ctx, fb.getBlack_pieces(), -1, BitBoard.blackPassedPawnMask, fb.getBlack_values(), fb.getWhite_values());
+
+        entry = ctx.pawnTable.store(key);
+        for(int i = 0; i < PAWN_STRUCTURE_FEATURES.length; i++){
+            ctx.pawnTable.setValue(entry, i, ctx.features[PAWN_STRUCTURE_FEATURES[i]]);
+        }
+        ctx.pawnTable.setPassedPawns(entry, passed);
+    }
+
+    private void featureWhite(Context ctx, FastBoard fb, int phase){
+        featureSide(ctx,
+                            1,
                             fb.getWhite_pieces(),
-                            WHITE_PST_EARLY,
-                            WHITE_PST_LATE,
                             fb.getWhite_values(),
                             fb.getTeam_total()[0],
                             BitBoard.whitePassedPawnMask,
@@ -506,11 +681,10 @@ public class AdvancedEvaluatorNew implements Evaluator<AdvancedEvaluatorNew> {
                             phase);
     }
 
-    public void featureBlack(FastBoard fb, double phase){
-        featureSide(-1,
+    private void featureBlack(Context ctx, FastBoard fb, int phase){
+        featureSide(ctx,
+                            -1,
                             fb.getBlack_pieces(),
-                            BLACK_PST_EARLY,
-                            BLACK_PST_LATE,
                             fb.getBlack_values(),
                             fb.getTeam_total()[1],
                             BitBoard.blackPassedPawnMask,
@@ -525,10 +699,9 @@ public class AdvancedEvaluatorNew implements Evaluator<AdvancedEvaluatorNew> {
     /**
      * evaluates the position for the given side.
      * requires the following params:
+     * @param ctx                       the context of the calling thread
      * @param color                     1 for white, -1 for black
      * @param ourPieces                 an array of PieceList's for this colored pieces
-     * @param earlyPST                  an array of PST for this side for the early game
-     * @param latePST                   an array of PST for this side for the late game
      * @param ourPieceOccupancy         an array of bitboards which mark the occupancy of our pieces
      * @param ourTotalOccupancy         a bitboard which marks all occupied squares by this color
      * @param ourPassedPawnMask         an array of masks for passed pawns detection
@@ -536,14 +709,13 @@ public class AdvancedEvaluatorNew implements Evaluator<AdvancedEvaluatorNew> {
      * @param opponentTotalOccupancy    a bitboard which marks all occupied squares by the opponent
      * @param totalOccupied             a bitboard which marks all occupied squares
      * @param attackedSquares           a bitboard which marks all squares attacked by the opponent
-     * @param taper                     the taper value for interpolation
+     * @param phase                     the game phase in [0, BoardPhaseDecider.PHASE_SCALE]
      * @return
      */
-    public void featureSide(
+    private void featureSide(
+            Context ctx,
             int color,
             PieceList[] ourPieces,
-            Tensor1D[] earlyPST,
-            Tensor1D[] latePST,
             long[] ourPieceOccupancy,
             long ourTotalOccupancy,
             long[] ourPassedPawnMask,
@@ -551,7 +723,7 @@ public class AdvancedEvaluatorNew implements Evaluator<AdvancedEvaluatorNew> {
             long opponentTotalOccupancy,
             long totalOccupied,
             long attackedSquares,
-            double taper) {
+            int phase) {
 
 
         /**
@@ -562,45 +734,40 @@ public class AdvancedEvaluatorNew implements Evaluator<AdvancedEvaluatorNew> {
                          BitBoard.shiftSouthWest(opponentPieceOccupancy[0]) | BitBoard.shiftSouthEast(opponentPieceOccupancy[0]) :
                          BitBoard.shiftNorthWest(opponentPieceOccupancy[0]) | BitBoard.shiftNorthEast(opponentPieceOccupancy[0]));
 
-        feature_knights(ourPieces, color, ourTotalOccupancy, opponentPawnCover, earlyPST, latePST, taper);
-        feature_pawns(ourPieces, color, ourPassedPawnMask, ourPieceOccupancy, opponentPieceOccupancy, earlyPST, latePST, taper);
-        feature_rooks(ourPieces, color, ourTotalOccupancy, ourPieceOccupancy, opponentPieceOccupancy, totalOccupied, opponentPawnCover, earlyPST, latePST, taper);
-        feature_bishops(ourPieces, color, ourTotalOccupancy, totalOccupied, opponentPawnCover, earlyPST, latePST, taper, ourPieceOccupancy, opponentPieceOccupancy);
-        feature_queens(ourPieces, color, ourTotalOccupancy, totalOccupied, opponentPawnCover, earlyPST, latePST, taper);
-        feature_kings(ourPieces, color, ourPieceOccupancy, ourTotalOccupancy, opponentTotalOccupancy, attackedSquares, earlyPST, latePST, taper);
+        feature_knights(ctx, ourPieces, color, ourTotalOccupancy, opponentPawnCover);
+        feature_rooks(ctx, ourPieces, color, ourTotalOccupancy, ourPieceOccupancy, opponentPieceOccupancy, totalOccupied, opponentPawnCover);
+        feature_bishops(ctx, ourPieces, color, ourTotalOccupancy, totalOccupied, opponentPawnCover, ourPieceOccupancy, opponentPieceOccupancy);
+        feature_queens(ctx, ourPieces, color, ourTotalOccupancy, totalOccupied, opponentPawnCover);
+        feature_kings(ctx, ourPieces, color, ourPieceOccupancy, ourTotalOccupancy, opponentTotalOccupancy, attackedSquares, phase);
 
     }
 
-    private void feature_knights(PieceList[] ourPieces,
+    private void feature_knights(Context ctx, PieceList[] ourPieces,
                                    int color,
                                    long ourTotalOccupancy,
-                                   long opponentPawnCover,
-                                   Tensor1D[] pstEarly,
-                                   Tensor1D[] pstLate,
-                                   double taper) {
+                                   long opponentPawnCover) {
         for (int i = 0; i < ourPieces[2].size(); i++) {
             int index = ourPieces[2].get(i);
 
             long attacks = BitBoard.KNIGHT_ATTACKS[index] & ~ourTotalOccupancy;
 
-            FEATURES[PARAMETER_KNIGHT_VALUE] += color;
-            FEATURES[PARAMETER_KNIGHT_TABLE_FACTOR] += color * taper(pstEarly[2].get(index), pstLate[2].get(index), taper);
-            FEATURES[PARAMETER_KNIGHT_VISIBILITY] += color * BitBoard.bitCount(attacks);
-            FEATURES[PARAMETER_KNIGHT_VISIBILITY_PAWN_COVER] += color * BitBoard.bitCount(attacks & opponentPawnCover);
-            FEATURES[PARAMETER_KNIGHT_TRAPPED] += color * ((attacks & opponentPawnCover) == attacks ? 1 : 0);
+            ctx.features[PARAMETER_KNIGHT_VISIBILITY] += color * BitBoard.bitCount(attacks);
+            ctx.features[PARAMETER_KNIGHT_VISIBILITY_PAWN_COVER] += color * BitBoard.bitCount(attacks & opponentPawnCover);
+            ctx.features[PARAMETER_KNIGHT_TRAPPED] += color * ((attacks & opponentPawnCover) == attacks ? 1 : 0);
 
         }
     }
 
 
-    private void feature_pawns(PieceList[] ourPieces,
-                                 int color,
-                                 long[] ourPassedPawnMask,
-                                 long[] ourPieceOccupancy,
-                                 long[] opponentPieceOccupancy,
-                                 Tensor1D[] pstEarly,
-                                 Tensor1D[] pstLate,
-                                 double taper) {
+    /**
+     * adds the pawn structure features of one side and returns its passed pawns
+     * @return
+     */
+    private long feature_pawns(Context ctx, PieceList[] ourPieces,
+                               int color,
+                               long[] ourPassedPawnMask,
+                               long[] ourPieceOccupancy,
+                               long[] opponentPieceOccupancy) {
 
 
         //connected from east and west
@@ -615,77 +782,71 @@ public class AdvancedEvaluatorNew implements Evaluator<AdvancedEvaluatorNew> {
             connectedPawnsWest = BitBoard.shiftSouthWest(ourPieceOccupancy[0]) & ourPieceOccupancy[0];
         }
 
+        long passedPawns = 0L;
         for (int i = 0; i < ourPieces[0].size(); i++) {
             int index = ourPieces[0].get(i);
 
-
-            FEATURES[PARAMETER_PAWN_TABLE_FACTOR] += color * taper(pstEarly[0].get(index), pstLate[0].get(index), taper);
-            FEATURE_CONST[0] += color;
-
             boolean passed = (ourPassedPawnMask[index] & opponentPieceOccupancy[0]) == 0;
             boolean connected = ((1L << index) & (connectedPawnsEast | connectedPawnsWest)) != 0;
             boolean isolated = (BitBoard.files_neighbour[BitBoard.fileIndex(index)] & ourPieceOccupancy[0]) == 0;
             //boolean doubled = ((BitBoard.files[index % 8] & ourPieceOccupancy[0]) - 1) != 0;
 
+            if (passed) {
+                passedPawns |= 1L << index;
+            }
+
             if (passed && connected) {
-                FEATURES[PARAMETER_PAWN_CONNECTED_PASSED] += color;
+                ctx.features[PARAMETER_PAWN_CONNECTED_PASSED] += color;
             } else {
                 if (passed) {
-                    FEATURES[PARAMETER_PAWN_PASSED] += color;
+                    ctx.features[PARAMETER_PAWN_PASSED] += color;
                 }
                 if (connected) {
-                    FEATURES[PARAMETER_PAWN_CONNECTED] += color;
+                    ctx.features[PARAMETER_PAWN_CONNECTED] += color;
                 }
             }
 
             if (isolated) {
-                FEATURES[PARAMETER_PAWN_ISOLATED] += color;
+                ctx.features[PARAMETER_PAWN_ISOLATED] += color;
             }
 
         }
 
-        FEATURES[PARAMETER_PAWN_DOUBLED] += color * BitBoard.bitCount((BitBoard.shiftNorth(ourPieceOccupancy[0]) & ourPieceOccupancy[0]));
+        ctx.features[PARAMETER_PAWN_DOUBLED] += color * BitBoard.bitCount((BitBoard.shiftNorth(ourPieceOccupancy[0]) & ourPieceOccupancy[0]));
+        return passedPawns;
     }
 
-    private void feature_rooks(PieceList[] ourPieces,
+    private void feature_rooks(Context ctx, PieceList[] ourPieces,
                                  int color,
                                  long ourTotalOccupancy,
                                  long[] ourPieceOccupancy,
                                  long[] opponentPieceOccupancy,
                                  long totalOccupied,
-                                 long opponentPawnCover,
-                                 Tensor1D[] pstEarly,
-                                 Tensor1D[] pstLate,
-                                 double taper) {
+                                 long opponentPawnCover) {
         for (int i = 0; i < ourPieces[1].size(); i++) {
             int index = ourPieces[1].get(i);
             long attacks = BitBoard.lookUpRookAttack(index, totalOccupied) & ~ourTotalOccupancy;
 
 
-            FEATURES[PARAMETER_ROOK_VALUE] += color;
-            FEATURES[PARAMETER_ROOK_TABLE_FACTOR] += color * taper(pstEarly[1].get(index), pstLate[1].get(index), taper);
-            FEATURES[PARAMETER_ROOK_VISIBILITY] += color * BitBoard.bitCount(attacks);
-            FEATURES[PARAMETER_ROOK_VISIBILITY_PAWN_COVER] += color * BitBoard.bitCount(attacks & opponentPawnCover);
-            FEATURES[PARAMETER_ROOK_TRAPPED] += color * ((attacks & opponentPawnCover) == attacks ? 1 : 0);
-            FEATURES[PARAMETER_ROOK_KING_LINE] += color * ((BitBoard.lookUpRookAttack(index, 0L) & opponentPieceOccupancy[5]) > 0 ? 1 : 0);
+            ctx.features[PARAMETER_ROOK_VISIBILITY] += color * BitBoard.bitCount(attacks);
+            ctx.features[PARAMETER_ROOK_VISIBILITY_PAWN_COVER] += color * BitBoard.bitCount(attacks & opponentPawnCover);
+            ctx.features[PARAMETER_ROOK_TRAPPED] += color * ((attacks & opponentPawnCover) == attacks ? 1 : 0);
+            ctx.features[PARAMETER_ROOK_KING_LINE] += color * ((BitBoard.lookUpRookAttack(index, 0L) & opponentPieceOccupancy[5]) > 0 ? 1 : 0);
 
             if ((BitBoard.files[BitBoard.fileIndex(index)] & ourPieceOccupancy[0]) == 0) {     //atleast half open
                 if ((BitBoard.files[BitBoard.fileIndex(index)] & opponentPieceOccupancy[0]) == 0) {     //open
-                    FEATURES[PARAMETER_ROOK_OPEN] += color;
+                    ctx.features[PARAMETER_ROOK_OPEN] += color;
                 }
-                FEATURES[PARAMETER_ROOK_HALF_OPEN] += color;
+                ctx.features[PARAMETER_ROOK_HALF_OPEN] += color;
             }
         }
     }
 
-    private void feature_bishops(PieceList[] ourPieces,
+    private void feature_bishops(Context ctx, PieceList[] ourPieces,
                                    int color,
                                    long ourTotalOccupancy,
                                    long totalOccupied,
                                    long opponentPawnCover,
-                                   Tensor1D[] pstEarly,
-                                   Tensor1D[] pstLate,
-                                   double taper,
                                    long[] ourPieceOccupancy,
                                    long[] opponentPieceOccupancy) {
         for (int i = 0; i < ourPieces[3].size(); i++) {
@@ -694,38 +855,33 @@ public class AdvancedEvaluatorNew implements Evaluator<AdvancedEvaluatorNew> {
             long attacks = BitBoard.lookUpBishopAttack(index, totalOccupied) & ~ourTotalOccupancy;
 
 
-            FEATURES[PARAMETER_BISHOP_VALUE] += color;
-            FEATURES[PARAMETER_BISHOP_TABLE_FACTOR] += color * taper(pstEarly[3].get(index), pstLate[3].get(index), taper);
-            FEATURES[PARAMETER_BISHOP_VISIBILITY] += color * BitBoard.bitCount(attacks);
-            FEATURES[PARAMETER_BISHOP_VISIBILITY_PAWN_COVER] += color * BitBoard.bitCount(attacks & opponentPawnCover);
-            FEATURES[PARAMETER_BISHOP_TRAPPED] += color * ((attacks & opponentPawnCover) == attacks ? 1 : 0);
+            ctx.features[PARAMETER_BISHOP_VISIBILITY] += color * BitBoard.bitCount(attacks);
+            ctx.features[PARAMETER_BISHOP_VISIBILITY_PAWN_COVER] += color * BitBoard.bitCount(attacks & opponentPawnCover);
+            ctx.features[PARAMETER_BISHOP_TRAPPED] += color * ((attacks & opponentPawnCover) == attacks ? 1 : 0);
 
 
 
             int occupiedCenterSquares = BitBoard.bitCount(BitBoard.center_squares & (ourPieceOccupancy[0] | opponentPieceOccupancy[0]));
             //// VERY POSSIBLY WRONG --Noah
             if (occupiedCenterSquares <= 1)  {
-                FEATURES[PARAMETER_BISHOP_OPEN_BONUS] += color;
+                ctx.features[PARAMETER_BISHOP_OPEN_BONUS] += color;
             } else if (occupiedCenterSquares >= 3) {
-                FEATURES[PARAMETER_BISHOP_CLOSED_PENALTY] += color;
+                ctx.features[PARAMETER_BISHOP_CLOSED_PENALTY] += color;
             }
         }
 
 
 
         if (ourPieces[3].size() > 1) {
-            FEATURES[PARAMETER_BISHOP_DOUBLED] += color;
+            ctx.features[PARAMETER_BISHOP_DOUBLED] += color;
         }
     }
 
-    private void feature_queens(PieceList[] ourPieces,
+    private void feature_queens(Context ctx, PieceList[] ourPieces,
                                   int color,
                                   long ourTotalOccupancy,
                                   long totalOccupied,
-                                  long opponentPawnCover,
-                                  Tensor1D[] pstEarly,
-                                  Tensor1D[] pstLate,
-                                  double taper) {
+                                  long opponentPawnCover) {
         for (int i = 0; i < ourPieces[4].size(); i++) {
             int index = ourPieces[4].get(i);
 
@@ -733,56 +889,55 @@ public class AdvancedEvaluatorNew implements Evaluator<AdvancedEvaluatorNew> {
                             BitBoard.lookUpRookAttack(index, totalOccupied))
                            & ~ourTotalOccupancy;
 
-            FEATURES[PARAMETER_QUEEN_VALUE] += color;
-            FEATURES[PARAMETER_QUEEN_TABLE_FACTOR] += color * taper(pstEarly[4].get(index), pstLate[4].get(index), taper);
-            FEATURES[PARAMETER_QUEEN_VISIBILITY] += color * BitBoard.bitCount(attacks);
-            FEATURES[PARAMETER_QUEEN_VISIBILITY_PAWN_COVER] += color * BitBoard.bitCount(attacks & opponentPawnCover);
-            FEATURES[PARAMETER_QUEEN_TRAPPED] += color * ((attacks & opponentPawnCover) == attacks ? 1 : 0);
+            ctx.features[PARAMETER_QUEEN_VISIBILITY] += color * BitBoard.bitCount(attacks);
+            ctx.features[PARAMETER_QUEEN_VISIBILITY_PAWN_COVER] += color * BitBoard.bitCount(attacks & opponentPawnCover);
+            ctx.features[PARAMETER_QUEEN_TRAPPED] += color * ((attacks & opponentPawnCover) == attacks ? 1 : 0);
 
         }
     }
 
 
-    private double feature_kings(PieceList[] ourPieces,
+    private void feature_kings(Context ctx, PieceList[] ourPieces,
                                  int color,
                                  long[] ourPieceOccupancy,
                                  long ourTotalOccupancy,
                                  long opponentTotalOccupancy,
                                  long attackedSquares,
-                                 Tensor1D[] pstEarly,
-                                 Tensor1D[] pstLate,
-                                 double taper) {
+                                 int phase) {
 
 
         boolean opponentKingIsAlone = BitBoard.bitCount(opponentTotalOccupancy) == 1;
 
-        double ev = 0;
         for (int i = 0; i < ourPieces[5].size(); i++) {
             int index = ourPieces[5].get(i);
 
             if(!opponentKingIsAlone){
 
-                FEATURES[PARAMETER_KING_TABLE_FACTOR] += color * taper(pstEarly[5].get(index), pstLate[5].get(index), taper);
-                FEATURES[PARAMETER_KING_SAFETY_1] += color * (BitBoard.bitCount(BitBoard.KING_ATTACKS[index] & ourTotalOccupancy));
-                FEATURES[PARAMETER_KING_SAFETY_2] += color * (BitBoard.bitCount(BitBoard.KING_ATTACKS[index] & opponentTotalOccupancy));
-                FEATURES[PARAMETER_KING_SAFETY_3] += color * BitBoard.bitCount(BitBoard.KING_ATTACKS[index] & attackedSquares);
-                FEATURES[PARAMETER_KING_PAWN_SHIELD] += color * (BitBoard.bitCount(BitBoard.KING_ATTACKS[index] & ourPieceOccupancy[0]));
+                ctx.features[PARAMETER_KING_TABLE_FACTOR] += taper(PIECE_SQUARE_TABLES.getEarly()[6 + 6 * color][index], PIECE_SQUARE_TABLES.getLate()[6 + 6 * color][index], phase);
+                ctx.features[PARAMETER_KING_SAFETY_1] += color * (BitBoard.bitCount(BitBoard.KING_ATTACKS[index] & ourTotalOccupancy));
+                ctx.features[PARAMETER_KING_SAFETY_2] += color * (BitBoard.bitCount(BitBoard.KING_ATTACKS[index] & opponentTotalOccupancy));
+                ctx.features[PARAMETER_KING_SAFETY_3] += color * BitBoard.bitCount(BitBoard.KING_ATTACKS[index] & attackedSquares);
+                ctx.features[PARAMETER_KING_PAWN_SHIELD] += color * (BitBoard.bitCount(BitBoard.KING_ATTACKS[index] & ourPieceOccupancy[0]));
 
             }
             else{
-                FEATURE_CONST[2] += color * BitBoard.chebyshevDistance(index, BitBoard.bitscanForward(opponentTotalOccupancy));
+                ctx.featureConst[2] += color * BitBoard.chebyshevDistance(index, BitBoard.bitscanForward(opponentTotalOccupancy));
             }
 
-            FEATURE_CONST[1] += color;
+            ctx.featureConst[1] += color;
 
 
 
 
         }
-        return ev;
     }
 
 
+    @Override
+    public PawnTable getPawnTable() {
+        return context.get().pawnTable;
+    }
+
     @Override
     public double[] getEvolvableValues(){
         double[] res = new double[PARAMSEARLY.length + PARAMSLATE.length];
@@ -797,11 +952,15 @@ public class AdvancedEvaluatorNew implements Evaluator<AdvancedEvaluatorNew> {
     public void setEvolvableValues(double[] ar){
         PARAMSEARLY = Arrays.copyOfRange(ar, 0, PARAMSEARLY.length);
         PARAMSLATE = Arrays.copyOfRange(ar, PARAMSEARLY.length, PARAMSEARLY.length + PARAMSLATE.length);
+        paramsEarly = quantize(PARAMSEARLY);
+        paramsLate = quantize(PARAMSLATE);
     }
 
 
     public void printEval(FastBoard board){
-        double res = this.evaluate(board);
+        int res = this.evaluate(board);
+        int[] FEATURES = context.get().features;
+        int[] FEATURE_CONST = context.get().featureConst;
 
         ArrayList<String> labels = new ArrayList<>();
 
@@ -821,17 +980,19 @@ public class AdvancedEvaluatorNew implements Evaluator<AdvancedEvaluatorNew> {
         }
         System.out.println();
 
-        System.out.format(format, "PAWN_VALUE", FEATURE_CONST[0], CONST_PARAMETER_PAWN_VALUE, CONST_PARAMETER_PAWN_VALUE, CONST_PARAMETER_PAWN_VALUE, FEATURE_CONST[0] * CONST_PARAMETER_PAWN_VALUE);
-        System.out.format(format, "KING_VALUE", FEATURE_CONST[1], CONST_PARAMETER_KING_VALUE, CONST_PARAMETER_KING_VALUE, CONST_PARAMETER_KING_VALUE, FEATURE_CONST[1] * CONST_PARAMETER_KING_VALUE);
-        System.out.format(format, "OPPONENT_KING_ALONE", FEATURE_CONST[2], CONST_PARAMETER_KING_LONELY, CONST_PARAMETER_KING_LONELY, CONST_PARAMETER_KING_LONELY, FEATURE_CONST[2] * CONST_PARAMETER_KING_LONELY);
+        System.out.format(format, "PAWN_VALUE", (double) FEATURE_CONST[0], (double) CONST_PARAMETER_PAWN_VALUE, (double) CONST_PARAMETER_PAWN_VALUE, (double) CONST_PARAMETER_PAWN_VALUE, (double) FEATURE_CONST[0] * CONST_PARAMETER_PAWN_VALUE);
+        System.out.format(format, "KING_VALUE", (double) FEATURE_CONST[1], (double) CONST_PARAMETER_KING_VALUE, (double) CONST_PARAMETER_KING_VALUE, (double) CONST_PARAMETER_KING_VALUE, (double) FEATURE_CONST[1] * CONST_PARAMETER_KING_VALUE);
+        System.out.format(format, "OPPONENT_KING_ALONE", (double) FEATURE_CONST[2], (double) CONST_PARAMETER_KING_LONELY, (double) CONST_PARAMETER_KING_LONELY, (double) CONST_PARAMETER_KING_LONELY, (double) FEATURE_CONST[2] * CONST_PARAMETER_KING_LONELY);
 
         for(int i = 0; i < FEATURES.length; i++){
-            System.out.format(format, labels.get(i) , FEATURES[i], PARAMSEARLY[i], PARAMSLATE[i], taper(PARAMSEARLY[i], PARAMSLATE[i], phase), taper(PARAMSEARLY[i], PARAMSLATE[i], phase) * FEATURES[i]);
+            //the features are printed in their original units
+            double feature = (double) FEATURES[i] * featureScale[i] / FEATURE_SCALE;
+            System.out.format(format, labels.get(i) , feature, (double) paramsEarly[i], (double) paramsLate[i], taper(paramsEarly[i], paramsLate[i], phase), taper(paramsEarly[i], paramsLate[i], phase) * feature);
         }for(int i = 0; i < 140; i++){
             System.out.print("=");
         }
         System.out.println();
-        System.out.format("%-124s %15.3f %n", "total", res);
+        System.out.format("%-124s %15d %n", "total", res);
     }
 
 
@@ -901,52 +1062,150 @@ public class AdvancedEvaluatorNew implements Evaluator<AdvancedEvaluatorNew> {
         return -1;
     }
 
-    public double staticExchangeEvaluation(Board board, int toSqare, int target, int fromSquare, int attacker, int color){
-
-
-        long[] whiteOcc = Arrays.copyOf(((FastBoard)board).getWhite_values(), 6);
-        long[] blackOcc = Arrays.copyOf(((FastBoard)board).getBlack_values(), 6);
-
-
-        int gain[] = new int[32];
+    /**
+     * computes the static exchange evaluation of the capture on the board bitboards without modifying or copying them.
+     * Pieces which have been used in the exchange are removed from the occupancy and the sliding pieces behind them
+     * (x-rays) are added by looking up the sliding attacks of the target square again.
+     * The gains of the exchange are stored in a buffer of the thread's evaluation context.
+     */
+    public int staticExchangeEvaluation(Board board, int toSqare, int target, int fromSquare, int attacker, int color){
+        FastBoard   fastBoard   = (FastBoard) board;
+        long[]      white       = fastBoard.getWhite_values();
+        long[]      black       = fastBoard.getBlack_values();
+        long        diagonal    = white[3] | white[4] | black[3] | black[4];
+        long        straight    = white[1] | white[4] | black[1] | black[4];
+        long        occ         = fastBoard.getOccupied() ^ (1L << fromSquare);
+        long        attackers   = attackersTo(white, black, toSqare, occ, diagonal, straight);
+
+        int[] gain = context.get().gain;
         int d = 0;
         gain[d] = (int) pieceVals[Math.abs(target)];
 
-
-        long fromSet = 1L << fromSquare;
-        long occ = ((FastBoard) board).getOccupied();
-
-
-        do{
+        while(true){
             d++;
-            gain[d] = (int) (pieceVals[Math.abs(attacker)] - gain[d-1]);
+            gain[d] = (int) pieceVals[Math.abs(attacker)] - gain[d-1];
             if(Math.max(-gain[d-1], gain[d]) < 0){
                 break;
             }
 
-            if(color == 1){
-                whiteOcc[attacker-1] ^= (fromSet);
-            }else{
-                blackOcc[-attacker-1] ^= fromSet;
-            }
-            occ     ^= fromSet;
             color = -color;
+            long[] values = color == 1 ? white : black;
+            int type = leastValuableAttacker(values, attackers & occ);
+            if(type == -1) break;
+
+            long fromSet = Long.lowestOneBit(attackers & occ & values[type]);
+            occ ^= fromSet;
+            attackers |= xRayAttackers(type, toSqare, occ, diagonal, straight);
+            attacker = type + 1;
+        }
 
-            fromSquare = smallestAttackerSquare(color == 1 ? whiteOcc:blackOcc,occ, toSqare, color);
+        while (--d > 0)
+            gain[d-1]= -Math.max(-gain[d-1], gain[d]);
+        return gain[0];
+    }
 
-            if(fromSquare == 64){
-                smallestAttackerSquare(color == 1 ? whiteOcc:blackOcc,occ, toSqare, color);
-                throw new RuntimeException();
+    /**
+     * checks if the static exchange evaluation of the move is at least the given threshold.
+     * The exchange is stopped as soon as the result is known, so this is cheaper than computing the full value.
+     * Moves other than normal moves (castling, en passant, promotions) have a SEE of 0.
+     */
+    @Override
+    public boolean see_ge(Board board, int move, int threshold){
+        if(Move.getType(move) != Move.DEFAULT){
+            return 0 >= threshold;
+        }
+
+        int swap = (int) pieceVals[Math.abs(Move.getPieceTo(move))] - threshold;
+        if(swap < 0) return false;
+        swap = (int) pieceVals[Math.abs(Move.getPieceFrom(move))] - swap;
+        if(swap <= 0) return true;
+
+        FastBoard   fastBoard   = (FastBoard) board;
+        int         toSquare    = Move.getTo(move);
+        long[]      white       = fastBoard.getWhite_values();
+        long[]      black       = fastBoard.getBlack_values();
+        long        diagonal    = white[3] | white[4] | black[3] | black[4];
+        long        straight    = white[1] | white[4] | black[1] | black[4];
+        long        occ         = fastBoard.getOccupied() ^ (1L << Move.getFrom(move)) | (1L << toSquare);
+        long        attackers   = attackersTo(white, black, toSquare, occ, diagonal, straight);
+        int         color       = board.getActivePlayer();
+
+        //res is 1 if the side which made the move wins the exchange with respect to the threshold
+        int res = 1;
+        while(true){
+            color = -color;
+            attackers &= occ;
+            long[] values = color == 1 ? white : black;
+            int type = leastValuableAttacker(values, attackers);
+            if(type == -1) break;
+
+            res ^= 1;
+            if(type == 5){
+                //the king can only capture if the opponent has no attackers left
+                long[] opponent = color == 1 ? black : white;
+                return (attackers & (opponent[0] | opponent[1] | opponent[2] | opponent[3] | opponent[4] | opponent[5])) != 0
+                       ? res == 0 : res == 1;
             }
 
-            if(fromSquare == -1 || fromSquare == 64) break;
-            attacker = board.getPiece(fromSquare);
-            fromSet = 1L << fromSquare;
-        }while (fromSet != 0);
+            swap = (int) pieceVals[type + 1] - swap;
+            if(swap < res) break;
 
-        while (--d > 0)
-            gain[d-1]= -Math.max(-gain[d-1], gain[d]);
-        return gain[0];
+            occ ^= Long.lowestOneBit(attackers & values[type]);
+            attackers |= xRayAttackers(type, toSquare, occ, diagonal, straight);
+        }
+        return res == 1;
+    }
+
+    /**
+     * returns the pieces of both sides which attack the square for the given occupancy.
+     * @param white         the piece bitboards of white
+     * @param black         the piece bitboards of black
+     * @param square
+     * @param occ
+     * @param diagonal      the bishops and queens of both sides
+     * @param straight      the rooks and queens of both sides
+     * @return
+     */
+    private static long attackersTo(long[] white, long[] black, int square, long occ, long diagonal, long straight){
+        long sq = 1L << square;
+        return  (BitBoard.lookUpRookAttack(square, occ) & straight) |
+                (BitBoard.lookUpBishopAttack(square, occ) & diagonal) |
+                (BitBoard.KNIGHT_ATTACKS[square] & (white[2] | black[2])) |
+                (BitBoard.KING_ATTACKS[square] & (white[5] | black[5])) |
+                ((BitBoard.shiftSouthEast(sq) | BitBoard.shiftSouthWest(sq)) & white[0]) |
+                ((BitBoard.shiftNorthEast(sq) | BitBoard.shiftNorthWest(sq)) & black[0]);
+    }
+
+    /**
+     * returns the index (inside white_values/black_values) of the least valuable piece among the given attackers
+     * or -1 if none of the pieces attacks.
+     * @param values        the piece bitboards of one side
+     * @param attackers     the attackers of both sides
+     * @return
+     */
+    private static int leastValuableAttacker(long[] values, long attackers){
+        if((attackers & values[0]) != 0) return 0;
+        if((attackers & values[2]) != 0) return 2;
+        if((attackers & values[3]) != 0) return 3;
+        if((attackers & values[1]) != 0) return 1;
+        if((attackers & values[4]) != 0) return 4;
+        if((attackers & values[5]) != 0) return 5;
+        return -1;
+    }
+
+    /**
+     * returns the sliding pieces which attack the square after a piece of the given type has been removed from it.
+     * Only pieces which attack the square along a line can uncover new attackers.
+     */
+    private static long xRayAttackers(int type, int square, long occ, long diagonal, long straight){
+        long xRays = 0;
+        if(type == 0 || type == 3 || type == 4 || type == 5){
+            xRays |= BitBoard.lookUpBishopAttack(square, occ) & diagonal;
+        }
+        if(type == 1 || type == 4 || type == 5){
+            xRays |= BitBoard.lookUpRookAttack(square, occ) & straight;
+        }
+        return xRays & occ;
     }
 
     public double staticExchangeEvaluation(Board board, int sq, int color){
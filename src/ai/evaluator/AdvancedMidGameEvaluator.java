@@ -182,11 +182,11 @@ public class AdvancedMidGameEvaluator implements MidGameEvaluator, LateGameEvalu
 
     //will get to this later. For now, I'm using this file to store position values
     @Override
-    public double evaluate(Board board) {
+    public int evaluate(Board board) {
 
         FastBoard fb = (FastBoard) board;
         
-        return evalateSide(1, 
+        return (int) Math.round(evalateSide(1, 
                            fb.getWhite_pieces(),
                            new Tensor1D[]{PAWN_VALUES_WHITE, ROOK_VALUES_WHITE, KNIGHT_VALUES_WHITE, BISHOP_VALUES_WHITE, QUEEN_VALUES_WHITE, KING_VALUES_MID_WHITE},
                            
@@ -209,7 +209,7 @@ public class AdvancedMidGameEvaluator implements MidGameEvaluator, LateGameEvalu
                             fb.getWhite_values(),
                             fb.getTeam_total()[0],
 
-                            fb.getOccupied());
+                            fb.getOccupied()));
         
 //
     }
@@ -449,7 +449,7 @@ public class AdvancedMidGameEvaluator implements MidGameEvaluator, LateGameEvalu
             return evaluator;
         }
     @Override
-    public double staticExchangeEvaluation(Board board, int toSquare, int target, int fromSquare, int attacker, int color) {
+    public int staticExchangeEvaluation(Board board, int toSquare, int target, int fromSquare, int attacker, int color) {
         return 0;
     }
 
@@ -1,6 +1,8 @@
 package ai.evaluator;
 
+import ai.tools.tables.PawnTable;
 import board.Board;
+import board.moves.Move;
 
 import java.lang.reflect.Field;
 import java.util.ArrayList;
@@ -11,6 +13,10 @@ import java.util.HashMap;
  * Evaluators are used in Search-algorithms in the leaf-nodes and
  * take up most of the calculation time.
  *
+ * Evaluators have to be reentrant: the same instance may be used by multiple threads at the same time
+ * (e.g. the helper threads of a search). Scratch data of a single evaluation must therefor be kept
+ * per thread and not in the instance itself.
+ *
  */
 public interface Evaluator<T extends Evaluator<T>> {
 
@@ -20,9 +26,25 @@ public interface Evaluator<T extends Evaluator<T>> {
      * favors black.
      *
      * @param board
-     * @return the evaluation
+     * @return the evaluation in centipawns
      */
-    public double evaluate(Board board);
+    public int evaluate(Board board);
+
+    /**
+     * is called once before a search on the given board starts. Evaluators can attach data to the board
+     * which the board maintains incrementally. evaluate() must return the same result without it.
+     * @param board
+     */
+    public default void attach(Board board){
+    }
+
+    /**
+     * returns the pawn hash table used by this evaluator for the calling thread or null if it does not use one.
+     * @return
+     */
+    public default PawnTable getPawnTable(){
+        return null;
+    }
 
 
     /**
@@ -38,7 +60,8 @@ public interface Evaluator<T extends Evaluator<T>> {
     public abstract void setEvolvableValues(double[] ar);
 
     /**
-     * copies this evaluator object
+     * copies this evaluator object.
+     * This is not required to use an evaluator from multiple threads but to change the parameters independently.
      * @return
      */
     public abstract T copy();
@@ -51,7 +74,25 @@ public interface Evaluator<T extends Evaluator<T>> {
      * @param color
      * @return
      */
-    public abstract double staticExchangeEvaluation(Board board, int toSquare, int target, int fromSquare, int attacker, int color);
+    public abstract int staticExchangeEvaluation(Board board, int toSquare, int target, int fromSquare, int attacker, int color);
+
+    /**
+     * checks if the static exchange evaluation of the packed move is at least the given threshold.
+     * Evaluators can override this to stop the exchange as soon as the result is known.
+     * Moves other than normal moves (castling, en passant, promotions) have a SEE of 0.
+     *
+     * @param board
+     * @param move
+     * @param threshold
+     * @return
+     */
+    public default boolean see_ge(Board board, int move, int threshold){
+        if(Move.getType(move) != Move.DEFAULT){
+            return 0 >= threshold;
+        }
+        return staticExchangeEvaluation(board, Move.getTo(move), Move.getPieceTo(move),
+                                        Move.getFrom(move), Move.getPieceFrom(move), board.getActivePlayer()) >= threshold;
+    }
 
 
     public static void createParameters(Class<?> cl, double[] params){
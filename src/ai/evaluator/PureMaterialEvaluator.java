@@ -15,7 +15,7 @@ public class PureMaterialEvaluator implements Evaluator<PureMaterialEvaluator> {
     private SimpleDecider decider = new SimpleDecider();
 
     @Override
-    public double evaluate(Board board) {
+    public int evaluate(Board board) {
         double score = 0;
         FastBoard fb = (FastBoard) board;
         double p = decider.getGamePhase(board);
@@ -25,7 +25,7 @@ public class PureMaterialEvaluator implements Evaluator<PureMaterialEvaluator> {
             score -= (params[i] * p + params[i+6] * (1-p)) * fb.getBlack_pieces()[i].size();
         }
 
-        return score;
+        return (int) Math.round(score);
     }
 
     @Override
@@ -101,7 +101,7 @@ public class PureMaterialEvaluator implements Evaluator<PureMaterialEvaluator> {
         return -1;
     }
 
-    public double staticExchangeEvaluation(Board board, int toSqare, int target, int fromSquare, int attacker, int color){
+    public int staticExchangeEvaluation(Board board, int toSqare, int target, int fromSquare, int attacker, int color){
 
 
         long[] whiteOcc = Arrays.copyOf(((FastBoard)board).getWhite_values(), 6);
@@ -125,7 +125,7 @@ public class SimpleEvaluator implements Evaluator {
     public static final Tensor3D BW_POSITION_PRICE = new Tensor3D(B_PAWN_VALUES, B_ROOK_VALUES, KNIGHT_VALUES, B_BISHOP_VALUES, QUEEN_VALUES, B_KING_VALUES_MID, W_PAWN_VALUES, W_ROOK_VALUES, KNIGHT_VALUES, W_BISHOP_VALUES, QUEEN_VALUES, W_KING_VALUES_MID);
 
     @Override
-    public double evaluate(Board board) {
+    public int evaluate(Board board) {
         double score = 0;
 
         if(board instanceof FastBoard){
@@ -166,7 +166,7 @@ public class SimpleEvaluator implements Evaluator {
             }
         }
 
-        return score;
+        return (int) Math.round(score);
     }
 
     @Override
@@ -183,7 +183,7 @@ public class SimpleEvaluator implements Evaluator {
         return null;
     }
     @Override
-    public double staticExchangeEvaluation(Board board, int toSquare, int target, int fromSquare, int attacker, int color) {
+    public int staticExchangeEvaluation(Board board, int toSquare, int target, int fromSquare, int attacker, int color) {
         return 0;
     }
 }
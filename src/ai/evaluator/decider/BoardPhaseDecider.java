@@ -9,6 +9,11 @@ public interface BoardPhaseDecider {
     public static final int MIDGAME = 0;
     public static final int ENDGAME = 1;
 
+    /**
+     * the scale of the integer game phase. A scaled phase of 0 is the opening and PHASE_SCALE the endgame.
+     */
+    public static final int PHASE_SCALE = 256;
+
     /**
      * decides which phase of the game we are in.
      * It should return a value between 0 and 1 where 0 would mean that we are the opening with midgame in mind
@@ -18,4 +23,14 @@ public interface BoardPhaseDecider {
      */
     double getGamePhase(Board board);
 
+    /**
+     * returns the game phase as an integer between 0 and PHASE_SCALE so it can be used for integer
+     * interpolations.
+     * @param board
+     * @return
+     */
+    default int getScaledGamePhase(Board board){
+        return (int) Math.round(getGamePhase(board) * PHASE_SCALE);
+    }
+
 }
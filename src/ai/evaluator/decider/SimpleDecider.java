@@ -30,5 +30,22 @@ public class SimpleDecider implements BoardPhaseDecider {
         return phase;
     }
 
+    @Override
+    public int getScaledGamePhase(Board board) {
+
+        if(!(board instanceof FastBoard)) throw new RuntimeException();
+
+        int total = (int) TotalPhase;
+        int phase = total;
+
+        phase -= (((FastBoard) board).getWhite_pieces()[0].size() + ((FastBoard) board).getBlack_pieces()[0].size()) * (int) PawnPhase;
+        phase -= (((FastBoard) board).getWhite_pieces()[1].size() + ((FastBoard) board).getBlack_pieces()[1].size()) * (int) RookPhase;
+        phase -= (((FastBoard) board).getWhite_pieces()[2].size() + ((FastBoard) board).getBlack_pieces()[2].size()) * (int) KnightPhase;
+        phase -= (((FastBoard) board).getWhite_pieces()[3].size() + ((FastBoard) board).getBlack_pieces()[3].size()) * (int) BishopPhase;
+        phase -= (((FastBoard) board).getWhite_pieces()[4].size() + ((FastBoard) board).getBlack_pieces()[4].size()) * (int) QueenPhase;
+
+        return (phase * PHASE_SCALE + total / 2) / total;
+    }
+
 
 }
@@ -182,10 +182,6 @@ public class SimpleTexelOptimiser {
         int[] lastTimeChecked = new int[nParams];
         int[] iterationToPause = new int[nParams];
         boolean improved = true;
-        Evaluator[] evaluators = new Evaluator[cores];
-        for (int c = 0; c < cores; c++) {
-            evaluators[c] = evaluator.copy();
-        }
         while (improved) {
             improved = false;
             int skipped = 0;
@@ -283,10 +279,9 @@ public class SimpleTexelOptimiser {
         int tasks = fen_strings.size();
         int threads = pool.getAvailableThreads();
 
-        final AdvancedEvaluatorNew[] evaluators             = new AdvancedEvaluatorNew  [pool.getActiveThreads()];
+        //the evaluator is shared, each thread only needs its own gradients
         final double[]            [] threadGradients        = new double                [pool.getActiveThreads()][];
-        for(int i = 0; i < evaluators.length; i++){
-            evaluators[i]           = evaluator.copy();
+        for(int i = 0; i < threadGradients.length; i++){
             threadGradients[i]      = new double[gradientsBuffer.length];
         }
 
@@ -303,7 +298,7 @@ public class SimpleTexelOptimiser {
 
 //                searchers[core].setEvaluator(evaluator);
 //                double qi = searchers[core].qSearch(fen_strings.get(i));
-                double qi = evaluators[core].evaluate(fen_strings.get(i));
+                double qi = evaluator.evaluate(fen_strings.get(i));
                 double expected = results.get(i) == DRAW ? 0.5 :
                         results.get(i) == WHITE_WIN ? 1 : 0;
 
@@ -311,7 +306,7 @@ public class SimpleTexelOptimiser {
                 double sigPrime         = this.sigmoidPrime(qi, K);
                 double lossPrime        = -2 * (expected - sig);
 
-                double[] gradients      = evaluators[core].getGradients();
+                double[] gradients      = evaluator.getGradients();
 
                 for(int g = 0; g < gradients.length; g++){
                     threadGradients[core][g] += sigPrime * lossPrime * gradients[g];
@@ -7,7 +7,8 @@ import ai.monte_carlo.nodedata.ChessNodeData;
 
 public class EvaluatingSimulator implements Simulator<ChessNodeData> {
 
-    static Evaluator evaluator = new AdvancedMidGameEvaluator();
+    //evaluators are reentrant so one instance can be shared by all simulations
+    private static final Evaluator evaluator = new AdvancedMidGameEvaluator();
 
 
 
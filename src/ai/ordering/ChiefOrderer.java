@@ -2,33 +2,38 @@ package ai.ordering;
 
 import ai.tools.tables.CounterMoveTable;
 import ai.tools.tables.KillerTable;
-import ai.tools.transpositions.TranspositionEntry;
 import ai.tools.transpositions.TranspositionTable;
 import board.Board;
 import board.bitboards.BitBoard;
 import board.moves.Move;
-
-import java.util.ArrayList;
-import java.util.Comparator;
-import java.util.List;
+import board.moves.MoveList;
 
 public class ChiefOrderer implements Orderer {
 
 
-    ArrayList<Move> pvMoves = new ArrayList<>(10);
-    ArrayList<Move> mvvlvaCaps = new ArrayList<>(10);
-    ArrayList<Move> seeCaps = new ArrayList<>(10);
-    ArrayList<Move> killerMoves = new ArrayList<>(10);
-    ArrayList<Move> pawnThreats = new ArrayList<>(10);
-    ArrayList<Move> goodChecks = new ArrayList<>(10);
-    ArrayList<Move> badCaptureMoves = new ArrayList<>(20);
-    ArrayList<Move> nonCaptureMoves = new ArrayList<>(20);
+    /**
+     * the categories of moves in the order they are searched.
+     * Moves inside the same category keep the order in which they have been generated.
+     */
+    private static final int PV_MOVE            = 8;
+    private static final int MVVLVA_CAPTURE     = 7;
+    private static final int SEE_CAPTURE        = 6;
+    private static final int KILLER_MOVE        = 5;
+    private static final int PAWN_THREAT        = 4;
+    private static final int GOOD_CHECK         = 3;
+    private static final int BAD_CAPTURE        = 2;
+    private static final int NON_CAPTURE        = 1;
+
 
 
+    @Override
+    public Orderer copy() {
+        return new ChiefOrderer();
+    }
 
     @Override
     public void sort(
-            List<Move> collection,
+            MoveList collection,
             int depth,
             Board board,
             boolean pvNode,
@@ -37,98 +42,66 @@ public class ChiefOrderer implements Orderer {
             CounterMoveTable counterMoveTable) {
 
 
+        int ttIndex = TTMoveIndex(collection, transpositionTable, board);
 
-        int initSize = collection.size();
-
-        pvMoves.clear();
-
-        mvvlvaCaps.clear();
-        seeCaps.clear();
-
-        killerMoves.clear();
-
-        pawnThreats.clear();
-        goodChecks.clear();
-
-        badCaptureMoves.clear();
-        nonCaptureMoves.clear();
+        for(int i = 0; i < collection.size(); i++){
 
+            int m   = collection.get(i);
+            int see = collection.getSeeScore(i);
 
-        int ttIndex = TTMoveIndex(collection, transpositionTable, board);
-        if(ttIndex != -1){
-            pvMoves.add(collection.get(ttIndex));
-            collection.remove(ttIndex);
-        }
-
-        for(Move m:collection){
+            if(i == ttIndex){
+                collection.setScore(i, PV_MOVE);
+                continue;
+            }
 
             int mvv_lva = mvv_lva(m);
 
-            if(m.isCapture() && mvv_lva > 0){
-                m.setOrderPriority(mvv_lva);
-                mvvlvaCaps.add(m);
+            if(Move.isCapture(m) && mvv_lva > 0){
+                collection.setScore(i, MVVLVA_CAPTURE);
                 continue;
             }
 
-            if(m.isCapture() && m.getSeeScore() >= 0){
-                m.setOrderPriority(m.getSeeScore());
-                seeCaps.add(m);
+            if(Move.isCapture(m) && see >= 0){
+                collection.setScore(i, SEE_CAPTURE);
                 continue;
             }
 
             if(killerTable.isKillerMove(depth, m)){
-                killerMoves.add(m);
+                collection.setScore(i, KILLER_MOVE);
                 continue;
             }
 
-            if(m.getSeeScore() >= 0 &&
-               (m.getPieceFrom() == 1 && BitBoard.rankIndex(m.getTo()) >= 6 ||
-                m.getPieceFrom() == -1 && BitBoard.rankIndex(m.getTo()) <= 2)
+            int pieceFrom = Move.getPieceFrom(m);
+            if(see >= 0 &&
+               (pieceFrom == 1 && BitBoard.rankIndex(Move.getTo(m)) >= 6 ||
+                pieceFrom == -1 && BitBoard.rankIndex(Move.getTo(m)) <= 2)
             ){
-                m.setOrderPriority(m.getSeeScore());
-                pawnThreats.add(m);
+                collection.setScore(i, PAWN_THREAT);
                 continue;
             }
 
-            if(m.getSeeScore() >= 0 && board.givesCheck(m)){
-                m.setOrderPriority(m.getSeeScore());
-                goodChecks.add(m);
+            if(see >= 0 && board.givesCheck(m)){
+                collection.setScore(i, GOOD_CHECK);
                 continue;
             }
 
-            if(m.isCapture()){
-                badCaptureMoves.add(m);
+            if(Move.isCapture(m)){
+                collection.setScore(i, BAD_CAPTURE);
                 continue;
             }
 
 
-            nonCaptureMoves.add(m);
-            //m.setOrderPriority((int)historyTable.get(m.getFrom(),m.getTo()));
-        }
-
-        //nonCaptureMoves.sort(Comparator.comparingInt(Move::getOrderPriority));
-
-        collection.clear();
-        collection.addAll(pvMoves);
-        collection.addAll(mvvlvaCaps);
-        collection.addAll(seeCaps);
-        collection.addAll(killerMoves);
-        collection.addAll(pawnThreats);
-        collection.addAll(goodChecks);
-        collection.addAll(badCaptureMoves);
-        collection.addAll(nonCaptureMoves);
-
-        if(collection.size() != initSize){
-            throw new RuntimeException("This is thrown if the initial amount of moves has changed during ordering (which should'nt be obviously)");
+            collection.setScore(i, NON_CAPTURE);
         }
 
+        collection.sort();
     }
 
 
     private int[] mvvlvaScores = new int[]{0,100,500, 300,315,900,10000};
 
-    private int mvv_lva(Move m){
-        return mvvlvaScores[Math.abs(m.getPieceTo())] -  mvvlvaScores[Math.abs(m.getPieceFrom())];
+    private int mvv_lva(int m){
+        return mvvlvaScores[Math.abs(Move.getPieceTo(m))] -  mvvlvaScores[Math.abs(Move.getPieceFrom(m))];
     }
 
 
@@ -139,14 +112,14 @@ public class ChiefOrderer implements Orderer {
      * @param board
      * @return
      */
-    public int TTMoveIndex(List<Move> collection, TranspositionTable table, Board board){
+    public int TTMoveIndex(MoveList collection, TranspositionTable table, Board board){
         if (table != null) {
-            TranspositionEntry en = (TranspositionEntry) table.get(board.zobrist());
-            if (en != null) {
-                Move hashMove = en.getBestMove();
-                int index = collection.indexOf(hashMove);
-                if (hashMove != null && index != -1) {
-                    return index;
+            int hashMove = table.getMove(board.zobrist(), board.getActivePlayer());
+            if (hashMove != 0) {
+                for (int i = 0; i < collection.size(); i++) {
+                    if (Move.compress(collection.get(i)) == hashMove) {
+                        return i;
+                    }
                 }
             }
         }
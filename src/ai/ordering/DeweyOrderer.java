@@ -3,19 +3,17 @@ package ai.ordering;
 import ai.evaluator.AdvancedMidGameEvaluator;
 import ai.tools.tables.CounterMoveTable;
 import ai.tools.tables.KillerTable;
-import ai.tools.transpositions.TranspositionEntry;
 import ai.tools.transpositions.TranspositionTable;
 import board.Board;
 import board.FastBoard;
 import board.bitboards.BitBoard;
 import board.moves.Move;
+import board.moves.MoveList;
 import board.setup.Setup;
 import io.IO;
 import io.UCI;
 
-import java.util.ArrayList;
 import java.util.Calendar;
-import java.util.List;
 
 public class DeweyOrderer implements Orderer {
 
@@ -27,7 +25,7 @@ public class DeweyOrderer implements Orderer {
     private int badCapturePriority = 3;
     private int nonCapturePriority = 4;
 
-    private void setPriority(List<Move> collection,
+    private void setPriority(MoveList collection,
                              int depth,
                              Board board,
                              boolean pvNode,
@@ -35,39 +33,33 @@ public class DeweyOrderer implements Orderer {
                              TranspositionTable transpositionTable,
                              CounterMoveTable counterMoveTable) {
 
-        Move lastMove = null;
-        if(!board.getMoveHistory().isEmpty()){
-            lastMove = (Move) board.getMoveHistory().lastElement();
-        }
+        int lastMove = board.getLastMove();
 
 
         //this bit has to be first
-        for (Move m : collection) {
+        for (int i = 0; i < collection.size(); i++) {
+            int m = collection.get(i);
             long priority = 0;
-            if (!m.isCapture() && counterMoveTable != null && lastMove != null) {
-                m.setOrderPriority((int)counterMoveTable.get(
-                        Math.abs(lastMove.getPieceFrom())-1,
-                        lastMove.getTo(),
-                        Math.abs(m.getPieceFrom())-1,
-                        m.getTo()));
+            if (!Move.isCapture(m) && counterMoveTable != null && lastMove != 0) {
+                priority = counterMoveTable.get(lastMove, m);
             } else {
-                NoahOrderer.setOrderPriority(m, board);
+                priority = NoahOrderer.orderPriority(m, board);
             }
 
 
             if (killerTable != null && killerTable.isKillerMove(depth, m)) {
                 priority += priorityList[killerPriority];
-            } else if (m.getPieceTo() != 0) {
-
+            } else if (Move.isCapture(m)) {
 
-                if(m.getSeeScore() == 0){
-                    if (AdvancedMidGameEvaluator.EVALUATE_PRICE[Math.abs(m.getPieceTo())] >= AdvancedMidGameEvaluator.EVALUATE_PRICE[Math.abs(m.getPieceFrom())]) {
+                int see = collection.getSeeScore(i);
+                if(see == 0){
+                    if (AdvancedMidGameEvaluator.EVALUATE_PRICE[Math.abs(Move.getPieceTo(m))] >= AdvancedMidGameEvaluator.EVALUATE_PRICE[Math.abs(Move.getPieceFrom(m))]) {
                         priority += priorityList[goodCapturePriority];
                     } else {
                         priority += priorityList[badCapturePriority];
                     }
                 }else{
-                    if(m.getSeeScore() > 0){
+                    if(see > 0){
                         priority += priorityList[goodCapturePriority];
                     }else{
                         priority += priorityList[badCapturePriority];
@@ -77,18 +69,18 @@ public class DeweyOrderer implements Orderer {
             } else {
                 priority += priorityList[nonCapturePriority];
             }
-            m.setOrderPriority(m.getOrderPriority() + priority);
+            collection.setScore(i, priority);
         }
 
         long zobrist = board.zobrist();
         if (transpositionTable != null) {
-            TranspositionEntry en = (TranspositionEntry) transpositionTable.get(zobrist);
-            if (en != null) {
-                Move hashMove = en.getBestMove();
-                int index = collection.indexOf(hashMove);
-                if (index != -1) {
-                    collection.get(index).setOrderPriority(collection.get(index).getOrderPriority() + priorityList[pvPriority]);
-
+            int hashMove = transpositionTable.getMove(zobrist, board.getActivePlayer());
+            if (hashMove != 0) {
+                for (int i = 0; i < collection.size(); i++) {
+                    if (Move.compress(collection.get(i)) == hashMove) {
+                        collection.setScore(i, collection.getScore(i) + priorityList[pvPriority]);
+                        break;
+                    }
                 }
             }
         }
@@ -97,7 +89,7 @@ public class DeweyOrderer implements Orderer {
 
     @Override
     public void sort(
-            List<Move> collection,
+            MoveList collection,
             int depth,
             Board board,
             boolean pvNode,
@@ -107,18 +99,7 @@ public class DeweyOrderer implements Orderer {
 
         setPriority(collection, depth, board, pvNode, killerTable, transpositionTable, counterMoveTable);
 
-        //ArrayList<Move> collection2 = new ArrayList(collection);
-
-//        collection.sort((o1, o2) -> {
-//            long p1 = o1.getOrderPriority();
-//            long p2 = o2.getOrderPriority();
-//
-//            return -Long.compare(p1,p2);
-//        });
-
-        //collection.addAll(collection2);
-
-        collection.sort(null);
+        collection.sort();
 
 
     }
@@ -158,7 +139,7 @@ public class DeweyOrderer implements Orderer {
         //System.out.println(start);
 
         for (int i=0 ; i < 1000000; i++) {
-            List<Move> allMoves1 = fb.getPseudoLegalMoves();
+            MoveList allMoves1 = fb.getPseudoLegalMoves(new MoveList(50));
             orderer1.sort(allMoves1,5,fb,false,null,null,null);
         }
         long end = System.currentTimeMillis();
@@ -169,7 +150,7 @@ public class DeweyOrderer implements Orderer {
         //System.out.println(start);
 
         for (int i=0 ; i < 1000000; i++) {
-            List<Move> allMoves1 = fb.getPseudoLegalMoves();
+            MoveList allMoves1 = fb.getPseudoLegalMoves(new MoveList(50));
             orderer2.sort(allMoves1,5,fb,false,null,null,null);
         }
         end = System.currentTimeMillis();
@@ -180,7 +161,7 @@ public class DeweyOrderer implements Orderer {
         //System.out.println(start);
 
         for (int i=0 ; i < 1000000; i++) {
-            List<Move> allMoves1 = fb.getPseudoLegalMoves();
+            MoveList allMoves1 = fb.getPseudoLegalMoves(new MoveList(50));
             orderer1.sort(allMoves1,5,fb,false,null,null,null);
         }
          end = System.currentTimeMillis();
@@ -191,7 +172,7 @@ public class DeweyOrderer implements Orderer {
         //System.out.println(start);
 
         for (int i=0 ; i < 1000000; i++) {
-            List<Move> allMoves1 = fb.getPseudoLegalMoves();
+            MoveList allMoves1 = fb.getPseudoLegalMoves(new MoveList(50));
             orderer2.sort(allMoves1,5,fb,false,null,null,null);
         }
         end = System.currentTimeMillis();
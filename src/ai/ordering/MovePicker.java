@@ -0,0 +1,304 @@
+package ai.ordering;
+
+import ai.evaluator.Evaluator;
+import ai.tools.tables.ContinuationHistoryTable;
+import ai.tools.tables.CounterMoveTable;
+import ai.tools.tables.HistoryTable;
+import ai.tools.tables.KillerTable;
+import board.Board;
+import board.moves.Move;
+import board.moves.MoveList;
+
+/**
+ * the move picker returns the moves of a position one by one in the following stages:
+ *
+ *      1. the hash move (before any move has been generated) if it is legal
+ *      2. good captures and promotions sorted by mvv-lva. Captures with a negative SEE are delayed
+ *      3. killer moves
+ *      4. the counter move of the previous move
+ *      5. quiet moves sorted by the sum of their history, counter move history and follow up history scores
+ *      6. bad captures
+ *
+ * Each stage is only prepared when the previous stage is exhausted. If a node fails high on the hash move,
+ * no moves are generated at all. Moves are picked with a selection sort so only the moves which are actually
+ * searched get sorted. The SEE is only checked against 0 for the captures when they are picked.
+ * Only legal moves are generated so the returned moves do not need to be checked for legality.
+ *
+ * Each ply of the search should use its own picker.
+ */
+public class MovePicker {
+
+    public static final int STAGE_HASH_MOVE         = 0;
+    public static final int STAGE_GENERATE          = 1;
+    public static final int STAGE_GOOD_CAPTURES     = 2;
+    public static final int STAGE_KILLERS           = 3;
+    public static final int STAGE_COUNTER_MOVE      = 4;
+    public static final int STAGE_SCORE_QUIETS      = 5;
+    public static final int STAGE_QUIETS            = 6;
+    public static final int STAGE_BAD_CAPTURES      = 7;
+    public static final int STAGE_DONE              = 8;
+
+    private static final int[] MVV_LVA_VALUES = new int[]{0,100,500,300,315,900,10000};
+
+    private final MoveList      moves;
+
+    private Board               board;
+    private Evaluator           evaluator;
+    private KillerTable         killerTable;
+    private CounterMoveTable    counterMoveTable;
+    private HistoryTable        historyTable;
+    private ContinuationHistoryTable followUpTable;
+
+    private int                 depth;
+    private int                 stage;
+    private int                 hashMove;
+    private int                 counterMove;
+    private int                 killerIndex;
+
+    private int                 index;              //the next move to look at inside the current stage
+    private int                 captureEnd;         //captures and promotions are stored in [0, captureEnd)
+    private int                 badCaptureStart;    //captures with a negative SEE are moved to [badCaptureStart, captureEnd)
+
+
+    public MovePicker(MoveList moves) {
+        this.moves = moves;
+    }
+
+    /**
+     * prepares the picker for a new node.
+     * @param board             the board object
+     * @param evaluator         used to compute the SEE of the moves
+     * @param hashMove          the packed hash move or 0. It must be pseudo legal in the given position.
+     *                          It is skipped if it is not legal.
+     * @param depth             the current depth used for the killer table
+     * @param killerTable       [can be NULL]
+     * @param counterMoveTable  [can be NULL]
+     * @param historyTable      [can be NULL]
+     * @param followUpTable     [can be NULL] the continuation history of the move two plies ago
+     */
+    public void init(Board board,
+                     Evaluator evaluator,
+                     int hashMove,
+                     int depth,
+                     KillerTable killerTable,
+                     CounterMoveTable counterMoveTable,
+                     HistoryTable historyTable,
+                     ContinuationHistoryTable followUpTable){
+        this.board              = board;
+        this.evaluator          = evaluator;
+        this.hashMove           = hashMove;
+        this.depth              = depth;
+        this.killerTable        = killerTable;
+        this.counterMoveTable   = counterMoveTable;
+        this.historyTable       = historyTable;
+        this.followUpTable      = followUpTable;
+        this.stage              = hashMove != 0 && board.isLegal(hashMove) ? STAGE_HASH_MOVE : STAGE_GENERATE;
+        this.moves.clear();
+    }
+
+    /**
+     * returns the next packed move or 0 if all moves have been returned.
+     * All returned moves are legal.
+     * @return
+     */
+    public int next(){
+        //each stage either returns a move or advances to the next stage
+        while(true){
+            switch (stage){
+                case STAGE_HASH_MOVE:
+                    stage = STAGE_GENERATE;
+                    return hashMove;
+
+                case STAGE_GENERATE:
+                    generate();
+                    stage = STAGE_GOOD_CAPTURES;
+                    break;
+
+                case STAGE_GOOD_CAPTURES:
+                    while(index < badCaptureStart){
+                        moves.swap(index, pickBest(index, badCaptureStart));
+                        int m   = moves.get(index);
+                        if(!evaluator.see_ge(board, m, 0)){
+                            badCaptureStart --;
+                            moves.swap(index, badCaptureStart);
+                            continue;
+                        }
+                        index ++;
+                        return m;
+                    }
+                    index = captureEnd;
+                    killerIndex = 0;
+                    stage = STAGE_KILLERS;
+                    break;
+
+                case STAGE_KILLERS:
+                    if(killerTable != null){
+                        while(killerIndex < killerTable.getMoves_per_depth()){
+                            int killer = killerTable.getKiller(depth, killerIndex++);
+                            if(killer != 0 && pickQuiet(killer)){
+                                return killer;
+                            }
+                        }
+                    }
+                    stage = STAGE_COUNTER_MOVE;
+                    break;
+
+                case STAGE_COUNTER_MOVE:
+                    stage = STAGE_SCORE_QUIETS;
+                    if(counterMoveTable != null && board.getLastMove() != 0){
+                        counterMove = counterMoveTable.getCounterMove(board.getLastMove());
+                        if(counterMove != 0 && pickQuiet(counterMove)){
+                            return counterMove;
+                        }
+                    }
+                    break;
+
+                case STAGE_SCORE_QUIETS:
+                    scoreQuiets();
+                    stage = STAGE_QUIETS;
+                    break;
+
+                case STAGE_QUIETS:
+                    if(index < moves.size()){
+                        moves.swap(index, pickBest(index, moves.size()));
+                        return moves.get(index++);
+                    }
+                    index = captureEnd;
+                    stage = STAGE_BAD_CAPTURES;
+                    break;
+
+                case STAGE_BAD_CAPTURES:
+                    //the bad captures have been added from the back so iterating backwards returns them in the order they have been found
+                    if(index > badCaptureStart){
+                        index --;
+                        return moves.get(index);
+                    }
+                    stage = STAGE_DONE;
+                    break;
+
+                default:
+                    return 0;
+            }
+        }
+    }
+
+    /**
+     * generates all moves, removes the hash move and moves the captures and promotions to the front of the list.
+     * Captures are scored by mvv-lva.
+     */
+    private void generate(){
+        board.getLegalMoves(moves);
+
+        if(hashMove != 0){
+            int hashIndex = moves.indexOf(hashMove);
+            if(hashIndex != -1){
+                moves.remove(hashIndex);
+            }
+        }
+
+        captureEnd = 0;
+        for(int i = 0; i < moves.size(); i++){
+            int m = moves.get(i);
+            if(Move.isCapture(m) || Move.getType(m) != Move.DEFAULT && Move.getType(m) != Move.CASTLING){
+                moves.swap(i, captureEnd);
+                moves.setScore(captureEnd, mvvLva(m));
+                captureEnd ++;
+            }
+        }
+        index = 0;
+        badCaptureStart = captureEnd;
+    }
+
+    /**
+     * scores all remaining quiet moves by the sum of their history scores (see quietScore()).
+     * If no table is used, all quiet moves have the same score and keep the order of the move generation.
+     */
+    private void scoreQuiets(){
+        for(int i = index; i < moves.size(); i++){
+            moves.setScore(i, quietScore(board, moves.get(i), historyTable, counterMoveTable, followUpTable));
+        }
+    }
+
+    /**
+     * returns the sum of the history score, the counter move history score and the follow up history score
+     * of the quiet move. Tables which are NULL and previous moves which do not exist are skipped.
+     * @param board
+     * @param move
+     * @param historyTable      [can be NULL]
+     * @param counterMoveTable  [can be NULL]
+     * @param followUpTable     [can be NULL]
+     * @return
+     */
+    public static int quietScore(Board board,
+                                 int move,
+                                 HistoryTable historyTable,
+                                 CounterMoveTable counterMoveTable,
+                                 ContinuationHistoryTable followUpTable){
+        int score = historyTable != null ? historyTable.get(move) : 0;
+        int previous = board.getLastMove();
+        if(counterMoveTable != null && previous != 0){
+            score += counterMoveTable.get(previous, move);
+        }
+        int followUp = board.getLastMove(1);
+        if(followUpTable != null && followUp != 0){
+            score += followUpTable.get(followUp, move);
+        }
+        return score;
+    }
+
+    /**
+     * looks for the given move inside the quiet moves which have not been returned yet.
+     * If it is found, it is moved in front of the remaining quiet moves.
+     * @param move
+     * @return      true if the move has been found
+     */
+    private boolean pickQuiet(int move){
+        for(int i = index; i < moves.size(); i++){
+            if(moves.get(i) == move){
+                moves.swap(index, i);
+                index ++;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * returns the index of the move with the highest score inside [from, to)
+     * @param from
+     * @param to
+     * @return
+     */
+    private int pickBest(int from, int to){
+        int best = from;
+        for(int i = from + 1; i < to; i++){
+            if(moves.getScore(i) > moves.getScore(best)){
+                best = i;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * returns the mvv-lva score of a capture or promotion. Higher scores should be searched first.
+     * @param m
+     * @return
+     */
+    public static int mvvLva(int m){
+        if(Move.isPromotion(m)){
+            return (MVV_LVA_VALUES[Math.abs(Move.getPieceTo(m))] + MVV_LVA_VALUES[Math.abs(Move.getPieceFrom(m))]) * 100 - MVV_LVA_VALUES[1];
+        }
+        if(Move.isEn_passent_capture(m)){
+            return MVV_LVA_VALUES[1] * 100 - MVV_LVA_VALUES[1];
+        }
+        return MVV_LVA_VALUES[Math.abs(Move.getPieceTo(m))] * 100 - MVV_LVA_VALUES[Math.abs(Move.getPieceFrom(m))];
+    }
+
+    /**
+     * returns the current stage
+     * @return
+     */
+    public int getStage() {
+        return stage;
+    }
+}
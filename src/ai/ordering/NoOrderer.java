@@ -4,15 +4,13 @@ import ai.tools.tables.CounterMoveTable;
 import ai.tools.tables.KillerTable;
 import ai.tools.transpositions.TranspositionTable;
 import board.Board;
-import board.moves.Move;
-
-import java.util.List;
+import board.moves.MoveList;
 
 public class NoOrderer implements Orderer {
 
 
     @Override
-    public void sort(List<Move> collection, int depth, Board board, boolean pvNode,  KillerTable killerTable,
+    public void sort(MoveList collection, int depth, Board board, boolean pvNode,  KillerTable killerTable,
                                       TranspositionTable transpositionTable,
                      CounterMoveTable counterMoveTable) {
     }
@@ -7,8 +7,7 @@ import ai.tools.tensor.Tensor3D;
 import ai.tools.transpositions.TranspositionTable;
 import board.Board;
 import board.moves.Move;
-
-import java.util.List;
+import board.moves.MoveList;
 
 @Deprecated
 public class NoahOrderer implements Orderer {
@@ -158,22 +157,27 @@ public class NoahOrderer implements Orderer {
             W_KING_VALUES_MID
     );
 
-    public static void setOrderPriority(Move move, Board tokenSB) {
+    public static int orderPriority(int move, Board tokenSB) {
         int priority = 0;
 
-        priority += COMPLETE_EVALUATE_PRICE[move.getPieceTo() + 6];
-        priority -= COMPLETE_EVALUATE_PRICE[move.getPieceFrom() + 6];
+        int pieceFrom   = Move.getPieceFrom(move);
+        int from        = Move.getFrom(move);
+        int to          = Move.getTo(move);
+
+        priority += COMPLETE_EVALUATE_PRICE[Move.getPieceTo(move) + 6];
+        priority -= COMPLETE_EVALUATE_PRICE[pieceFrom + 6];
 
-        priority += COMPLETE_POSITION_PRICE.get(move.getPieceFrom()+6,tokenSB.x(move.getTo()),    tokenSB.y(move.getTo()));
-        priority -= COMPLETE_POSITION_PRICE.get(move.getPieceFrom()+6,tokenSB.x(move.getFrom()),  tokenSB.y(move.getFrom()));
+        priority += COMPLETE_POSITION_PRICE.get(pieceFrom+6,tokenSB.x(to),    tokenSB.y(to));
+        priority -= COMPLETE_POSITION_PRICE.get(pieceFrom+6,tokenSB.x(from),  tokenSB.y(from));
 
 
-        move.setOrderPriority(priority);
+        return priority;
     }
-    
+
+
     @Override
     public void sort(
-            List<Move> collection,
+            MoveList collection,
             int depth,
             Board board,
             boolean pvNode,
@@ -181,16 +185,11 @@ public class NoahOrderer implements Orderer {
             TranspositionTable transpositionTable,
             CounterMoveTable counterMoveTable) {
 
-        for (Move m:collection){
-            setOrderPriority(m, board);
+        for (int i = 0; i < collection.size(); i++){
+            collection.setScore(i, orderPriority(collection.get(i), board));
         }
 
-        collection.sort((o1, o2) -> {
-            Long p1 = o1.getOrderPriority();
-            Long p2 = o2.getOrderPriority();
-
-            return -Long.compare(p1,p2);
-        });
+        collection.sort();
 
 
     }
@@ -4,9 +4,7 @@ import ai.tools.tables.CounterMoveTable;
 import ai.tools.tables.KillerTable;
 import ai.tools.transpositions.TranspositionTable;
 import board.Board;
-import board.moves.Move;
-
-import java.util.List;
+import board.moves.MoveList;
 
 /**
  * this interface is used to sort moves in search algorithms.
@@ -17,6 +15,7 @@ public interface Orderer {
     /**
      * the method is used to sort moves in search algorithms.
      * It gets a list of the available moves which should be sorted.
+     * The moves are packed ints. Implementations assign a score to each move and sort the list by it.
      * Furthermore it gets the current depth.
      * A PVLine is given which is the principal variation line from the last iterationGradient.
      * It could be null if there was no previous iterationGradient or iterative deepening
@@ -32,7 +31,7 @@ public interface Orderer {
      *
      */
     void sort(
-            List<Move>                  collection,
+            MoveList                    collection,
             int                         depth,
             Board                       board,
             boolean                     pvNode,
@@ -40,6 +39,15 @@ public interface Orderer {
             TranspositionTable          transpositionTable,
             CounterMoveTable            counterMoveTable);
 
+    /**
+     * returns an orderer which can be used by another search thread at the same time.
+     * Orderers without any state can return themselves.
+     * @return
+     */
+    default Orderer copy(){
+        return this;
+    }
+
 
 
 
@@ -3,27 +3,31 @@ package ai.ordering;
 import ai.evaluator.AdvancedMidGameEvaluator;
 import ai.tools.tables.CounterMoveTable;
 import ai.tools.tables.KillerTable;
-import ai.tools.transpositions.TranspositionEntry;
 import ai.tools.transpositions.TranspositionTable;
 import board.Board;
 import board.moves.Move;
-
-import java.util.ArrayList;
-import java.util.List;
+import board.moves.MoveList;
 
 public class SystematicOrderer2 implements Orderer {
 
 
+    /**
+     * each category of moves gets its own offset. Within a category the moves are sorted by their priority.
+     */
+    private static final long PV_MOVE           = (long) 1e16;
+    private static final long GOOD_CAPTURE      = (long) 1e14;
+    private static final long KILLER_MOVE       = (long) 1e12;
+    private static final long BAD_CAPTURE       = (long) 1e10;
+    private static final long NON_CAPTURE       = 0;
 
-    ArrayList<Move> pvMoves = new ArrayList<>(10);
-    ArrayList<Move> goodCaptures = new ArrayList<>(10);
-    ArrayList<Move> killerMoves = new ArrayList<>(10);
-    ArrayList<Move> badCaptures = new ArrayList<>(10);
-    ArrayList<Move> nonCaptureMoves = new ArrayList<>(20);
+    @Override
+    public Orderer copy() {
+        return new SystematicOrderer2();
+    }
 
     @Override
     public void sort(
-            List<Move> collection,
+            MoveList collection,
             int depth,
             Board board,
             boolean pvNode,
@@ -31,101 +35,45 @@ public class SystematicOrderer2 implements Orderer {
             TranspositionTable transpositionTable,
             CounterMoveTable counterMoveTable){
 
-        int initSize = collection.size();
-
+        int lastMove = board.getLastMove();
 
-
-        pvMoves.clear();
-        goodCaptures.clear();
-        killerMoves.clear();
-        badCaptures.clear();
-        nonCaptureMoves.clear();
-
-        Move lastMove = null;
-        if(!board.getMoveHistory().isEmpty()){
-            lastMove = (Move) board.getMoveHistory().lastElement();
+        int hashMove = 0;
+        if (transpositionTable != null) {
+            hashMove = transpositionTable.getMove(board.zobrist(), board.getActivePlayer());
         }
 
 
-        long zobrist = board.zobrist();
-        if (transpositionTable != null && pvMoves.size() == 0) {
-            TranspositionEntry en = (TranspositionEntry) transpositionTable.get(zobrist);
-            if (en != null) {
-                Move hashMove = en.getBestMove();
-                int index = collection.indexOf(hashMove);
-                if (hashMove != null && index != -1) {
-                    pvMoves.add(collection.get(index));
-                    collection.remove(index);
-                }
-            }
-        }
+        //capture moves / non capture / killers
+        for(int i = 0; i < collection.size(); i++){
+            int m = collection.get(i);
 
+            if (hashMove != 0 && Move.compress(m) == hashMove) {
+                collection.setScore(i, PV_MOVE);
+                hashMove = 0;
+                continue;
+            }
 
-        //capture moves / non capture / killers
-        for(Move m:collection){
-            if (!m.isCapture() && counterMoveTable != null && lastMove != null) {
-                m.setOrderPriority((int)counterMoveTable.get(
-                        Math.abs(lastMove.getPieceFrom())-1,
-                        lastMove.getTo(),
-                        Math.abs(m.getPieceFrom())-1,
-                        m.getTo()));
+            long priority;
+            if (!Move.isCapture(m) && counterMoveTable != null && lastMove != 0) {
+                priority = counterMoveTable.get(lastMove, m);
             } else {
-                NoahOrderer.setOrderPriority(m, board);
+                priority = NoahOrderer.orderPriority(m, board);
             }
 
             if (killerTable != null && killerTable.isKillerMove(depth, m)) {
-                this.killerMoves.add(m);
-            } else if (m.getPieceTo() != 0) {
-                if (AdvancedMidGameEvaluator.EVALUATE_PRICE[Math.abs(m.getPieceTo())] >= AdvancedMidGameEvaluator.EVALUATE_PRICE[Math.abs(m.getPieceFrom())]) {
-                    this.goodCaptures.add(m);
+                priority += KILLER_MOVE;
+            } else if (Move.isCapture(m)) {
+                if (AdvancedMidGameEvaluator.EVALUATE_PRICE[Math.abs(Move.getPieceTo(m))] >= AdvancedMidGameEvaluator.EVALUATE_PRICE[Math.abs(Move.getPieceFrom(m))]) {
+                    priority += GOOD_CAPTURE;
                 } else {
-                    this.badCaptures.add(m);
+                    priority += BAD_CAPTURE;
                 }
             } else {
-                this.nonCaptureMoves.add(m);
+                priority += NON_CAPTURE;
             }
+            collection.setScore(i, priority);
         }
 
-        killerMoves.sort((o1, o2) -> {
-            long p1 = o1.getOrderPriority();
-            long p2 = o2.getOrderPriority();
-
-            return -Long.compare(p1,p2);
-        });
-        goodCaptures.sort((o1, o2) -> {
-            long p1 = o1.getOrderPriority();
-            long p2 = o2.getOrderPriority();
-
-            return -Long.compare(p1,p2);
-        });
-        badCaptures.sort((o1, o2) -> {
-            long p1 = o1.getOrderPriority();
-            long p2 = o2.getOrderPriority();
-
-            return -Long.compare(p1,p2);
-        });
-        nonCaptureMoves.sort((o1, o2) -> {
-            long p1 = o1.getOrderPriority();
-            long p2 = o2.getOrderPriority();
-
-            return -Long.compare(p1,p2);
-        });
-
-
-
-
-
-        collection.clear();
-        collection.addAll(pvMoves);
-        collection.addAll(goodCaptures);
-        collection.addAll(killerMoves);
-        collection.addAll(badCaptures);
-        collection.addAll(nonCaptureMoves);
-
-
-
-        if(collection.size() != initSize){
-            throw new RuntimeException();
-        }
+        collection.sort();
     }
 }
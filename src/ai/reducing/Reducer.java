@@ -1,19 +1,19 @@
 package ai.reducing;
 
 import board.Board;
-import board.moves.Move;
 
 public interface Reducer {
 
     /**
      * returns the amount of plys the move should be reduced
      * @param board
-     * @param move
+     * @param move        the packed move
      * @param depth
      * @param depthLeft
      * @param moveIndex
      * @param pv_node
+     * @param history     the history score of a quiet move (see HistoryTable). 0 for captures and promotions
      * @return
      */
-    public int reduce(Board board, Move move, int depth, int depthLeft, int moveIndex, boolean pv_node);
+    public int reduce(Board board, int move, int depth, int depthLeft, int moveIndex, boolean pv_node, int history);
 }
@@ -1,5 +1,6 @@
 package ai.reducing;
 
+import ai.tools.tables.HistoryTable;
 import board.Board;
 import board.moves.Move;
 
@@ -24,24 +25,34 @@ public class SenpaiReducer implements Reducer {
     }
 
     @Override
-    public int reduce(Board board, Move move, int depth, int depthLeft, int moveIndex, boolean pv_node) {
+    public int reduce(Board board, int move, int depth, int depthLeft, int moveIndex, boolean pv_node, int history) {
         if (
                 moveIndex < num_moves_not_reduced ||
                 pv_node ||
                 board.givesCheck(move) ||
-                move.getPieceTo() != 0
+                Move.isCapture(move)
         ) {
             return 0;
         }
 
 
 
-        if(depth > higher_reduction_depth){
-            return Math.max(2, depthLeft / division_factor);
-        }else{
-            return 1;
+        int reduction = depth > higher_reduction_depth ? Math.max(2, depthLeft / division_factor) : 1;
+
+        /**
+         * quiet moves with a bad history are reduced more, moves with a very good history less
+         */
+        if(history < 0){
+            reduction ++;
+        }else if(history > HistoryTable.MAX_HISTORY / 2){
+            reduction --;
         }
 
+        /**
+         * the reduction is never negative and leaves at least the quiescence search (depth 0) for the move
+         */
+        return Math.max(0, Math.min(reduction, depthLeft - 1));
+
 //
 //        return depthLeft / 2;
     }
@@ -23,9 +23,9 @@ public class SimpleReducer implements Reducer{
     }
 
     @Override
-    public int reduce(Board board, Move move, int depth, int depthLeft, int moveIndex, boolean pv_node) {
+    public int reduce(Board board, int move, int depth, int depthLeft, int moveIndex, boolean pv_node, int history) {
         if(
-                move.getPieceTo() != 0 ||
+                Move.isCapture(move) ||
                 pv_node ||
                 moveIndex < num_moves_not_reduced){
             return 0;
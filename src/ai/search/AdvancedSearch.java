@@ -4,34 +4,50 @@ import ai.evaluator.AdvancedEvaluator;
 import ai.evaluator.Evaluator;
 import ai.evaluator.decider.SimpleDecider;
 import ai.ordering.DeweyOrderer;
+import ai.ordering.MovePicker;
 import ai.ordering.NoOrderer;
 import ai.ordering.Orderer;
 import ai.ordering.SystematicOrderer2;
 import ai.reducing.Reducer;
 import ai.reducing.SenpaiReducer;
+import ai.time_manager.TimeManager;
+import ai.tools.tables.ContinuationHistoryTable;
 import ai.tools.tables.CounterMoveTable;
+import ai.tools.tables.EvalCache;
 import ai.tools.tables.HistoryTable;
 import ai.tools.tables.KillerTable;
+import ai.tools.tables.PawnTable;
 import ai.tools.transpositions.TranspositionEntry;
 import ai.tools.transpositions.TranspositionTable;
 import board.Board;
 import board.FastBoard;
 import board.moves.Move;
+import board.moves.MoveList;
 import board.moves.MoveListBuffer;
 import board.setup.Setup;
 import io.IO;
 import io.UCI;
 
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 public class AdvancedSearch implements AI {
 
     public static final int                             MAX_CHECKMATE_VALUE     = (int)1E8;     //this value means checkmate at depth = 0
     public static final int                             MIN_CHECKMATE_VALUE     = (int)1E7;     //this is the minimum value which is interpreted as checkmate
+    public static final int                             VALUE_INFINITE          = 2 * MAX_CHECKMATE_VALUE;  //bound which is never reached by any score
     public static final int                             MAXIMUM_STORE_DEPTH     = 128;
 
     public static final int                             FLAG_TIME_LIMIT         = 1;
     public static final int                             FLAG_DEPTH_LIMIT        = 2;
+    public static final int                             FLAG_INFINITE           = 3;
+    public static final int                             FLAG_NODE_LIMIT         = 4;
+    public static final int                             FLAG_MATE_LIMIT         = 5;
+
+    public static final int                             TIME_CHECK_INTERVAL     = 1024;         //nodes between two checks of the hard time limit and the node limit
 
     protected Evaluator                                 evaluator;
     protected Orderer                                   orderer;
@@ -39,8 +55,11 @@ public class AdvancedSearch implements AI {
 
     protected int                                       limit;                                  //limit for searching. could be a time in ms or a depth
     protected int                                       limit_flag;                             //limit flag to determine if limit is max depth or time
+    protected TimeManager                               timeManager;                            //[can be NULL] limits of a time limited search. replaces limit
+    protected volatile boolean                          ponder                  = false;        //time limits are ignored until ponderhit() is called
 
     protected boolean                                   use_qSearch             = true;         //flag for qSearch
+    protected boolean                                   use_qSearch_checks      = true;         //flag for quiet checks at the first ply of qSearch
     protected boolean                                   use_iteration           = true;         //flag for iterative deepening
     protected boolean                                   use_transposition       = true;         //flag for transposition tables
     protected boolean                                   use_null_moves          = true;         //flag for null moves
@@ -51,6 +70,9 @@ public class AdvancedSearch implements AI {
     protected boolean                                   use_futility_pruning    = true;         //flag for futility pruning at depth<=1 nodes
     protected boolean                                   use_delta_pruning       = true;         //flag for delta pruning inside quiescence search
     protected boolean                                   use_counterMove_heuristic=true;         //flag for countermove heuristic
+    protected boolean                                   use_history_heuristic   = true;         //flag for history heuristic
+    protected boolean                                   use_followUp_heuristic  = true;         //flag for the follow up history (two plies back)
+    protected boolean                                   use_late_move_pruning   = true;         //flag for pruning late quiet moves with a bad continuation history
 
 
     protected boolean                                   debug                   = false;        //searches all moves at root with full window
@@ -58,29 +80,51 @@ public class AdvancedSearch implements AI {
 
     protected int                                       deepening_start_depth   = 1;            //initial depth for it-deepening
     protected int                                       killer_count            = 3;            //amount of killer moves
+    protected int                                       threads                 = 1;            //amount of threads used for lazy smp
     protected int                                       null_move_reduction     = 2;            //how much to reduce null moves
     protected int                                       razor_margin            = 300;          //margin for razoring
     protected int                                       futility_pruning_margin = 200;          //safety margin for futility pruning
     protected int                                       delta_pruning_margin    = 200;          //safety margin for futility pruning
     protected int                                       delta_pruning_big_margin= 1100;         //safety margin for delta pruning without checking nodes
+    protected int                                       late_move_pruning_depth = 3;            //maximum depth left at which late move pruning is done
     protected int[]                                     delta_pruning_captures  =               //adding these values to captures for delta pruning
                                     new int[]{0,100,500,300,315,800};
 
     private CounterMoveTable                            _counterMoveTable;
     private KillerTable                                 _killerTable;
     private HistoryTable                                _historyTable;
-    private TranspositionTable<TranspositionEntry>      _transpositionTable;
+    private ContinuationHistoryTable                    _followUpTable;
+    private TranspositionTable                          _transpositionTable;
+    private TranspositionEntry                          _transpositionEntry;
+    private EvalCache                                   _evalCache;
+    private AdvancedSearch[]                            _helpers                = new AdvancedSearch[0];
+    private AdvancedSearch[]                            _runningHelpers         = new AdvancedSearch[0];    //the helpers of the running search
+    private Future<?>[]                                 _helperSearches         = new Future<?>[0];
+    private ExecutorService                             _executor;              //helpers only: the thread running the helper searches. it is kept alive between searches so its evaluation context persists
+    private volatile boolean                            _searching;             //bestMove() is running
+    private volatile boolean                            _stop;
+    private volatile boolean                            _stopRequested;         //stop() has been called before the first iteration was completed
+    private volatile boolean                            _iterationCompleted;    //at least one iteration has been completed so a best move exists
+    private volatile long                               _searchStart;           //time at which the search (or ponderhit) started
+    private volatile long                               _deadline;              //time at which the search is aborted. 0 if there is none
+    private int                                         _hardLimit;             //hard time limit of the current search in ms
+    private long                                        _nodeLimit;             //amount of nodes after which the search is aborted. 0 if there is none
+    private int                                         _limitCheckCountdown;   //nodes left until the limits are checked again
     private Board                                       _board;
     private MoveListBuffer                              _buffer;
+    private MovePicker[]                                _pickers;
+    private MoveListBuffer                              _quietsSearched;        //quiet moves searched at each depth without a cutoff
 
-    private double                                      _score;
-    private int                                         _nodes;
+    private int                                         _score;
+    private long                                        _searchNodes;           //nodes of the whole search on this thread
+    private volatile long                               _publishedNodes;        //_searchNodes as of the last limit check. read by the main thread
+    private long                                        _startTime;             //time at which the search started
     private int                                         _selDepth;
 
-    private int                                         _betaCutoffs;
-    private int                                         _qSearchNodes;
-    private int                                         _pvSearchNodes;
-    private int                                         _transpositionHits;
+    private long                                        _betaCutoffs;
+    private long                                        _qSearchNodes;
+    private long                                        _pvSearchNodes;
+    private long                                        _transpositionHits;
 
 
     public AdvancedSearch(Evaluator evaluator, Orderer orderer, Reducer reducer, int limit_flag, int limit) {
@@ -88,12 +132,140 @@ public class AdvancedSearch implements AI {
         this.orderer = orderer;
         this.reducer = reducer;
         this._buffer = new MoveListBuffer(MAXIMUM_STORE_DEPTH, 128);
+        this._quietsSearched = new MoveListBuffer(MAXIMUM_STORE_DEPTH, 64);
+        this._pickers = createPickers(_buffer);
+        this._historyTable = new HistoryTable();
+        this._counterMoveTable = new CounterMoveTable();
+        this._followUpTable = new ContinuationHistoryTable();
+        this._transpositionTable = new TranspositionTable(TranspositionTable.DEFAULT_SIZE_MB);
+        this._transpositionEntry = new TranspositionEntry();
+        this._evalCache = new EvalCache(EvalCache.DEFAULT_SIZE);
         this.limit_flag = limit_flag;
         this.limit = limit;
     }
 
 
 
+    /**
+     * creates a helper search for lazy smp which shares the transposition table with the given search.
+     * all other data like the board, the move buffer and the history tables are private to the helper.
+     * @param parent
+     */
+    private AdvancedSearch(AdvancedSearch parent) {
+        this._buffer = new MoveListBuffer(MAXIMUM_STORE_DEPTH, 128);
+        this._quietsSearched = new MoveListBuffer(MAXIMUM_STORE_DEPTH, 64);
+        this._pickers = createPickers(_buffer);
+        this._historyTable = new HistoryTable();
+        this._counterMoveTable = new CounterMoveTable();
+        this._followUpTable = new ContinuationHistoryTable();
+        this._transpositionTable = parent._transpositionTable;
+        this._transpositionEntry = new TranspositionEntry();
+        this._evalCache = new EvalCache(EvalCache.DEFAULT_SIZE);
+        this._executor = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r);
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.print_overview = false;
+    }
+
+    /**
+     * creates one move picker for each depth. The pickers use the move lists of the given buffer.
+     * @param buffer
+     * @return
+     */
+    private static MovePicker[] createPickers(MoveListBuffer buffer){
+        MovePicker[] pickers = new MovePicker[MAXIMUM_STORE_DEPTH];
+        for(int i = 0; i < pickers.length; i++){
+            pickers[i] = new MovePicker(buffer.get(i));
+        }
+        return pickers;
+    }
+
+    /**
+     * getter for the amount of threads used for searching
+     * @return      amount of threads
+     */
+    public int getThreads() {
+        return threads;
+    }
+
+    /**
+     * setter for the amount of threads used for searching.
+     * If more than one thread is used, the additional threads search the same position
+     * and communicate only through the shared transposition table (lazy smp).
+     * A running search is stopped first.
+     * @param threads   new amount of threads
+     */
+    public void setThreads(int threads) {
+        stopAndWait();
+        synchronized (this) {
+            for(AdvancedSearch helper:_helpers){
+                helper._executor.shutdown();
+            }
+            this.threads = Math.max(1, threads);
+            this._helpers = new AdvancedSearch[this.threads - 1];
+            for(int i = 0; i < _helpers.length; i++){
+                _helpers[i] = new AdvancedSearch(this);
+            }
+        }
+    }
+
+    /**
+     * getter for the size of the transposition table in MB
+     * @return      size of the transposition table in MB
+     */
+    public int getHash_size() {
+        return _transpositionTable.getSizeMB();
+    }
+
+    /**
+     * setter for the size of the transposition table in MB.
+     * The table will be reallocated and all entries are lost. A running search is stopped first.
+     * @param hash_size     new size of the transposition table in MB
+     */
+    public void setHash_size(int hash_size) {
+        stopAndWait();
+        synchronized (this) {
+            this._transpositionTable.resize(hash_size);
+        }
+    }
+
+    /**
+     * removes all entries from the transposition table and the history tables of this search and its helpers.
+     * The tables are kept between searches and should only be cleared when a new game starts.
+     */
+    public void clearHash() {
+        this._transpositionTable.clear();
+        this.clearTables();
+        for(AdvancedSearch helper:_helpers){
+            helper.clearTables();
+        }
+    }
+
+    /**
+     * clears the tables which are private to this thread
+     */
+    private void clearTables() {
+        this._evalCache.clear();
+        this._historyTable.clear();
+        this._counterMoveTable.clear();
+        this._followUpTable.clear();
+    }
+
+    /**
+     * removes all cached static evaluations of this search, its helpers and the transposition table.
+     * Needs to be called if the parameters of the evaluator have been changed.
+     */
+    public void clearEvalCache() {
+        this._transpositionTable.clearStaticEvals();
+        this._evalCache.clear();
+        for(AdvancedSearch helper:_helpers){
+            helper.evaluator = evaluator;
+            helper._evalCache.clear();
+        }
+    }
+
     /**
      * getter for the killer heuristic flag.
      * If the flag is set to "true", beta cutoffs will be stored in a list
@@ -177,6 +349,79 @@ public class AdvancedSearch implements AI {
         this.limit = limit;
     }
 
+    /**
+     * returns the time manager which is used for searches with FLAG_TIME_LIMIT
+     * @return      the time manager or NULL if the fixed time limit is used
+     */
+    public TimeManager getTimeManager() {
+        return timeManager;
+    }
+
+    /**
+     * sets the time manager which is used for searches with FLAG_TIME_LIMIT.
+     * Its limits replace the fixed time limit. It needs to be initialised for each move.
+     * If it is NULL, limit is used as the soft and the hard limit.
+     * @param timeManager   [can be NULL]
+     */
+    public void setTimeManager(TimeManager timeManager) {
+        this.timeManager = timeManager;
+    }
+
+    /**
+     * returns true if the next (or current) search ignores its time limits until ponderhit() is called
+     * @return
+     */
+    public boolean isPonder() {
+        return ponder;
+    }
+
+    /**
+     * if set, a search with FLAG_TIME_LIMIT behaves like an infinite search until ponderhit() is called.
+     * It is reset by ponderhit().
+     * @param ponder
+     */
+    public void setPonder(boolean ponder) {
+        this.ponder = ponder;
+    }
+
+    /**
+     * stops the running search as soon as possible. bestMove() returns the best move of the last completed iteration.
+     * The first iteration is always completed. Can be called from any thread.
+     */
+    public void stop() {
+        this._stopRequested = true;
+        if(_iterationCompleted){
+            this._stop = true;
+        }
+    }
+
+    /**
+     * stops a search which is running on another thread and waits until bestMove() has returned.
+     */
+    private void stopAndWait() {
+        //the search might not have reset its flags yet. therefor stop is repeated until it has finished
+        while(_searching){
+            stop();
+            try {
+                Thread.sleep(1);
+            } catch (InterruptedException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * the expected move has been played while pondering. The time limits apply from now on.
+     * Can be called from any thread.
+     */
+    public void ponderhit() {
+        this._searchStart = System.currentTimeMillis();
+        this.ponder = false;
+        if(_iterationCompleted && limit_flag == FLAG_TIME_LIMIT){
+            this._deadline = _searchStart + _hardLimit;
+        }
+    }
+
     /**
      * iterative deepening is used to speed up the search process.
      * It searches the visual.game tree multiple time and begins at a
@@ -248,8 +493,11 @@ public class AdvancedSearch implements AI {
      * as a maximum search depth or a maximum time the search is allowed to take.
      * the flag can be one of the following:
      *
-     *      1 = FLAG_TIME_LIMIT
-     *      2 = FLAG_DEPTH_LIMIT
+     *      1 = FLAG_TIME_LIMIT     (limit is a time in ms, replaced by the time manager if there is one)
+     *      2 = FLAG_DEPTH_LIMIT    (limit is a depth)
+     *      3 = FLAG_INFINITE       (searches until stop() is called, limit is ignored)
+     *      4 = FLAG_NODE_LIMIT     (limit is an amount of nodes)
+     *      5 = FLAG_MATE_LIMIT     (searches until a mate in limit moves has been found or stop() is called)
      *
      * @return      the limit flag.
      */
@@ -262,8 +510,11 @@ public class AdvancedSearch implements AI {
      * as a maximum search depth or a maximum time the search is allowed to take.
      * the flag can be one of the following:
      *
-     *      1 = FLAG_TIME_LIMIT
-     *      2 = FLAG_DEPTH_LIMIT
+     *      1 = FLAG_TIME_LIMIT     (limit is a time in ms, replaced by the time manager if there is one)
+     *      2 = FLAG_DEPTH_LIMIT    (limit is a depth)
+     *      3 = FLAG_INFINITE       (searches until stop() is called, limit is ignored)
+     *      4 = FLAG_NODE_LIMIT     (limit is an amount of nodes)
+     *      5 = FLAG_MATE_LIMIT     (searches until a mate in limit moves has been found or stop() is called)
      *
      * @param limit_flag    the new limit flag
      */
@@ -318,6 +569,22 @@ public class AdvancedSearch implements AI {
         this.use_qSearch = use_qSearch;
     }
 
+    /**
+     * This method gets the use_qSearch_checks flag
+     * @return      a flag for searching quiet checks at the first ply of qSearch
+     */
+    public boolean isUse_qSearch_checks() {
+        return use_qSearch_checks;
+    }
+
+    /**
+     * This method sets the use_qSearch_checks flag
+     * @param use_qSearch_checks      a flag for searching quiet checks at the first ply of qSearch
+     */
+    public void setUse_qSearch_checks(boolean use_qSearch_checks) {
+        this.use_qSearch_checks = use_qSearch_checks;
+    }
+
     /**
      * the reducer is used to determine the amount of depths to reduce a search for a given move
      * @return      the reducer object
@@ -343,11 +610,12 @@ public class AdvancedSearch implements AI {
     }
 
     /**
-     * sets the evaluator for this search
+     * sets the evaluator for this search and its helpers. All cached static evaluations are removed.
      * @param evaluator
      */
     public void setEvaluator(Evaluator evaluator) {
         this.evaluator = evaluator;
+        this.clearEvalCache();
     }
 
     /**
@@ -361,7 +629,8 @@ public class AdvancedSearch implements AI {
 
     /**
      * setter for the sorter that is used to sort the
-     * moves in order to reduce the search-space
+     * moves in order to reduce the search-space.
+     * The sorter is used inside the quiescence search. The main search uses a staged {@link MovePicker}.
      * @param orderer  the new sorter
      */
     public void setOrderer(Orderer orderer) {
@@ -544,26 +813,87 @@ public class AdvancedSearch implements AI {
         this.use_counterMove_heuristic = use_counterMove_heuristic;
     }
 
-    private double pvSearch(double alpha, double beta, int currentDepth, int depthLeft, boolean pv, boolean extension) {
+    /**
+     * getter for the history heuristic flag
+     * @return
+     */
+    public boolean isUse_history_heuristic() {
+        return use_history_heuristic;
+    }
+
+    /**
+     * setter for the history heuristic flag
+     */
+    public void setUse_history_heuristic(boolean use_history_heuristic) {
+        this.use_history_heuristic = use_history_heuristic;
+    }
+
+    /**
+     * getter for the follow up history flag
+     * @return
+     */
+    public boolean isUse_followUp_heuristic() {
+        return use_followUp_heuristic;
+    }
+
+    /**
+     * setter for the follow up history flag
+     */
+    public void setUse_followUp_heuristic(boolean use_followUp_heuristic) {
+        this.use_followUp_heuristic = use_followUp_heuristic;
+    }
+
+    /**
+     * getter for the late move pruning flag
+     * @return
+     */
+    public boolean isUse_late_move_pruning() {
+        return use_late_move_pruning;
+    }
+
+    /**
+     * setter for the late move pruning flag
+     */
+    public void setUse_late_move_pruning(boolean use_late_move_pruning) {
+        this.use_late_move_pruning = use_late_move_pruning;
+    }
+
+    /**
+     * returns the maximum depth left at which late quiet moves can be pruned
+     * @return
+     */
+    public int getLate_move_pruning_depth() {
+        return late_move_pruning_depth;
+    }
+
+    /**
+     * sets the maximum depth left at which late quiet moves can be pruned
+     * @param late_move_pruning_depth
+     */
+    public void setLate_move_pruning_depth(int late_move_pruning_depth) {
+        this.late_move_pruning_depth = late_move_pruning_depth;
+    }
+
+    private int pvSearch(int alpha, int beta, int currentDepth, int depthLeft, boolean pv, boolean extension) {
         _selDepth = Math.max(_selDepth, currentDepth);
 
 
 
         long        zobrist         = _board.zobrist();
-        double      origonalAlpha   = alpha;
-        double      score           = Double.NEGATIVE_INFINITY;
-        double      highestScore    = score;
-        double      eval            = evaluator.evaluate(_board) * _board.getActivePlayer();
+        int         origonalAlpha   = alpha;
+        int         score           = -VALUE_INFINITE;
+        int         highestScore    = score;
         int         legalMoves      = 0;
         boolean     isInCheck       = _board.isInCheck(_board.getActivePlayer());
-        Move        bestMove        = null;
+        int         bestMove        = 0;
         //int nextDistanceFromPV = use_dont_sort_expected_all_node ? distanceFromPV + 1 : 0;
         int nextDistanceFromPV = 0;
 
 
-        if(_board.isDraw()){
-            _nodes ++;
+        if(_board.isDraw(currentDepth)){
+            _searchNodes ++;
             _pvSearchNodes ++;
+            checkLimits();
             return 0;
         }
         if(depthLeft <= 0) {
@@ -571,14 +901,20 @@ public class AdvancedSearch implements AI {
             return score;
         }
 
-        _nodes ++;
+        _searchNodes ++;
         _pvSearchNodes ++;
 
+        /**
+         * aborting the search if the hard time limit or the node limit has been exceeded
+         */
+        checkLimits();
+        if(_stop) return 0;
+
 
         /**
          * mate distance pruning
          */
-        double mating_value = MAX_CHECKMATE_VALUE - currentDepth;
+        int mating_value = MAX_CHECKMATE_VALUE - currentDepth;
         if (mating_value < beta) {
             beta = mating_value;
             if (alpha >= mating_value) return mating_value;
@@ -592,9 +928,11 @@ public class AdvancedSearch implements AI {
 
 
         /**
-         * checking for transpositions
+         * checking for transpositions.
+         * the root is not cut off because the table is kept between searches and would otherwise
+         * return without a best move for the current iteration.
          */
-        if (use_transposition) {
+        if (use_transposition && currentDepth > 0) {
             TranspositionEntry tt = retrieveFromTT(zobrist, currentDepth, depthLeft);
             if(tt != null){
 
@@ -623,6 +961,12 @@ public class AdvancedSearch implements AI {
         }
 
 
+        /**
+         * the static evaluation is only computed after the transposition table had the chance to cut this node.
+         */
+        int         eval            = staticEval(zobrist);
+
+
         /**
          * doing razoring
          */
@@ -636,8 +980,8 @@ public class AdvancedSearch implements AI {
                 if (depthLeft == 1) {
                     return qSearch(alpha, beta, currentDepth,0);
                 }
-                double rWindow = alpha - razor_margin;
-                double value = qSearch(rWindow, rWindow + 1, currentDepth,0);
+                int rWindow = alpha - razor_margin;
+                int value = qSearch(rWindow, rWindow + 1, currentDepth,0);
                 if (value <= rWindow) {
                     return value;
                 }
@@ -653,6 +997,7 @@ public class AdvancedSearch implements AI {
                 _board.move_null();
                 score = -pvSearch(-alpha-1, -alpha, currentDepth+1, depthLeft-1-null_move_reduction, false, false);
                 _board.undoMove_null();
+                if (_stop) return 0;
                 if (score >= beta) {
                     return beta;
                 }
@@ -663,21 +1008,13 @@ public class AdvancedSearch implements AI {
 
 
         /**
-         * generating all legal moves and sorting them
+         * preparing the staged move picker. Moves are only generated and sorted once they are needed.
          */
-        List<Move> allMoves = _board.getPseudoLegalMoves(_buffer.get(currentDepth));
-        if(allMoves.size() == 0){
-            return eval;
-        }
-
-        /**
-         * calculate SEE value
-         */
-        for(Move m:allMoves){
-            if(m.getType() == Move.DEFAULT)
-                m.setSeeScore(getSEE(m));
-        }
-        orderer.sort(allMoves, currentDepth, _board, pv, _killerTable, _transpositionTable, _counterMoveTable);
+        MovePicker picker = _pickers[currentDepth];
+        picker.init(_board, evaluator, getHashMove(), currentDepth, _killerTable,
+                    use_counterMove_heuristic   ? _counterMoveTable : null,
+                    use_history_heuristic       ? _historyTable     : null,
+                    use_followUp_heuristic      ? _followUpTable    : null);
 
 
 
@@ -715,19 +1052,16 @@ public class AdvancedSearch implements AI {
         /**
          * looping over all moves
          */
-        for (Move m:allMoves)  {
-
-            if(!_board.isLegal(m)){
-                continue;
-            }
-
-
+        MoveList quiets = _quietsSearched.get(currentDepth);
+        quiets.clear();
+        int m;
+        while ((m = picker.next()) != 0)  {
 
             boolean givesCheck = _board.givesCheck(m);
             boolean moveCanBePruned =
                     !pv &&
-                            !m.isCapture() &&
-                            !m.isPromotion() &&
+                            !Move.isCapture(m) &&
+                            !Move.isPromotion(m) &&
                             !givesCheck;
 
 
@@ -746,31 +1080,53 @@ public class AdvancedSearch implements AI {
                 continue;
             }
 
+            /**
+             * late move pruning. late quiet moves at low depth are skipped if they have a bad continuation history
+             * as a reply to the previous two moves.
+             */
+            if (
+                    use_late_move_pruning
+                    && moveCanBePruned
+                    && !isInCheck
+                    && depthLeft <= late_move_pruning_depth
+                    && legalMoves >= 3 + depthLeft * depthLeft
+                    && Math.abs(alpha) < MIN_CHECKMATE_VALUE
+                    && MovePicker.quietScore(_board, m, null,
+                                             use_counterMove_heuristic ? _counterMoveTable : null,
+                                             use_followUp_heuristic    ? _followUpTable    : null) < 0
+                ){
+                continue;
+            }
+
             /**
              * if the SEE value of the capture is too small, dont bother this move.
              */
             if (!pv
                     && depthLeft <= 4
-                    && m.isCapture()
-                    && m.getSeeScore() < -100){
+                    && Move.isCapture(m)
+                    && !see_ge(m, -100)){
                 continue;
             }
 
 
 
-            int reduction = use_LMR ? reducer.reduce(_board, m, currentDepth, depthLeft, legalMoves, pv) : 0;
-            int extensions = _board.givesCheck(m) & m.getSeeScore() >= 0 ? 1:0;
+            boolean isQuiet = !Move.isCapture(m) && !Move.isPromotion(m);
+            int history = isQuiet && use_history_heuristic ? _historyTable.get(m) : 0;
+            int reduction = use_LMR ? reducer.reduce(_board, m, currentDepth, depthLeft, legalMoves, pv, history) : 0;
+            int extensions = givesCheck && see_ge(m, 0) ? 1:0;
 
             _board.move(m);
 
             if (debug && currentDepth == 0){
-                score = -pvSearch(- Double.POSITIVE_INFINITY, -Double.NEGATIVE_INFINITY, currentDepth+1, depthLeft-1-reduction+extensions, true, false);
-                System.out.format("%-6s %10.1f %20s %10s %n", UCI.moveToUCI(m, _board), score, m.getOrderPriority(), m.getSeeScore());
+                score = -pvSearch(-VALUE_INFINITE, VALUE_INFINITE, currentDepth+1, depthLeft-1-reduction+extensions, true, false);
+                System.out.format("%-6s %10d %20s %10s %n", UCI.moveToUCI(new Move(m), _board), score, picker.getStage(), extensions);
             }else{
                 if (legalMoves == 0 && pv) {
                     score = -pvSearch(-beta, -alpha, currentDepth+1, depthLeft-1-reduction+extensions, true, false);
                 } else {
                     score = -pvSearch(-alpha-1, -alpha, currentDepth+1, depthLeft-1-reduction+extensions, false, false);
+                    if (score > alpha && reduction > 0) // a reduced move which fails high is verified at full depth
+                        score = -pvSearch(-alpha-1, -alpha, currentDepth+1, depthLeft-1+extensions, false, false);
                     if (score > alpha && pv) // in fail-soft ... && score < beta ) is common
                         score = -pvSearch(-beta, -alpha, currentDepth+1, depthLeft-1-reduction+extensions, true,false); // re-search
                 }
@@ -780,7 +1136,10 @@ public class AdvancedSearch implements AI {
 
             _board.undoMove();
 
-
+            /**
+             * the result of a stopped search is not reliable and must not be stored
+             */
+            if (_stop) return 0;
 
             legalMoves++;
 
@@ -789,12 +1148,16 @@ public class AdvancedSearch implements AI {
              * beta cutoff
              */
             if( score >= beta       ){
-                if(use_killer_heuristic && !m.isCapture())          _killerTable.put(currentDepth, m.copy());
-                if(use_counterMove_heuristic && !m.isCapture())     placeInCounterMoveTable(m, depthLeft * depthLeft);
-                if(use_transposition)                               placeInTT(zobrist, currentDepth, depthLeft, beta, TranspositionEntry.CUT_NODE, m.copy());
+                if(use_killer_heuristic && !Move.isCapture(m))      _killerTable.put(currentDepth, m);
+                if(use_counterMove_heuristic && !Move.isCapture(m)) placeInCounterMoveTable(m);
+                if(isQuiet)                                         placeInHistoryTables(m, quiets, depthLeft);
+                if(use_transposition)                               placeInTT(zobrist, currentDepth, depthLeft, beta, TranspositionEntry.CUT_NODE, m, eval);
                 _betaCutoffs ++;
                 return beta;   // fail-hard beta-cutoff
             }
+            if(isQuiet){
+                quiets.add(m);
+            }
 
             /**
              * keeping track of the best move
@@ -830,12 +1193,12 @@ public class AdvancedSearch implements AI {
         /**
          * storing in the TT
          */
-        if(bestMove != null){
+        if(bestMove != 0){
             if (pv && highestScore >= alpha && highestScore <= beta) {
-                placeInTT(zobrist, currentDepth, depthLeft, highestScore, TranspositionEntry.PV_NODE, bestMove.copy());
+                placeInTT(zobrist, currentDepth, depthLeft, highestScore, TranspositionEntry.PV_NODE, bestMove, eval);
             } else {
                 if (use_transposition) {
-                    placeInTT(zobrist, currentDepth, depthLeft, alpha, TranspositionEntry.ALL_NODE, bestMove.copy());
+                    placeInTT(zobrist, currentDepth, depthLeft, alpha, TranspositionEntry.ALL_NODE, bestMove, eval);
                 }
             }
         }
@@ -844,37 +1207,67 @@ public class AdvancedSearch implements AI {
     }
 
     /**
-     * qSearch initiated with depthLeft = 0
+     * qSearch initiated with depthLeft = 0.
+     * The depth decreases with every ply inside the quiescence search.
+     *
+     * If the side to move is in check, there is no stand pat and all evasions are searched so mates are detected.
+     * Otherwise captures and promotions are searched ordered by MVV-LVA. At the first ply (depthLeft = 0)
+     * quiet moves which give check are searched afterwards if use_qSearch_checks is set.
      * @param alpha
      * @param beta
      * @param currentDepth
      * @param depthLeft
      * @return
      */
-    public double qSearch(double alpha, double beta, int currentDepth, int depthLeft) {
-
+    public int qSearch(int alpha, int beta, int currentDepth, int depthLeft) {
 
-
-        _nodes ++;
+        _searchNodes ++;
         _qSearchNodes ++;
-        if(_board.isDraw()){
+        checkLimits();
+        if(_stop) return 0;
+        if(_board.isDraw(currentDepth)){
             return 0;
         }
 
-        double      stand_pat       = evaluator.evaluate(_board) * _board.getActivePlayer();
-        Move        bestMove        = null;
-        double      bestScore       = Double.NEGATIVE_INFINITY;
-        double      origonalAlpha   = alpha;
         long        zobrist         = _board.zobrist();
 
 
         /**
-         * if no quiescene shall be used at all
+         * if no quiescene shall be used at all or the move buffer is exhausted
          */
-        if(!use_qSearch){
-            return stand_pat;
+        if(!use_qSearch || currentDepth >= MAXIMUM_STORE_DEPTH - 1){
+            return staticEval(zobrist);
         }
 
+        /**
+         * searching all evasions if the king is in check
+         */
+        if(_board.isInCheck(_board.getActivePlayer())){
+            MoveList evasions = _board.getLegalMoves(_buffer.get(currentDepth));
+            if(evasions.size() == 0){
+                return -MAX_CHECKMATE_VALUE+currentDepth;
+            }
+            for(int i = 0; i < evasions.size(); i++){
+                evasions.setScore(i, Move.isCapture(evasions.get(i)) ? MovePicker.mvvLva(evasions.get(i)) : 0);
+            }
+            evasions.sort();
+            for (int i = 0; i < evasions.size(); i++) {
+                _board.move(evasions.get(i));
+                int score = -qSearch(-beta, -alpha, currentDepth+1, depthLeft-1);
+                _board.undoMove();
+
+                if (score >= beta) {
+                    return beta;
+                }
+                if (score > alpha){
+                    alpha = score;
+                }
+            }
+            return alpha;
+        }
+
+        int stand_pat = staticEval(zobrist);
+
         /**
          * delta pruning check if there is no way that any move could increase alpha
          *
@@ -885,123 +1278,199 @@ public class AdvancedSearch implements AI {
             }
         }
 
-        List<Move> allMoves = _board.getCaptureMoves(_buffer.get(currentDepth));
-        if (allMoves.size() == 0){
-            return stand_pat;
-        }
         if (stand_pat >= beta){
             return beta;
         }
         if (alpha < stand_pat)
             alpha = stand_pat;
 
+        MoveList captures = _board.getCaptureMoves(_buffer.get(currentDepth));
+        for(int i = 0; i < captures.size(); i++){
+            captures.setScore(i, MovePicker.mvvLva(captures.get(i)));
+        }
+        captures.sort();
+        for (int i = 0; i < captures.size(); i++) {
 
-        orderer.sort(allMoves, 0, _board, false, _killerTable, _transpositionTable, _counterMoveTable);
-        int legalMoves = 0;
-        for (Move m : allMoves) {
-
-            if(!_board.isLegal(m)) continue;
-
+            int m = captures.get(i);
 
             /**
-             * delta pruning check if there is no way that any move could increase alpha
-             *
+             * only queen promotions are searched
              */
-            if(use_delta_pruning){
-                if(stand_pat+delta_pruning_captures[Math.abs(m.getPieceTo())] < alpha-delta_pruning_big_margin){
+            if(Move.isPromotion(m)){
+                if(Math.abs(Move.getPieceFrom(m)) != 5) continue;
+            }else{
+                /**
+                 * delta pruning check if there is no way that any move could increase alpha
+                 *
+                 */
+                if(use_delta_pruning){
+                    if(stand_pat+delta_pruning_captures[Math.abs(Move.getPieceTo(m))] < alpha-delta_pruning_big_margin){
+                        continue;
+                    }
+                }
+                /**
+                 * prune moves with SEE < 0
+                 */
+                if(!see_ge(m, 0)){
                     continue;
                 }
             }
-            /**
-             * prune moves with SEE < 0
-             */
-            if(getSEE(m) < 0){
-                continue;
-            }
 
             _board.move(m);
-            double score = -qSearch(-beta, -alpha, currentDepth+1, depthLeft);
+            int score = -qSearch(-beta, -alpha, currentDepth+1, depthLeft-1);
             _board.undoMove();
 
-            legalMoves ++;
-
-
             if (score >= beta) {
                 return beta;
             }
             if (score > alpha){
                 alpha = score;
-//                bestMove = m.copy();
-            }
-                if (score > bestScore){
-                bestScore = score;
-//                bestMove = m.copy();
             }
         }
 
+        /**
+         * searching quiet checks at the first ply of the quiescence search
+         */
+        if(use_qSearch_checks && depthLeft == 0){
+            MoveList checks = _board.getQuietChecks(_buffer.get(currentDepth));
+            for (int i = 0; i < checks.size(); i++) {
 
-        if(legalMoves == 0 ){
-            return stand_pat;
-        }
-
-
-//        if(!_board.isInCheck(_board.getActivePlayer())){
-//            if(legalMoves == 0){
-//                return alpha;
-//            }
-//        }
-
-
-//        allMoves = _board.getPseudoLegalMoves(_buffer.get(currentDepth));
-//
-//        for (Move m : allMoves) {
-//
-//            if(!_board.isLegal(m)) continue;
-//
-//            _board.move(m);
-//            double score = -qSearch(-beta, -alpha, currentDepth+1, depthLeft);
-//            _board.undoMove();
-//
-//            legalMoves ++;
-//
-//            if (score >= beta) {
-//                return beta;
-//            }
-//            if (score > alpha){
-//                alpha = score;
-//            }
-//            if (score > bestScore){
-//                bestScore = score;
-//            }
-//        }
+                int m = checks.get(i);
 
+                /**
+                 * prune checks which lose the moved piece
+                 */
+                if(!see_ge(m, 0)){
+                    continue;
+                }
 
+                _board.move(m);
+                int score = -qSearch(-beta, -alpha, currentDepth+1, depthLeft-1);
+                _board.undoMove();
 
+                if (score >= beta) {
+                    return beta;
+                }
+                if (score > alpha){
+                    alpha = score;
+                }
+            }
+        }
 
+        return alpha;
+    }
 
+    public int qSearch(Board board){
+        this._board             = board;
+        this.evaluator.attach(board);
+        this._stop              = false;
 
-//        if(legalMoves == 0){
-//            if(!_board.isInCheck(_board.getActivePlayer())){
-//                return stand_pat;
-//            }
-//
-//        }
+        return qSearch(-VALUE_INFINITE, VALUE_INFINITE, 0,0) * board.getActivePlayer();
+    }
 
+    /**
+     * copies the settings of this search to the given helper.
+     * The evaluator is reentrant and shared between all threads. The orderer is copied so that each thread
+     * works on its own instance.
+     * @param helper
+     */
+    private void copySettings(AdvancedSearch helper){
+        helper.evaluator                    = evaluator;
+        helper.orderer                      = orderer.copy();
+        helper.reducer                      = reducer;
+
+        helper.use_qSearch                  = use_qSearch;
+        helper.use_qSearch_checks           = use_qSearch_checks;
+        helper.use_transposition            = use_transposition;
+        helper.use_null_moves               = use_null_moves;
+        helper.use_LMR                      = use_LMR;
+        helper.use_razoring                 = use_razoring;
+        helper.use_killer_heuristic         = use_killer_heuristic;
+        helper.use_aspiration               = use_aspiration;
+        helper.use_futility_pruning         = use_futility_pruning;
+        helper.use_delta_pruning            = use_delta_pruning;
+        helper.use_counterMove_heuristic    = use_counterMove_heuristic;
+        helper.use_history_heuristic        = use_history_heuristic;
+        helper.use_followUp_heuristic       = use_followUp_heuristic;
+        helper.use_late_move_pruning        = use_late_move_pruning;
+
+        helper.deepening_start_depth        = deepening_start_depth;
+        helper.killer_count                 = killer_count;
+        helper.null_move_reduction          = null_move_reduction;
+        helper.razor_margin                 = razor_margin;
+        helper.futility_pruning_margin      = futility_pruning_margin;
+        helper.delta_pruning_margin         = delta_pruning_margin;
+        helper.delta_pruning_big_margin     = delta_pruning_big_margin;
+        helper.late_move_pruning_depth      = late_move_pruning_depth;
+        helper.delta_pruning_captures       = delta_pruning_captures;
+    }
 
+    /**
+     * starts all helper threads on a copy of the given board.
+     * Every second helper starts one ply deeper so the threads do not search the same tree in lockstep.
+     * @param board
+     */
+    private void startHelpers(Board board){
+        _runningHelpers = _helpers;
+        _helperSearches = new Future<?>[_runningHelpers.length];
+        for(int i = 0; i < _runningHelpers.length; i++){
+            AdvancedSearch helper = _runningHelpers[i];
+            Board copy = board.copy();
+            int offset = (i + 1) % 2;
+
+            copySettings(helper);
+            helper._stop = false;
+            helper._searchNodes = 0;
+            helper._publishedNodes = 0;
+            helper._limitCheckCountdown = TIME_CHECK_INTERVAL;
+
+            _helperSearches[i] = helper._executor.submit(() -> helper.helperSearch(copy, offset));
+        }
+    }
 
-//        if(bestMove != null){
-//            if (alpha <= origonalAlpha) {
-//                placeInTT(zobrist, currentDepth, depthLeft, alpha, TranspositionEntry.ALL_NODE, bestMove);
-//            }
-//        }
+    /**
+     * stops the helper threads of the running search and waits for them to finish.
+     */
+    private void stopHelpers(){
+        for(AdvancedSearch helper:_runningHelpers){
+            helper._stop = true;
+        }
+        for(Future<?> f:_helperSearches){
+            try {
+                f.get();
+            } catch (InterruptedException | ExecutionException e) {
+                e.printStackTrace();
+            }
+        }
+        _helperSearches = new Future<?>[0];
+        _runningHelpers = new AdvancedSearch[0];
+    }
 
-        return alpha;
+    /**
+     * the search done by a helper thread. It keeps on deepening until it is stopped.
+     * The results are only shared through the transposition table.
+     * @param board
+     * @param offset    added to the initial depth
+     */
+    private void helperSearch(Board board, int offset){
+        prepare(board);
+        for(int depth = deepening_start_depth + offset; !_stop && depth <= MAXIMUM_STORE_DEPTH / 2; depth++){
+            iteration(depth);
+        }
     }
 
-    public double qSearch(Board board){
+    /**
+     * prepares the tables used for a new search on the given board
+     * @param board
+     */
+    private void prepare(Board board){
         this._board             = board;
-
-        return qSearch(-1000000,1000000, 0,0) * board.getActivePlayer();
+        this.evaluator.attach(board);
+        this._score             = 0;
+        this._killerTable       = use_killer_heuristic  ? new KillerTable(MAXIMUM_STORE_DEPTH, killer_count)    :null;
+        this._historyTable.age();
+        this._counterMoveTable.age();
+        this._followUpTable.age();
     }
 
     /**
@@ -1010,65 +1479,152 @@ public class AdvancedSearch implements AI {
      * @return
      */
     @Override
-    public Move bestMove(Board board) {
+    public synchronized Move bestMove(Board board) {
+        this._searching = true;
+        try {
+            return runSearch(board);
+        } finally {
+            this._searching = false;
+        }
+    }
 
-        this._board             = board;
-        this._killerTable       = use_killer_heuristic  ? new KillerTable(MAXIMUM_STORE_DEPTH, killer_count)    :null;
-        this._counterMoveTable  = use_counterMove_heuristic ? new CounterMoveTable()                            :null;
+    /**
+     * prepares the search, runs the iterative deepening on this thread and the helper threads
+     * and returns the best move
+     * @param board
+     * @return
+     */
+    private Move runSearch(Board board) {
+
+        this._transpositionTable.newSearch();
+        if(evaluator.getPawnTable() != null){
+            evaluator.getPawnTable().resetStatistics();
+        }
+
+        prepare(board);
+        this._stop                  = false;
+        this._stopRequested         = false;
+        this._iterationCompleted    = false;
+        this._deadline              = 0;
+        this._nodeLimit             = 0;
+        this._searchNodes           = 0;
+        this._startTime             = System.currentTimeMillis();
+        this._limitCheckCountdown   = TIME_CHECK_INTERVAL;
+        startHelpers(board);
+
+        Move best = search();
 
-        if(this._transpositionTable == null)    this._transpositionTable = new TranspositionTable<>(16);
-        else                                    this._transpositionTable.clear();
+        stopHelpers();
+        return best;
+    }
+
+    /**
+     * runs the iterative deepening on the main thread and returns the best move
+     * @return
+     */
+    private Move search() {
 
         /**
          * without iterations
          */
         if(!use_iteration && limit_flag == FLAG_DEPTH_LIMIT){
             iteration(limit);
-            return _transpositionTable.get(board.zobrist()).getBestMove();
+            return getBestMoveFromTT();
         }
 
         /**
-         * with iterations/time limit
+         * with iterations
          */
-        if(limit_flag == FLAG_TIME_LIMIT){
-
-            long time = System.currentTimeMillis();
-            int depth = deepening_start_depth;
-            long prevTime = System.currentTimeMillis();
-            long prevNode = 1;
-            double branchingFactor;
-            double expectedTime = 0;
-            while (System.currentTimeMillis() - time + expectedTime < limit) {
-                iteration(depth++);
-
-                long iterationTime = System.currentTimeMillis() - prevTime;
-                prevTime = System.currentTimeMillis();
-                branchingFactor = Math.min(2, (double) (_nodes) / prevNode);
-                expectedTime = branchingFactor * iterationTime;
-                if (depth > MAXIMUM_STORE_DEPTH/2) {
-                    break;
-                }
-            }
-
+        int startDepth = deepening_start_depth;
+        int maxDepth = MAXIMUM_STORE_DEPTH/2;
+        if(limit_flag == FLAG_DEPTH_LIMIT){
+            maxDepth = Math.min(limit, maxDepth);
+            startDepth = Math.min(limit, startDepth);
         }
-        /**
-         * with iterations but depth limit
-         */
-        else{
-            if(limit > MAXIMUM_STORE_DEPTH/2){
-                limit = MAXIMUM_STORE_DEPTH/2;
-            }
-            for(int i = Math.min(limit, deepening_start_depth); i <= limit; i++){
-                iteration(i);
-            }
+
+        this._searchStart = System.currentTimeMillis();
+        this._hardLimit = timeManager != null ? timeManager.getHard_limit() : limit;
+        for(int depth = startDepth; depth <= maxDepth; depth++){
+            iteration(depth);
+            if(_stop) break;
+
+            /**
+             * the first iteration is always completed so there is a best move.
+             * afterwards the search can be stopped at any time
+             */
+            _iterationCompleted = true;
+            if(_stopRequested || limitReached(depth)) break;
         }
+        _deadline = 0;
+        _nodeLimit = 0;
 
         /**
          * returning the best move stored in the TT.
          */
-        Move m = _transpositionTable.get(board.zobrist()).getBestMove();
-        _transpositionTable.clear();
-        return m;
+        return getBestMoveFromTT();
+    }
+
+    /**
+     * checks the limits of the search after a completed iteration and arms the limits which can abort
+     * an iteration. Returns true if no further iteration should be started.
+     * @param depth     the depth of the completed iteration
+     * @return
+     */
+    private boolean limitReached(int depth){
+        switch (limit_flag){
+            case FLAG_TIME_LIMIT:
+                int softLimit = limit;
+                if(timeManager != null){
+                    timeManager.update(depth, getHashMove(), _score);
+                    softLimit = timeManager.getSoft_limit();
+                }
+                if(ponder) return false;
+                _deadline = _searchStart + _hardLimit;
+                return System.currentTimeMillis() - _searchStart >= softLimit;
+            case FLAG_NODE_LIMIT:
+                _nodeLimit = limit;
+                return totalNodes() >= limit;
+            case FLAG_MATE_LIMIT:
+                return _score > MIN_CHECKMATE_VALUE && (MAX_CHECKMATE_VALUE - _score + 1) / 2 <= limit;
+            default:
+                return false;
+        }
+    }
+
+    /**
+     * counts down the nodes until the limits which can abort an iteration are checked again.
+     * Is called once for each node of pvSearch and qSearch.
+     */
+    private void checkLimits(){
+        if(--_limitCheckCountdown > 0) return;
+        _limitCheckCountdown = TIME_CHECK_INTERVAL;
+        _publishedNodes = _searchNodes;
+        if(limitExceeded()){
+            _stop = true;
+        }
+    }
+
+    /**
+     * checks the limits which can abort an iteration.
+     * @return      true if the hard time limit or the node limit has been exceeded
+     */
+    private boolean limitExceeded(){
+        if(_nodeLimit != 0 && totalNodes() >= _nodeLimit) return true;
+        return _deadline != 0 && System.currentTimeMillis() >= _deadline;
+    }
+
+    /**
+     * returns the nodes searched by this thread and all running helper threads.
+     * The helpers publish their node count every TIME_CHECK_INTERVAL nodes, therefor the sum
+     * may lag behind by up to TIME_CHECK_INTERVAL nodes per helper.
+     * @return
+     */
+    private long totalNodes(){
+        long nodes = _searchNodes;
+        for(AdvancedSearch helper:_runningHelpers){
+            nodes += helper._publishedNodes;
+        }
+        return nodes;
     }
 
     public void iteration(int depth) {
@@ -1081,144 +1637,226 @@ public class AdvancedSearch implements AI {
         _qSearchNodes = 0;
         _transpositionHits = 0;
 
-        _nodes = 0;
         _selDepth = 0;
 
 
-
-        /**
-         * initiating time measurements
-         */
-        long t0 = System.currentTimeMillis();
-
-
         /**
          * calculating bounds for the search.
          * If aspiration shall be used, aspiration windows will be initiated
          */
-        double alphaInc;
-        double betaInc;
+        int alphaInc;
+        int betaInc;
 
         if(use_aspiration && depth > 2){
             alphaInc = -25;
             betaInc = 25;
         }else{
-            alphaInc =Double.NEGATIVE_INFINITY;
-            betaInc = Double.POSITIVE_INFINITY;
+            alphaInc = -VALUE_INFINITE;
+            betaInc = VALUE_INFINITE;
         }
 
-        double pvResult = pvSearch(alphaInc+_score, betaInc+_score, 0, depth, true, false);
+        int pvResult = pvSearch(aspirationBound(_score, alphaInc), aspirationBound(_score, betaInc), 0, depth, true, false);
 
         //System.out.println("attempted with: <" + (alphaInc+_score) + "|" + (_score + betaInc)+">" + " -> " + pvResult);
 
         /**
          * this loop will only be entered if the previous search either failed
          */
-        while (pvResult <= (alphaInc+_score) || pvResult >= (_score+betaInc)){
-            if(pvResult <= (alphaInc+_score)){
-                alphaInc*=4;
+        while (!_stop && (pvResult <= aspirationBound(_score, alphaInc) || pvResult >= aspirationBound(_score, betaInc))){
+            if(pvResult <= aspirationBound(_score, alphaInc)){
+                alphaInc = Math.max(-VALUE_INFINITE, alphaInc * 4);
             }
-            if(pvResult >= (betaInc+_score)){
-                betaInc*=4;
+            if(pvResult >= aspirationBound(_score, betaInc)){
+                betaInc = Math.min(VALUE_INFINITE, betaInc * 4);
             }
 
-            pvResult = pvSearch(alphaInc+_score, betaInc+_score, 0, depth, true, false);
+            pvResult = pvSearch(aspirationBound(_score, alphaInc), aspirationBound(_score, betaInc), 0, depth, true, false);
             //System.out.println("attempted with: <" + (alphaInc+_score) + "|" + (_score + betaInc)+">" + " -> " + pvResult);
         }
 
+        if(_stop) return;
+
         _score = pvResult;
 
         /**
          * printing the infoString, sending the infoString to UCI (for logging)
          */
+        if(print_overview){
+            String infoString = buildInfoString(depth, System.currentTimeMillis()-_startTime);
+            System.out.println(infoString);
+            if(debug){
+                System.out.println(buildMetaInfoString());
+            }
 
-        String infoString = buildInfoString(depth, System.currentTimeMillis()-t0);
-        System.out.println(infoString);
-
-        UCI.log(infoString+"\n");
+            UCI.log(infoString+"\n");
+        }
     }
 
 
     /**
-     * places the move in the counter move table
-     * @param m
+     * returns the bound of an aspiration window around the given score.
+     * The bound is clamped so the window never exceeds [-VALUE_INFINITE, VALUE_INFINITE].
+     * @param score
+     * @param increment
+     * @return
      */
-    public void placeInCounterMoveTable(Move m, int val){
+    private static int aspirationBound(int score, int increment){
+        return Math.max(-VALUE_INFINITE, Math.min(VALUE_INFINITE, score + increment));
+    }
 
+    /**
+     * rewards the quiet move which caused a beta cutoff in the history tables and punishes the quiet moves
+     * which have been searched before it at the same node. Only the tables which are enabled are updated.
+     * @param m             the packed move which caused the cutoff
+     * @param quiets        the quiet moves searched before
+     * @param depthLeft
+     */
+    private void placeInHistoryTables(int m, MoveList quiets, int depthLeft){
+        int bonus    = HistoryTable.bonus(depthLeft);
+        int previous = use_counterMove_heuristic ? _board.getLastMove()  : 0;
+        int followUp = use_followUp_heuristic    ? _board.getLastMove(1) : 0;
+
+        updateHistories(m, previous, followUp, bonus);
+        for(int i = 0; i < quiets.size(); i++){
+            updateHistories(quiets.get(i), previous, followUp, -bonus);
+        }
+    }
 
-        if(_board.getMoveHistory().isEmpty()) return;
-        Move prev = (Move) _board.getMoveHistory().get(_board.getMoveHistory().size() - 1);
+    /**
+     * adds the bonus to the score of the move in the history table and the continuation history tables.
+     * @param m
+     * @param previous      the previous move or 0 if the counter move history should not be updated
+     * @param followUp      the move two plies ago or 0 if the follow up history should not be updated
+     * @param bonus
+     */
+    private void updateHistories(int m, int previous, int followUp, int bonus){
+        if(use_history_heuristic)   _historyTable.update(m, bonus);
+        if(previous != 0)           _counterMoveTable.update(previous, m, bonus);
+        if(followUp != 0)           _followUpTable.update(followUp, m, bonus);
+    }
 
-        _counterMoveTable.add(val,
-                              Math.abs(prev.getPieceFrom())-1,
-                              prev.getTo(),
-                              Math.abs(m.getPieceFrom())-1,
-                              m.getTo());
+    /**
+     * stores the move as the counter move of the previous move
+     * @param m     the packed move
+     */
+    public void placeInCounterMoveTable(int m){
+        int prev = _board.getLastMove();
+        if(prev == 0) return;
 
+        _counterMoveTable.setCounterMove(prev, m);
     }
 
     /**
      * places a transposition in the transposition table.
      * It will not override PV-entries if the new value itself isnt a pv-entry.
-     * It will also not override values if the depthLeft of the new value is smaller than the old one
+     * It will also not override values if the depthLeft of the new value is smaller than the old one.
+     * Mate scores are stored relative to the current node so they stay valid in later searches.
      *
      * @param zobrist
      * @param depth
      * @param depthLeft
      * @param alpha
      * @param type
-     * @param bestMove
+     * @param bestMove    the packed best move or 0
+     * @param eval        the static evaluation from the view of the active player
      */
-    public void placeInTT(long zobrist, int depth, int depthLeft, double alpha, int type, Move bestMove){
-        TranspositionEntry en = _transpositionTable.get(zobrist);
-
-        if(en != null && en.getNode_type() == TranspositionEntry.PV_NODE && type != TranspositionEntry.PV_NODE) return;
+    public void placeInTT(long zobrist, int depth, int depthLeft, int alpha, int type, int bestMove, int eval){
+        if(alpha > MIN_CHECKMATE_VALUE)         alpha += depth;
+        else if(alpha < -MIN_CHECKMATE_VALUE)   alpha -= depth;
+        _transpositionTable.put(zobrist, _board.getActivePlayer(), alpha, depthLeft, type, bestMove == 0 ? 0 : Move.compress(bestMove),
+                                eval * _board.getActivePlayer());
+    }
 
-        if(en != null){
-            if(en.getDepthLeft() > depthLeft){
-                return;
+    /**
+     * returns the static evaluation of the current position from the view of the active player.
+     * The evaluation is taken from the transposition table or the eval cache if possible. Otherwise the evaluator
+     * is called and the result is stored in the eval cache.
+     * @param zobrist
+     * @return
+     */
+    private int staticEval(long zobrist){
+        int eval = _transpositionTable.getStaticEval(zobrist, _board.getActivePlayer());
+        if(eval == TranspositionEntry.NO_STATIC_EVAL){
+            eval = _evalCache.get(zobrist);
+            if(eval == EvalCache.NO_VALUE){
+                eval = evaluator.evaluate(_board);
+                _evalCache.put(zobrist, eval);
             }
         }
-
-        if(en != null){
-            en.setZobrist(zobrist);
-            en.setVal(alpha);
-            en.setNode_type(type);
-            en.setColor(_board.getActivePlayer());
-            en.setBestMove(bestMove);
-        }else{
-            _transpositionTable.put(zobrist, new TranspositionEntry(zobrist, alpha, depthLeft, type, _board.getActivePlayer(), bestMove));
-        }
+        return eval * _board.getActivePlayer();
     }
 
     /**
      * checks if there is a tt-entry for the given zobrist key.
-     * It checks if the depthLeft of that stored entry is >= than the current depthLeft and the color matches on the board
+     * It checks if the depthLeft of that stored entry is >= than the current depthLeft and the color matches on the board.
+     * The returned entry is reused for every lookup and only valid until the next call.
      * @param zobrist
      * @param depth
      * @param depthLeft
      * @return
      */
     public TranspositionEntry retrieveFromTT(long zobrist, int depth, int depthLeft){
-        TranspositionEntry en = _transpositionTable.get(zobrist);
-
-        if(en != null && en.getDepthLeft() >= depthLeft && en.getZobrist() == zobrist && en.getColor() == _board.getActivePlayer()){
-            return en;
+        if(_transpositionTable.probe(zobrist, _board.getActivePlayer(), _transpositionEntry)
+                && _transpositionEntry.getDepthLeft() >= depthLeft){
+            int val = _transpositionEntry.getVal();
+            if(val > MIN_CHECKMATE_VALUE)           _transpositionEntry.setVal(val - depth);
+            else if(val < -MIN_CHECKMATE_VALUE)     _transpositionEntry.setVal(val + depth);
+            return _transpositionEntry;
         }
         return null;
     }
 
+    /**
+     * decodes the move stored in the tt for the current position into a packed move.
+     * returns 0 if there is no entry or the stored move is not pseudo legal in the current position.
+     * @return
+     */
+    private int getHashMove(){
+        int move = _transpositionTable.getMove(_board.zobrist(), _board.getActivePlayer());
+        if(move == 0) return 0;
+
+        int from    = move & 0x3F;
+        int to      = (move >>> 6) & 0x3F;
+        int promo   = (move >>> 12) & 0x7;
+
+        int packed  = _board.generatePackedMove(from, to, promo);
+        return _board.isPseudoLegal(packed) ? packed : 0;
+    }
+
+    /**
+     * decodes the move stored in the tt for the current position.
+     * returns null if there is no entry or the stored move is not pseudo legal in the current position.
+     * @return
+     */
+    private Move getBestMoveFromTT(){
+        int move = getHashMove();
+        if(move == 0) return null;
+        return new Move(move);
+    }
+
     /**
      * calculates the SEE score for the given move using the internal board object.
-     * @param m
+     * @param m     the packed move
      * @return
      */
-    public int getSEE(Move m){
-        return (int)evaluator.staticExchangeEvaluation(_board, m.getTo(), m.getPieceTo(), m.getFrom(), m.getPieceFrom(), _board.getActivePlayer());
+    public int getSEE(int m){
+        return evaluator.staticExchangeEvaluation(_board, Move.getTo(m), Move.getPieceTo(m), Move.getFrom(m), Move.getPieceFrom(m), _board.getActivePlayer());
+    }
+
+    /**
+     * checks if the SEE score for the given move is at least the given threshold using the internal board object.
+     * @param m             the packed move
+     * @param threshold
+     * @return
+     */
+    public boolean see_ge(int m, int threshold){
+        return evaluator.see_ge(_board, m, threshold);
     }
 
     /**
      * returns a string containing standardised information
+     * @param depth     the depth of the completed iteration
+     * @param time      the time in ms since the search started
      * @return
      */
     public String buildInfoString(int depth, long time){
@@ -1234,15 +1872,16 @@ public class AdvancedSearch implements AI {
         builder.append("seldepth "      + _selDepth                     + " ");
 
         builder.append("score ");
-        builder.append("cp "            + (int)_score                   + " ");
         if(Math.abs(_score) > MIN_CHECKMATE_VALUE){
-            builder.append("mate "  + (int)(MAX_CHECKMATE_VALUE-Math.abs(_score))/2   + " ");
+            int moves = (MAX_CHECKMATE_VALUE - Math.abs(_score) + 1) / 2;
+            builder.append("mate "      + (_score > 0 ? moves : -moves)  + " ");
+        }else{
+            builder.append("cp "        + _score                        + " ");
         }
 
-        builder.append("nodes "         + _nodes                        + " ");
-
-        //TODO
-        builder.append("nps "           + _nodes/Math.max(1,time)*1000  + " ");
+        long nodes = totalNodes();
+        builder.append("nodes "         + nodes                         + " ");
+        builder.append("nps "           + nodes*1000/Math.max(1,time)   + " ");
         builder.append("tbhits "        + 0                             + " ");
         builder.append("time "          + time                          + " ");
         builder.append("pv "            + extractPV());
@@ -1264,9 +1903,36 @@ public class AdvancedSearch implements AI {
         builder.append(" tt hits " + _transpositionHits);
         builder.append(" beta cutoffs " + _betaCutoffs);
 
+        PawnTable pawnTable = evaluator.getPawnTable();
+        if(pawnTable != null){
+            builder.append(" pawn hits " + pawnTable.getHits());
+            builder.append(" pawn probes " + pawnTable.getProbes());
+            builder.append(String.format(" pawn hitrate %.1f%%", pawnTable.getHitRate()));
+        }
+
         return builder.toString();
     }
 
+    /**
+     * returns the expected reply to the best move of the last search which is the second move of the pv.
+     * It can be sent to the gui so the engine is asked to ponder on the position after it.
+     * returns null if the tt does not contain a legal reply.
+     * @return
+     */
+    public Move getPonderMove(){
+        Move best = getBestMoveFromTT();
+        if(best == null) return null;
+
+        _board.move(best);
+        int ponder = getHashMove();
+        if(ponder != 0 && !_board.isLegal(ponder)){
+            ponder = 0;
+        }
+        _board.undoMove();
+
+        return ponder == 0 ? null : new Move(ponder);
+    }
+
     /**
      * extracts the pv line from the tt table.
      *
@@ -1274,16 +1940,15 @@ public class AdvancedSearch implements AI {
      */
     public String extractPV(){
         StringBuilder builder = new StringBuilder();
-        TranspositionEntry en = _transpositionTable.get(_board.zobrist());
+        Move m = getBestMoveFromTT();
 
         int counter = 0;
 
-        while(en != null && counter < _selDepth){
-            if(en.getColor() != _board.getActivePlayer()) break;
+        while(m != null && counter < _selDepth){
             counter++;
-            builder.append(UCI.moveToUCI(en.getBestMove(), _board) + " ");
-            _board.move(en.getBestMove());
-            en = _transpositionTable.get(_board.zobrist());
+            builder.append(UCI.moveToUCI(m, _board) + " ");
+            _board.move(m);
+            m = getBestMoveFromTT();
         }
 
         for(int i = 0; i < counter; i++){
@@ -1,11 +1,76 @@
 package ai.time_manager;
 
+/**
+ * splits the remaining time evenly on the expected amount of moves left and adds the increment.
+ * This is the optimum time for a move. The hard limit allows to exceed it a few times but never uses more than
+ * a fraction of the remaining time.
+ *
+ * The soft limit is scaled after each iteration:
+ *      - if the best move has not changed for several iterations, less time is used
+ *      - if the best move changes or the score drops compared to the previous iteration, more time is used
+ */
 public class SimpleTimeManager implements TimeManager {
+
+    public static final int     DEFAULT_MOVES_TO_GO     = 30;       //used if the amount of moves left is unknown
+    public static final int     MOVE_OVERHEAD           = 50;       //time in ms reserved for the communication
+    public static final int     HARD_LIMIT_FACTOR       = 4;        //the hard limit is at most this multiple of the optimum
+    public static final int     SCORE_DROP_LIMIT        = 100;      //score drops are only considered up to this value
+
+    private int                 optimum;
+    private int                 soft_limit;
+    private int                 hard_limit;
+
+    private int                 lastBestMove;
+    private int                 lastScore;
+    private int                 stableIterations;
+
     @Override
-    public int time(int color, int wtime, int btime, int winc, int binc, int movesToGo) {
+    public void init(int color, int wtime, int btime, int winc, int binc, int movesToGo) {
         int time = color == 1 ? wtime : btime;
         int inc = color == 1 ? winc : binc;
 
-        return time / 30 + inc;
+        int available = Math.max(1, time - MOVE_OVERHEAD);
+        int moves = movesToGo > 0 ? movesToGo : DEFAULT_MOVES_TO_GO;
+
+        this.hard_limit = Math.min(available * 3 / 4, (available / moves + inc) * HARD_LIMIT_FACTOR);
+        this.hard_limit = Math.max(1, hard_limit);
+        this.optimum = Math.min(hard_limit, available / moves + inc);
+        this.soft_limit = optimum;
+
+        this.lastBestMove = 0;
+        this.lastScore = 0;
+        this.stableIterations = 0;
+    }
+
+    @Override
+    public int getSoft_limit() {
+        return soft_limit;
+    }
+
+    @Override
+    public int getHard_limit() {
+        return hard_limit;
+    }
+
+    @Override
+    public void update(int depth, int bestMove, int score) {
+        if(bestMove == lastBestMove){
+            stableIterations ++;
+        }else{
+            stableIterations = 0;
+        }
+
+        //between 125% if the best move has just changed and 50% if it is stable for 5 iterations
+        double stability = Math.max(0.5, 1.25 - 0.15 * stableIterations);
+
+        //up to twice the time if the score dropped
+        double scoreDrop = 1;
+        if(depth > 1 && score < lastScore){
+            scoreDrop += (double) Math.min(SCORE_DROP_LIMIT, lastScore - score) / SCORE_DROP_LIMIT;
+        }
+
+        this.soft_limit = (int) Math.min(hard_limit, optimum * stability * scoreDrop);
+        this.lastBestMove = bestMove;
+        this.lastScore = score;
     }
 }
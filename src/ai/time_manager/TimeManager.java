@@ -3,16 +3,38 @@ package ai.time_manager;
 public interface TimeManager {
 
     /**
-     * returns the amount of ms the next move should be searched.
+     * computes the time limits for the next move. They can be read with getSoft_limit() and getHard_limit().
      *
      * @param color         the color of the ai
      * @param wtime         the time in ms for white left on the clock
      * @param btime         the time in ms for black left on the clock
      * @param winc          the time increment in ms for white
      * @param binc          the time increment in ms for black
-     * @param movesToGo     the expected amount of moves left
+     * @param movesToGo     the expected amount of moves left. 0 if unknown
+     */
+    void init(int color, int wtime, int btime, int winc, int binc, int movesToGo);
+
+    /**
+     * returns the time in ms after which no new iteration of the iterative deepening should be started.
+     * The soft limit may change after each call to update().
      * @return
      */
-    int time(int color, int wtime, int btime, int winc, int binc, int movesToGo);
+    int getSoft_limit();
+
+    /**
+     * returns the time in ms after which the search is aborted, even inside an iteration.
+     * @return
+     */
+    int getHard_limit();
+
+    /**
+     * is called after each completed iteration of the iterative deepening so the soft limit can be adjusted
+     * to the course of the search.
+     *
+     * @param depth         the depth of the completed iteration
+     * @param bestMove      the packed best move of the iteration
+     * @param score         the score of the iteration
+     */
+    void update(int depth, int bestMove, int score);
 
 }
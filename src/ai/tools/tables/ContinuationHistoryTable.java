@@ -0,0 +1,59 @@
+package ai.tools.tables;
+
+import board.moves.Move;
+
+import java.util.Arrays;
+
+/**
+ * stores a history score for each pair of (previous piece, previous target, piece, target).
+ * The previous move is the move which has been played one ply (counter move history) or two plies (follow up history)
+ * before the scored move. Pieces include their color.
+ *
+ * The scores are stored as shorts and updated with the same gravity formula as the HistoryTable so they
+ * stay inside [-HistoryTable.MAX_HISTORY, HistoryTable.MAX_HISTORY].
+ */
+public class ContinuationHistoryTable {
+
+    private static final int PIECE_SQUARES = 13 * 64;
+
+    private final short[] scores = new short[PIECE_SQUARES * PIECE_SQUARES];
+
+    private static int index(int previous, int move){
+        return ((Move.getPieceFrom(previous) + 6) * 64 + Move.getTo(previous)) * PIECE_SQUARES
+               + (Move.getPieceFrom(move) + 6) * 64 + Move.getTo(move);
+    }
+
+    /**
+     * returns the score of the packed move as a reply to the previous packed move.
+     * @param previous      the previous move. Must not be 0
+     * @param move
+     * @return
+     */
+    public int get(int previous, int move){
+        return scores[index(previous, move)];
+    }
+
+    /**
+     * adds the bonus (or a malus if it is negative) to the score of the move as a reply to the previous move.
+     * @param previous      the previous move. Must not be 0
+     * @param move
+     * @param bonus         a value inside [-HistoryTable.MAX_HISTORY, HistoryTable.MAX_HISTORY]
+     */
+    public void update(int previous, int move, int bonus){
+        int index = index(previous, move);
+        scores[index] += bonus - scores[index] * Math.abs(bonus) / HistoryTable.MAX_HISTORY;
+    }
+
+    /**
+     * halves all scores so the results of a new search get more weight than the ones of the previous searches.
+     */
+    public void age(){
+        for(int i = 0; i < scores.length; i++){
+            scores[i] /= 2;
+        }
+    }
+
+    public void clear(){
+        Arrays.fill(scores, (short) 0);
+    }
+}
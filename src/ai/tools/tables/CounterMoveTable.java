@@ -1,14 +1,44 @@
 package ai.tools.tables;
 
-import ai.tools.tensor.Tensor2D;
-import ai.tools.tensor.Tensor4D;
+import board.moves.Move;
 
-public class CounterMoveTable extends Tensor4D {
+import java.util.Arrays;
 
-    public CounterMoveTable() {
-        super(6,64,6,64);
+/**
+ * the counter move history: stores a score for each pair of (previous piece, previous target, piece, target)
+ * where the previous move has been played directly before the scored move (see ContinuationHistoryTable).
+ * Additionally the last quiet move which caused a beta cutoff as a reply to a previous move is stored as the
+ * counter move of that previous move.
+ */
+public class CounterMoveTable extends ContinuationHistoryTable {
+
+    private int[] counterMoves = new int[13 * 64];
+
+    private int index(int previous){
+        return (Move.getPieceFrom(previous) + 6) * 64 + Move.getTo(previous);
     }
 
+    /**
+     * stores the packed move as the counter move to the given previous move
+     * @param previous
+     * @param move
+     */
+    public void setCounterMove(int previous, int move){
+        counterMoves[index(previous)] = move;
+    }
 
+    /**
+     * returns the counter move to the given previous move or 0 if there is none
+     * @param previous
+     * @return
+     */
+    public int getCounterMove(int previous){
+        return counterMoves[index(previous)];
+    }
 
+    @Override
+    public void clear() {
+        super.clear();
+        Arrays.fill(counterMoves, 0);
+    }
 }
@@ -0,0 +1,59 @@
+package ai.tools.tables;
+
+import java.util.Arrays;
+
+/**
+ * a small lossy cache for static evaluations indexed by the zobrist key.
+ * Each entry is a single long which contains the upper 32 bits of the key and the evaluation:
+ *
+ *      bits  0 - 31    the evaluation
+ *      bits 32 - 63    upper 32 bits of the zobrist key
+ *
+ * Entries are always replaced. The lower bits of the key are used as the index so together with the
+ * stored upper bits most of the key is verified.
+ */
+public class EvalCache {
+
+    public static final int DEFAULT_SIZE        = 1 << 16;
+    public static final int NO_VALUE            = Integer.MIN_VALUE;
+
+    private static final long MASK_KEY          = 0xFFFFFFFF00000000L;
+
+    private final long[]    entries;
+    private final int       mask;
+
+    /**
+     * creates a new cache.
+     * @param size      the amount of entries. Has to be a power of two.
+     */
+    public EvalCache(int size) {
+        this.entries = new long[size];
+        this.mask = size - 1;
+    }
+
+    /**
+     * returns the cached evaluation for the given key or NO_VALUE if it is not stored.
+     * @param key
+     * @return
+     */
+    public int get(long key){
+        long entry = entries[(int) key & mask];
+        if(((entry ^ key) & MASK_KEY) != 0){
+            return NO_VALUE;
+        }
+        return (int) entry;
+    }
+
+    /**
+     * stores the evaluation for the given key
+     * @param key
+     * @param eval
+     */
+    public void put(long key, int eval){
+        entries[(int) key & mask] = (key & MASK_KEY) | (eval & 0xFFFFFFFFL);
+    }
+
+    public void clear(){
+        Arrays.fill(entries, 0L);
+    }
+}
@@ -1,13 +1,66 @@
 package ai.tools.tables;
 
-import ai.tools.tensor.Tensor2D;
+import board.moves.Move;
 
-public class HistoryTable extends Tensor2D {
+import java.util.Arrays;
 
-    public HistoryTable() {
-        super(64,64);
+/**
+ * stores a score for each quiet move indexed by the moving piece (which includes its color) and the target square.
+ * Quiet moves which cause a beta cutoff get a bonus while the quiet moves which have been searched before without
+ * a cutoff get the same amount as a malus.
+ *
+ * The updates use a gravity formula: the closer an entry is to MAX_HISTORY, the smaller the effect of further
+ * bonuses. Therefor the scores always stay inside [-MAX_HISTORY, MAX_HISTORY] and older results fade out.
+ */
+public class HistoryTable {
+
+    public static final int MAX_HISTORY     = 1 << 14;
+    public static final int MAX_BONUS       = 1200;
+
+    private final int[] scores = new int[13 * 64];
+
+    private static int index(int move){
+        return (Move.getPieceFrom(move) + 6) * 64 + Move.getTo(move);
+    }
+
+    /**
+     * returns the bonus for a cutoff with the given remaining depth
+     * @param depthLeft
+     * @return
+     */
+    public static int bonus(int depthLeft){
+        return Math.min(16 * depthLeft * depthLeft, MAX_BONUS);
     }
 
+    /**
+     * returns the history score of the packed move
+     * @param move
+     * @return
+     */
+    public int get(int move){
+        return scores[index(move)];
+    }
 
+    /**
+     * adds the bonus (or a malus if it is negative) to the score of the packed move
+     * @param move
+     * @param bonus     a value inside [-MAX_HISTORY, MAX_HISTORY]
+     */
+    public void update(int move, int bonus){
+        int index = index(move);
+        scores[index] += bonus - scores[index] * Math.abs(bonus) / MAX_HISTORY;
+    }
 
+    /**
+     * halves all scores so the results of a new search get more weight than the ones of the previous searches.
+     */
+    public void age(){
+        for(int i = 0; i < scores.length; i++){
+            scores[i] /= 2;
+        }
+    }
+
+    public void clear(){
+        Arrays.fill(scores, 0);
+    }
 }
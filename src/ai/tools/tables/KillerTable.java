@@ -4,7 +4,7 @@ import board.moves.Move;
 
 public class KillerTable {
 
-    private Move[] moves;
+    private int[] moves;                //packed moves. 0 if there is no killer
     private int[] indices;
 
     private int max_depth;
@@ -13,19 +13,28 @@ public class KillerTable {
     public KillerTable(int depth, int moves_per_depth){
         this.max_depth = depth;
         this.moves_per_depth = moves_per_depth;
-        this.moves = new Move[max_depth * moves_per_depth];
+        this.moves = new int[max_depth * moves_per_depth];
         this.indices = new int[max_depth];
     }
 
-    public void put(int depth, Move move){
+    public void put(int depth, int move){
         this.moves[depth * moves_per_depth + indices[depth]] = move;
         this.indices[depth] = (this.indices[depth] + 1) % moves_per_depth;
     }
 
-    public boolean isKillerMove(int depth, Move move){
+    /**
+     * returns the killer with the given index at the given depth or 0 if there is none
+     * @param depth
+     * @param index
+     * @return
+     */
+    public int getKiller(int depth, int index){
+        return this.moves[depth * moves_per_depth + index];
+    }
+
+    public boolean isKillerMove(int depth, int move){
         for(int i = depth * moves_per_depth; i < (depth + 1) * moves_per_depth; i++){
-            if(this.moves[i] == null) continue;
-            if(move.equals(moves[i])){
+            if(move == moves[i]){
                 return true;
             }
         }
@@ -34,8 +43,8 @@ public class KillerTable {
 
     public static void main(String[] args) {
         KillerTable table = new KillerTable(5,3);
-        table.put(3,new Move(1,2,3,4));
-        System.out.println(table.isKillerMove(3, new Move(1,2,3,4)));
+        table.put(3,new Move(1,2,3,4).packMove());
+        System.out.println(table.isKillerMove(3, new Move(1,2,3,4).packMove()));
     }
 
     public int getMax_depth() {
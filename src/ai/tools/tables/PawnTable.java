@@ -0,0 +1,110 @@
+package ai.tools.tables;
+
+import java.util.Arrays;
+
+/**
+ * a fixed size hash table for the pawn structure evaluation.
+ * Entries are indexed by the pawn zobrist key of the board (see FastBoard#getPawnZobrist()) and are always replaced.
+ * Each entry stores a fixed amount of values which is chosen by the evaluator and the passed pawns of both sides.
+ *
+ * The table counts its probes and hits so the hit rate can be reported.
+ */
+public class PawnTable {
+
+    public static final int DEFAULT_SIZE        = 1 << 14;
+
+    private final long[]    keys;
+    private final int[]     values;
+    private final long[]    passedPawns;
+    private final int       valuesPerEntry;
+    private final int       mask;
+
+    private long            probes;
+    private long            hits;
+
+    /**
+     * creates a new table.
+     * @param size              the amount of entries. Has to be a power of two.
+     * @param valuesPerEntry    the amount of values stored for each pawn structure
+     */
+    public PawnTable(int size, int valuesPerEntry) {
+        this.keys = new long[size];
+        this.values = new int[size * valuesPerEntry];
+        this.passedPawns = new long[size];
+        this.valuesPerEntry = valuesPerEntry;
+        this.mask = size - 1;
+    }
+
+    /**
+     * looks for the given key and returns the index of its entry or -1 if it is not stored.
+     * @param key
+     * @return
+     */
+    public int probe(long key){
+        probes ++;
+        int index = (int) key & mask;
+        if(keys[index] == key){
+            hits ++;
+            return index;
+        }
+        return -1;
+    }
+
+    /**
+     * replaces the entry for the given key and returns its index. The values are not cleared.
+     * @param key
+     * @return
+     */
+    public int store(long key){
+        int index = (int) key & mask;
+        keys[index] = key;
+        return index;
+    }
+
+    public int getValue(int entry, int value){
+        return values[entry * valuesPerEntry + value];
+    }
+
+    public void setValue(int entry, int value, int val){
+        values[entry * valuesPerEntry + value] = val;
+    }
+
+    public long getPassedPawns(int entry){
+        return passedPawns[entry];
+    }
+
+    public void setPassedPawns(int entry, long passed){
+        passedPawns[entry] = passed;
+    }
+
+    /**
+     * removes all entries. This is required if the evaluation parameters change.
+     */
+    public void clear(){
+        //the values are cleared as well because the key of a position without pawns is 0 and matches empty entries
+        Arrays.fill(keys, 0L);
+        Arrays.fill(values, 0);
+        Arrays.fill(passedPawns, 0L);
+    }
+
+    public void resetStatistics(){
+        probes = 0;
+        hits = 0;
+    }
+
+    public long getProbes() {
+        return probes;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    /**
+     * returns the percentage of probes which found an entry
+     * @return
+     */
+    public double getHitRate(){
+        return probes == 0 ? 0 : 100d * hits / probes;
+    }
+}
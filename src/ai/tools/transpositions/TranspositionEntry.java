@@ -1,14 +1,41 @@
 package ai.tools.transpositions;
 
-import board.moves.Move;
-
+/**
+ * the transposition entry is a decoded view of a single slot inside the {@link TranspositionTable}.
+ * The table itself only stores primitive longs. An entry is filled by {@link TranspositionTable#probe}
+ * and can be reused for multiple probes to avoid allocations during the search.
+ *
+ * The data of an entry is packed into a single long:
+ *
+ *      bits  0 - 15    compressed best move (see Move#compress())
+ *      bits 16 - 47    score
+ *      bits 48 - 55    depth left
+ *      bits 56 - 57    node type
+ *      bit  58         color (0 = white, 1 = black)
+ *      bits 59 - 63    age (the generation of the search which stored the entry)
+ */
 public class TranspositionEntry {
 
     public static final byte PV_NODE = 1;
     public static final byte CUT_NODE = 2;
     public static final byte ALL_NODE = 3;
 
-    private double val;
+    public static final int  NO_STATIC_EVAL = Integer.MIN_VALUE;
+
+    private static final int  SHIFT_SCORE   = 16;
+    private static final int  SHIFT_DEPTH   = 48;
+    private static final int  SHIFT_TYPE    = 56;
+    private static final int  SHIFT_COLOR   = 58;
+    private static final int  SHIFT_AGE     = 59;
+
+    private static final long MASK_MOVE     = 0xFFFFL;
+    private static final long MASK_SCORE    = 0xFFFFFFFFL;
+    private static final long MASK_DEPTH    = 0xFFL;
+    private static final long MASK_TYPE     = 0x3L;
+    private static final long MASK_COLOR    = 0x1L;
+    public  static final int  MASK_AGE      = 0x1F;
+
+    private int val;
 
     private long zobrist;
 
@@ -16,18 +43,14 @@ public class TranspositionEntry {
 
     private int node_type;
     private int color;
-    private Move bestMove;
+    private int bestMove;
+    private int age;
+    private int staticEval;             //not part of the packed data. NO_STATIC_EVAL if unknown
 
-    public TranspositionEntry(double val, int depthLeft, int node_type, int color, Move bestMove) {
-        this.val = val;
-        this.zobrist = zobrist;
-        this.depthLeft = depthLeft;
-        this.node_type = node_type;
-        this.color = color;
-        this.bestMove = bestMove;
+    public TranspositionEntry() {
     }
 
-    public TranspositionEntry(long zobrist, double val, int depthLeft, int node_type, int color, Move bestMove) {
+    public TranspositionEntry(long zobrist, int val, int depthLeft, int node_type, int color, int bestMove) {
         this.val = val;
         this.zobrist = zobrist;
         this.depthLeft = depthLeft;
@@ -36,6 +59,66 @@ public class TranspositionEntry {
         this.bestMove = bestMove;
     }
 
+    /**
+     * packs the given values into a single long which can be stored inside the table.
+     * the depth is clamped to [0,255].
+     * @param val
+     * @param depthLeft
+     * @param node_type
+     * @param color
+     * @param bestMove      the compressed best move
+     * @param age           the generation of the current search
+     * @return
+     */
+    public static long pack(int val, int depthLeft, int node_type, int color, int bestMove, int age){
+        long score = val;
+        long depth = Math.max(0, Math.min(255, depthLeft));
+        return   (bestMove      & MASK_MOVE)
+              | ((score         & MASK_SCORE)   << SHIFT_SCORE)
+              | ((depth         & MASK_DEPTH)   << SHIFT_DEPTH)
+              | ((node_type     & MASK_TYPE)    << SHIFT_TYPE)
+              | ((color == 1 ? 0L : 1L)         << SHIFT_COLOR)
+              | ((age           & (long)MASK_AGE)<< SHIFT_AGE);
+    }
+
+    public static int unpackMove(long data){
+        return (int) (data & MASK_MOVE);
+    }
+
+    public static int unpackScore(long data){
+        return (int) ((data >>> SHIFT_SCORE) & MASK_SCORE);
+    }
+
+    public static int unpackDepth(long data){
+        return (int) ((data >>> SHIFT_DEPTH) & MASK_DEPTH);
+    }
+
+    public static int unpackType(long data){
+        return (int) ((data >>> SHIFT_TYPE) & MASK_TYPE);
+    }
+
+    public static int unpackColor(long data){
+        return ((data >>> SHIFT_COLOR) & MASK_COLOR) == 0 ? 1 : -1;
+    }
+
+    public static int unpackAge(long data){
+        return (int) ((data >>> SHIFT_AGE) & MASK_AGE);
+    }
+
+    /**
+     * decodes the packed data into this entry
+     * @param zobrist
+     * @param data
+     */
+    public void unpack(long zobrist, long data){
+        this.zobrist = zobrist;
+        this.bestMove = unpackMove(data);
+        this.val = unpackScore(data);
+        this.depthLeft = unpackDepth(data);
+        this.node_type = unpackType(data);
+        this.color = unpackColor(data);
+        this.age = unpackAge(data);
+    }
 
     public long getZobrist() {
         return zobrist;
@@ -61,11 +144,23 @@ public class TranspositionEntry {
         this.node_type = node_type;
     }
 
-    public double getVal() {
+    /**
+     * returns the static evaluation from whites view or NO_STATIC_EVAL if it is unknown
+     * @return
+     */
+    public int getStaticEval() {
+        return staticEval;
+    }
+
+    public void setStaticEval(int staticEval) {
+        this.staticEval = staticEval;
+    }
+
+    public int getVal() {
         return val;
     }
 
-    public void setVal(double val) {
+    public void setVal(int val) {
         this.val = val;
     }
 
@@ -77,11 +172,23 @@ public class TranspositionEntry {
         this.depthLeft = depthLeft;
     }
 
-    public Move getBestMove() {
+    /**
+     * returns the compressed best move. (see Move#compress())
+     * @return
+     */
+    public int getBestMove() {
         return bestMove;
     }
 
-    public void setBestMove(Move bestMove) {
+    public void setBestMove(int bestMove) {
         this.bestMove = bestMove;
     }
-}
\ No newline at end of file
+
+    public int getAge() {
+        return age;
+    }
+
+    public void setAge(int age) {
+        this.age = age;
+    }
+}
@@ -1,82 +1,266 @@
 package ai.tools.transpositions;
 
-import java.util.HashMap;
-import java.util.Hashtable;
-import java.util.Map;
+import java.util.Arrays;
 
-public class TranspositionTable<V> extends Hashtable<Long, V> {//extends HashMap<Long, V> {
+/**
+ * a fixed size transposition table.
+ * The memory is allocated once and split into buckets of BUCKET_SIZE entries.
+ * Each entry consists of two longs and an int which are stored in parallel arrays:
+ *
+ *      keys[i]     the full zobrist key xor the packed entry
+ *      data[i]     the packed entry (see {@link TranspositionEntry#pack})
+ *      evals[i]    the static evaluation of the position from whites view or TranspositionEntry.NO_STATIC_EVAL if it is not known
+ *
+ * The amount of buckets is always a power of two so the bucket of a key can be computed by masking.
+ *
+ * The table is shared between multiple search threads without any locking. Because the key is stored xor the data,
+ * an entry which has been written by two threads at the same time will not verify and is simply treated as missing.
+ * The static evaluation is not covered by this check and is only used as a hint by the search.
+ *
+ * The table is kept between searches. Every search increments the generation of the table
+ * so entries of previous searches can be recognised and replaced first.
+ */
+public class TranspositionTable {
 
-    public TranspositionTable(int initialCapacity, float loadFactor) {
-        super(initialCapacity, loadFactor);
+    public static final int     BUCKET_SIZE             = 4;
+    public static final int     ENTRY_SIZE              = 2 * Long.BYTES + Integer.BYTES;
+    public static final int     DEFAULT_SIZE_MB         = 16;
+    public static final int     MAXIMUM_SIZE_MB         = 4096;
+
+    private long[]  keys;
+    private long[]  data;
+    private int[]   evals;
+
+    private int     sizeMB;
+    private int     bucketMask;
+    private volatile int generation;
+
+    public TranspositionTable() {
+        this(DEFAULT_SIZE_MB);
     }
 
-    public TranspositionTable(int initialCapacity) {
-        super(initialCapacity);
+    public TranspositionTable(int sizeMB) {
+        this.resize(sizeMB);
     }
 
-    public TranspositionTable() {
+    /**
+     * reallocates the table with the given size in MB. The amount of entries is rounded down
+     * to the next power of two. All entries are lost.
+     * @param sizeMB
+     */
+    public void resize(int sizeMB){
+        sizeMB = Math.max(1, Math.min(MAXIMUM_SIZE_MB, sizeMB));
+
+        long entries = (long) sizeMB * 1024 * 1024 / ENTRY_SIZE;
+        long buckets = Long.highestOneBit(entries / BUCKET_SIZE);
+
+        this.keys = null;
+        this.data = null;
+        this.evals = null;
+
+        this.sizeMB = sizeMB;
+        this.bucketMask = (int) (buckets - 1);
+        this.keys = new long[(int) (buckets * BUCKET_SIZE)];
+        this.data = new long[(int) (buckets * BUCKET_SIZE)];
+        this.evals = new int[(int) (buckets * BUCKET_SIZE)];
     }
 
-    public TranspositionTable(Map<? extends Long, ? extends V> t) {
-        super(t);
-    }
-//    public TranspositionTable(int initialCapacity, float loadFactor) {
-//        super(initialCapacity, loadFactor);
-//    }
-//
-//    public TranspositionTable(int initialCapacity) {
-//        super(initialCapacity);
-//    }
-//
-//    public TranspositionTable() {
-//    }
-//
-//    public TranspositionTable(Map<? extends Long, ? extends V> m) {
-//        super(m);
-//    }
-
-//    private V[] ar;
-//    private int size;
-//
-//    private int maxSize;
-//    private long hashMask;
-//
-//    public TranspositionTable(int keyBits){
-//        this.maxSize = (int)(Math.pow(2, keyBits));
-//        this.hashMask =  maxSize - 1;
-//        this.ar = (V[]) new Object[maxSize];
-//    }
-//
-//    public V get(long key){
-//        int index = (int)(hashMask & key);
-//        return ar[index];
-//    }
-//
-//    public void clear(){
-//        for(int i = 0; i < ar.length; i++){
-//            ar[i] = null;
-//        }
-//    }
-//
-//    public void remove(long key){
-//        int index = (int)(hashMask & key);
-//        ar[index] = null;
-//    }
-//
-//    public int size(){
-//        return size;
-//    }
-//
-//    public void put(long key, V value){
-//        if(size() >= maxSize){
-//            return;
-//        }
-//        int index = (int)(hashMask & key);
-//        if(ar[index] == null){
-//            size++;
-//        }
-//        ar[index] = value;
-//    }
+    /**
+     * removes all entries from the table
+     */
+    public void clear(){
+        for(int i = 0; i < keys.length; i++){
+            keys[i] = 0;
+            data[i] = 0;
+            evals[i] = 0;
+        }
+        generation = 0;
+    }
 
+    /**
+     * removes the static evaluations of all entries. The other information of the entries is kept.
+     * Needs to be called if the evaluation function has been changed.
+     */
+    public void clearStaticEvals(){
+        Arrays.fill(evals, TranspositionEntry.NO_STATIC_EVAL);
+    }
 
+    /**
+     * increments the generation. Needs to be called at the start of each search.
+     */
+    public void newSearch(){
+        generation = (generation + 1) & TranspositionEntry.MASK_AGE;
+    }
+
+    /**
+     * returns how many searches ago the given entry has been stored.
+     * @param data
+     * @return
+     */
+    private int ageDistance(long data){
+        return (generation - TranspositionEntry.unpackAge(data)) & TranspositionEntry.MASK_AGE;
+    }
+
+    /**
+     * the value used to decide which entry of a bucket to replace. Entries with a lower value are replaced first.
+     * Each search which has passed since the entry was stored counts as much as 8 plies of depth.
+     * @param data
+     * @return
+     */
+    private int replacementValue(long data){
+        return TranspositionEntry.unpackDepth(data) - 8 * ageDistance(data);
+    }
+
+    /**
+     * returns the index of the first entry in the bucket for the given zobrist key
+     * @param zobrist
+     * @return
+     */
+    private int bucket(long zobrist){
+        return ((int) zobrist & bucketMask) * BUCKET_SIZE;
+    }
+
+    /**
+     * returns the index of the entry for the given zobrist key and color or -1 if there is no such entry.
+     * @param zobrist
+     * @param color
+     * @return
+     */
+    private int lookup(long zobrist, int color){
+        int start = bucket(zobrist);
+        for(int i = start; i < start + BUCKET_SIZE; i++){
+            long d = data[i];
+            if(d != 0 && (keys[i] ^ d) == zobrist && TranspositionEntry.unpackColor(d) == color){
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * looks up the entry for the given zobrist key and color.
+     * If an entry exists, it is decoded into the given entry object and true is returned.
+     * @param zobrist
+     * @param color
+     * @param entry     the object to fill
+     * @return          true if an entry has been found
+     */
+    public boolean probe(long zobrist, int color, TranspositionEntry entry){
+        int index = lookup(zobrist, color);
+        if(index == -1) return false;
+        entry.unpack(zobrist, data[index]);
+        entry.setStaticEval(evals[index]);
+        return true;
+    }
+
+    /**
+     * returns the compressed best move for the given zobrist key and color or 0 if there is no entry.
+     * @param zobrist
+     * @param color
+     * @return
+     */
+    public int getMove(long zobrist, int color){
+        int index = lookup(zobrist, color);
+        return index == -1 ? 0 : TranspositionEntry.unpackMove(data[index]);
+    }
+
+    /**
+     * returns the static evaluation stored for the given zobrist key and color or
+     * TranspositionEntry.NO_STATIC_EVAL if it is unknown.
+     * @param zobrist
+     * @param color
+     * @return
+     */
+    public int getStaticEval(long zobrist, int color){
+        int index = lookup(zobrist, color);
+        return index == -1 ? TranspositionEntry.NO_STATIC_EVAL : evals[index];
+    }
+
+    /**
+     * stores a new entry in the table.
+     * If an entry for the same position exists and has been stored during the current search, it will not be
+     * overwritten by a non pv-entry if it is a pv-entry and it will not be overwritten if its depth is larger than the new one.
+     * Entries of previous searches are always overwritten.
+     * Otherwise the entry with the lowest depth and the highest age inside the bucket will be replaced.
+     *
+     * @param zobrist
+     * @param color
+     * @param val
+     * @param depthLeft
+     * @param node_type
+     * @param bestMove      the compressed best move
+     * @param staticEval    the static evaluation from whites view or TranspositionEntry.NO_STATIC_EVAL if it is unknown
+     */
+    public void put(long zobrist, int color, int val, int depthLeft, int node_type, int bestMove, int staticEval){
+        int start = bucket(zobrist);
+        int index = start;
+        int lowest = Integer.MAX_VALUE;
+
+        for(int i = start; i < start + BUCKET_SIZE; i++){
+            long d = data[i];
+            if(d == 0){
+                if(lowest != Integer.MIN_VALUE){
+                    index = i;
+                    lowest = Integer.MIN_VALUE;
+                }
+                continue;
+            }
+            if((keys[i] ^ d) == zobrist && TranspositionEntry.unpackColor(d) == color){
+                if(ageDistance(d) == 0){
+                    if(TranspositionEntry.unpackType(d) == TranspositionEntry.PV_NODE && node_type != TranspositionEntry.PV_NODE) return;
+                    if(TranspositionEntry.unpackDepth(d) > depthLeft) return;
+                }
+                index = i;
+                break;
+            }
+            int value = replacementValue(d);
+            if(value < lowest){
+                index = i;
+                lowest = value;
+            }
+        }
+
+        long d = TranspositionEntry.pack(val, depthLeft, node_type, color, bestMove, generation);
+        data[index] = d;
+        keys[index] = zobrist ^ d;
+        evals[index] = staticEval;
+    }
+
+    /**
+     * returns the permille of entries used by the current search by sampling the first 1000 entries
+     * (used for the uci hashfull info)
+     * @return
+     */
+    public int usage(){
+        int samples = Math.min(1000, data.length);
+        int used = 0;
+        for(int i = 0; i < samples; i++){
+            if(data[i] != 0 && ageDistance(data[i]) == 0) used++;
+        }
+        return used * 1000 / samples;
+    }
+
+    /**
+     * returns the amount of entries which can be stored
+     * @return
+     */
+    public int capacity(){
+        return keys.length;
+    }
+
+    /**
+     * returns the current generation
+     * @return
+     */
+    public int getGeneration() {
+        return generation;
+    }
+
+    /**
+     * returns the size of the table in MB
+     * @return
+     */
+    public int getSizeMB() {
+        return sizeMB;
+    }
 }
@@ -14,7 +14,6 @@ public abstract class Board<T extends Board<T>> {
 
     protected byte activePlayer = 1;
     private boolean isEndgame = false;
-    protected Stack<Move> moveHistory = new Stack<>();
 
     public Board(Setup setup) {
         this.setup(setup);
@@ -28,12 +27,27 @@ public abstract class Board<T extends Board<T>> {
     /**
      * The methods returns a Stack of the move history.
      * <p>
-     * Note that castling equals 2 Moves on the Stack.
+     * Note that castling only pushes the king move. The rook move is implied.
+     * The stack is created on demand and should not be used inside the search.
      * @return
      */
-    public Stack<Move> getMoveHistory() {
-        return moveHistory;
-    }
+    public abstract Stack<Move> getMoveHistory();
+
+    /**
+     * returns the last move that has been made as a packed move (see Move#create()).
+     * returns 0 if there is no previous move or the previous move was a null move.
+     * @return
+     */
+    public abstract int getLastMove();
+
+    /**
+     * returns the move that has been made the given amount of plies before the last move as a packed move.
+     * getLastMove(0) equals getLastMove().
+     * returns 0 if there is no such move or it was a null move.
+     * @param plies
+     * @return
+     */
+    public abstract int getLastMove(int plies);
 
     /**
      * The method resets the board.
@@ -113,47 +127,52 @@ public abstract class Board<T extends Board<T>> {
      * active player.
      * The method might return null if and only if the previous move from
      * the opponent was an illegal move
+     * The moves are written into the given list as packed moves.
      * @return All the available moves
      */
-    public abstract List<Move> getPseudoLegalMoves(MoveList list);
+    public abstract MoveList getPseudoLegalMoves(MoveList list);
 
     /**
-     * It returns a list of all moves that are available for the current
+     * It returns a list of all legal moves that are available for the current
      * active player.
      * <p>
-     * This method does check mate threats and will return a zero list
-     * if the king is checkmated.
-     * it should return an empty list if the king is checkmates
-     * if the king is stalemated, the list should contain a single null move
+     * The list is empty if the king is checkmated or stalemated.
+     * The moves are written into the given list as packed moves.
      *
      * @return All the available moves
      */
-    public abstract List<Move> getLegalMoves(MoveList list);
+    public abstract MoveList getLegalMoves(MoveList list);
 
     /**
-     * It returns a list of all moves that are available for the current
+     * It returns a list of all legal moves that are available for the current
      * active player.
      * <p>
-     * This method does check mate threats and will return a zero list
-     * if the king is checkmated.
-     * it should return an empty list if the king is checkmates
-     * if the king is stalemated, the list should contain a single null move
+     * The list is empty if the king is checkmated or stalemated.
      *
      * @return All the available moves
      */
     public abstract List<Move> getLegalMoves();
 
     /**
-     * returns a list off all moves that capture a piece.
+     * returns a list off all legal moves that capture a piece or promote a pawn.
      * @return
      */
     public abstract List<Move> getCaptureMoves();
 
     /**
-     * returns a list off all moves that capture a piece.
+     * returns a list off all legal moves that capture a piece or promote a pawn.
+     * The moves are written into the given list as packed moves.
      * @return
      */
-    public abstract List<Move> getCaptureMoves(MoveList list);
+    public abstract MoveList getCaptureMoves(MoveList list);
+
+    /**
+     * returns a list of all legal moves which give check without capturing a piece or promoting a pawn.
+     * Castling moves are not included.
+     * The moves are written into the given list as packed moves.
+     * @return
+     */
+    public abstract MoveList getQuietChecks(MoveList list);
 
 
 
@@ -174,6 +193,16 @@ public abstract class Board<T extends Board<T>> {
      */
     public abstract boolean isDraw();
 
+    /**
+     * The method returns true if the position should be scored as a draw inside the search.
+     * A position that already occurred within the last searchDepth plies counts as a draw after a single repetition
+     * because the player could simply repeat it again. Older positions still require a three fold repetition.
+     *
+     * @param searchDepth   the distance to the root of the search
+     * @return      true if the position is a draw, otherwise false.
+     */
+    public abstract boolean isDraw(int searchDepth);
+
 
 
 
@@ -306,7 +335,15 @@ public abstract class Board<T extends Board<T>> {
      *  - processing Castling moves
      * @param m     the move to process
      */
-    public abstract void move(Move m);
+    public void move(Move m){
+        move(m.packMove());
+    }
+
+    /**
+     * processes the packed move on the board (see {@link #move(Move)})
+     * @param move  the packed move to process
+     */
+    public abstract void move(int move);
 
     /**
      * this method should undo the last move and change the active player.
@@ -328,14 +365,32 @@ public abstract class Board<T extends Board<T>> {
      * @param m
      * @return
      */
-    public abstract boolean isLegal(Move m);
+    public boolean isLegal(Move m){
+        return isLegal(m.packMove());
+    }
+
+    /**
+     * tests if the given packed move is legal or not
+     * @param move
+     * @return
+     */
+    public abstract boolean isLegal(int move);
 
     /**
      * returns true if the move puts the opponent king into check
      * @param m
      * @return
      */
-    public abstract boolean givesCheck(Move m);
+    public boolean givesCheck(Move m){
+        return givesCheck(m.packMove());
+    }
+
+    /**
+     * returns true if the packed move puts the opponent king into check
+     * @param move
+     * @return
+     */
+    public abstract boolean givesCheck(int move);
 
     /**
      * generates a new move object that can later be used for the move() method.
@@ -346,6 +401,23 @@ public abstract class Board<T extends Board<T>> {
      */
     public abstract Move generateMove(int from, int to, int promotionTarget);
 
+    /**
+     * generates a packed move (see Move#create()) for the given squares. The type of the move is derived from the board.
+     * @param from
+     * @param to
+     * @param promotionTarget
+     * @return
+     */
+    public abstract int generatePackedMove(int from, int to, int promotionTarget);
+
+    /**
+     * returns true if the packed move could have been generated by getPseudoLegalMoves() in the current position.
+     * This is used to verify moves which have not been generated for this position (e.g. moves from the transposition table).
+     * @param move
+     * @return
+     */
+    public abstract boolean isPseudoLegal(int move);
+
     /**
      * this method should create an exact deep copy of the board.
      * it should take care of the following:
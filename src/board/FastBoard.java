@@ -4,7 +4,6 @@ import board.bitboards.BitBoard;
 import board.moves.Move;
 import board.moves.MoveList;
 import board.pieces.PieceList;
-import board.repetitions.RepetitionList;
 import board.setup.Setup;
 import io.IO;
 import visual.Frame;
@@ -15,76 +14,15 @@ import java.util.function.Consumer;
 
 public class FastBoard extends Board<FastBoard> {
 
-    private class BoardStatus{
+    public static final long    MASK_WHITE_QUEENSIDE_CASTLING     = 1L << 0;
+    public static final long    MASK_WHITE_KINGSIDE_CASTLING      = 1L << 1;
+    public static final long    MASK_BLACK_QUEENSIDE_CASTLING     = 1L << 2;
+    public static final long    MASK_BLACK_KINGSIDE_CASTLING      = 1L << 3;
 
-        public static final short MASK_NONE                         = (short)0;
-        public static final short MASK_WHITE_QUEENSIDE_CASTLING     = (short)1 << 0;
-        public static final short MASK_WHITE_KINGSIDE_CASTLING      = (short)1 << 1;
-        public static final short MASK_BLACK_QUEENSIDE_CASTLING     = (short)1 << 2;
-        public static final short MASK_BLACK_KINGSIDE_CASTLING      = (short)1 << 3;
+    public static final long    MASK_WINNER_WHITE                 = 1L << 13;
+    public static final long    MASK_WINNER_BLACK                 = 1L << 14;
 
-        public static final short MASK_DRAW_BY_THREE_FOLD           = (short)1 << 12;
-        public static final short MASK_WINNER_WHITE                 = (short)1 << 13;
-        public static final short MASK_WINNER_BLACK                 = (short)1 << 14;
-
-
-        private long            enPassantTarget;
-        private long            metaInformation;
-        private int             fiftyMoveCounter;
-
-        public BoardStatus(long enPassantTarget, long metaInformation, int fiftyMoveCounter) {
-            this.enPassantTarget = enPassantTarget;
-            this.metaInformation = metaInformation;
-            this.fiftyMoveCounter = fiftyMoveCounter;
-        }
-
-        public BoardStatus() {
-        }
-
-        public long getEnPassantTarget() {
-            return enPassantTarget;
-        }
-
-        public void setEnPassantTarget(long enPassantTarget) {
-            this.enPassantTarget = enPassantTarget;
-        }
-
-        public long getMetaInformation() {
-            return metaInformation;
-        }
-
-        public void setMetaInformation(long metaInformation) {
-            this.metaInformation = metaInformation;
-        }
-
-
-        public int getFiftyMoveCounter() {
-            return fiftyMoveCounter;
-        }
-
-        public void setFiftyMoveCounter(int fiftyMoveCounter) {
-            this.fiftyMoveCounter = fiftyMoveCounter;
-        }
-
-        public BoardStatus copy() {
-            return new BoardStatus(enPassantTarget, metaInformation, fiftyMoveCounter);
-        }
-
-        @Override
-        public boolean equals(Object o) {
-            if (this == o) return true;
-            if (o == null || getClass() != o.getClass()) return false;
-            BoardStatus that = (BoardStatus) o;
-            return enPassantTarget == that.enPassantTarget &&
-                   metaInformation == that.metaInformation &&
-                   fiftyMoveCounter == that.fiftyMoveCounter;
-        }
-
-        @Override
-        public int hashCode() {
-            return Objects.hash(enPassantTarget, metaInformation, fiftyMoveCounter);
-        }
-    }
+    public static final int     INITIAL_HISTORY_SIZE              = 1024;
 
 
     private long[]          white_values;        //bitmap for each white piece
@@ -97,11 +35,26 @@ public class FastBoard extends Board<FastBoard> {
     private PieceList[]     white_pieces;
     private PieceList[]     black_pieces;
 
-    private RepetitionList  repetitionList;
+    private PieceSquareTables pieceSquareTables; //the tables whose sums are maintained. supplied by the evaluator
+    private int[][]         pst_early_table;     //early table of pieceSquareTables indexed by [piece + 6][square]
+    private int[][]         pst_late_table;      //late table of pieceSquareTables indexed by [piece + 6][square]
+    private int[]           pst_early;           //sum of the early piece square values for each piece type (white - black)
+    private int[]           pst_late;            //sum of the late piece square values for each piece type (white - black)
+
     private long            zobrist;
+    private long            pawnZobrist;         //zobrist key of the pawns only. Used for the pawn hash table
 
 
-    private Stack<BoardStatus> boardStatus;
+    /**
+     * the irreversible information of each position is stored in preallocated arrays indexed by the ply.
+     * making a move writes the next index, undoing a move simply decrements the ply.
+     */
+    private long[]          enPassantHistory;    //bitmap of the en passant target square
+    private long[]          metaHistory;         //castling rights (bits 0-3)
+    private int[]           fiftyMoveHistory;    //half moves since the last capture or pawn move
+    private int[]           moveHistory;         //the packed move which lead to the position. 0 for null moves
+    private long[]          zobristHistory;      //the zobrist key of each previous position. The current key is not stored
+    private int             ply;
 
 
     public FastBoard() {
@@ -118,8 +71,20 @@ public class FastBoard extends Board<FastBoard> {
         black_values = new long[6];
         team_total = new long[2];
         occupied = 0L;
-        boardStatus = new Stack<>();
-        boardStatus.add(new BoardStatus());
+        pawnZobrist = 0L;
+        pst_early = new int[6];
+        pst_late = new int[6];
+        if(pieceSquareTables == null){
+            pieceSquareTables = PieceSquareTables.EMPTY;
+            pst_early_table = pieceSquareTables.getEarly();
+            pst_late_table = pieceSquareTables.getLate();
+        }
+        enPassantHistory = new long[INITIAL_HISTORY_SIZE];
+        metaHistory = new long[INITIAL_HISTORY_SIZE];
+        fiftyMoveHistory = new int[INITIAL_HISTORY_SIZE];
+        moveHistory = new int[INITIAL_HISTORY_SIZE];
+        zobristHistory = new long[INITIAL_HISTORY_SIZE];
+        ply = 0;
         white_pieces = new PieceList[6];
         black_pieces = new PieceList[6];
         for (int i = 0; i < 6; i++) {
@@ -127,75 +92,213 @@ public class FastBoard extends Board<FastBoard> {
             black_pieces[i] = new PieceList(-(i+1));
         }
 
-        this.repetitionList = new RepetitionList();
         update_longs();
     }
 
-    public BoardStatus getBoardStatus(){
-        return boardStatus.lastElement();
+    /**
+     * pushes a new status onto the history. The arrays are only reallocated if a game
+     * gets longer than the current capacity.
+     * @param move
+     * @param enPassantTarget
+     * @param metaInformation
+     * @param fiftyMoveCounter
+     */
+    private void pushStatus(int move, long enPassantTarget, long metaInformation, int fiftyMoveCounter){
+        ply++;
+        if(ply == metaHistory.length){
+            enPassantHistory = Arrays.copyOf(enPassantHistory, ply * 2);
+            metaHistory = Arrays.copyOf(metaHistory, ply * 2);
+            fiftyMoveHistory = Arrays.copyOf(fiftyMoveHistory, ply * 2);
+            moveHistory = Arrays.copyOf(moveHistory, ply * 2);
+            zobristHistory = Arrays.copyOf(zobristHistory, ply * 2);
+        }
+        moveHistory[ply] = move;
+        enPassantHistory[ply] = enPassantTarget;
+        metaHistory[ply] = metaInformation;
+        fiftyMoveHistory[ply] = fiftyMoveCounter;
+    }
+
+    @Override
+    public Stack<Move> getMoveHistory() {
+        Stack<Move> stack = new Stack<>();
+        for(int i = 1; i <= ply; i++){
+            if(moveHistory[i] != 0){
+                stack.push(new Move(moveHistory[i]));
+            }
+        }
+        return stack;
+    }
+
+    @Override
+    public int getLastMove() {
+        return moveHistory[ply];
+    }
+
+    @Override
+    public int getLastMove(int plies) {
+        return plies <= ply ? moveHistory[ply - plies] : 0;
+    }
+
+    public long getEnPassantTarget(){
+        return enPassantHistory[ply];
+    }
+
+    public long getMetaInformation(){
+        return metaHistory[ply];
+    }
+
+    public int getFiftyMoveCounter(){
+        return fiftyMoveHistory[ply];
     }
 
     @Override
     public boolean getCastlingChance(int index) {
-        return (getBoardStatus().metaInformation & (1L << index)) != 0;
+        return (metaHistory[ply] & (1L << index)) != 0;
     }
 
     @Override
     public void setCastlingChance(int index, boolean value) {
         if(value){
-            getBoardStatus().metaInformation = (short)BitBoard.setBit(getBoardStatus().metaInformation, index);
+            metaHistory[ply] = BitBoard.setBit(metaHistory[ply], index);
         }else{
-            getBoardStatus().metaInformation = (short)BitBoard.unsetBit(getBoardStatus().metaInformation, index);
+            metaHistory[ply] = BitBoard.unsetBit(metaHistory[ply], index);
         }
     }
 
     @Override
     public int getCurrentRepetitionCount() {
-        return repetitionList.get(this.zobrist, getActivePlayer());
+        return countRepetitions(-1, Integer.MAX_VALUE) + 1;
+    }
+
+    /**
+     * counts how often the current position occurred before. Only every second position is compared
+     * because the same player has to be on move. The scan stops at the last capture or pawn move because
+     * no position before that can be repeated. It also stops at null moves.
+     * Castling rights are compared as well since they are not part of the zobrist key.
+     * @param searchDepth   positions which have been reached less than searchDepth plies ago are counted twice.
+     *                      use -1 to only count actual repetitions.
+     * @param limit         the scan stops as soon as the count reaches this limit
+     * @return
+     */
+    private int countRepetitions(int searchDepth, int limit){
+        int end = Math.min(fiftyMoveHistory[ply], ply);
+        int castling = (int) (metaHistory[ply] & 15);
+        int count = 0;
+        for(int i = 2; i <= end; i += 2){
+            if(moveHistory[ply - i + 1] == 0 || moveHistory[ply - i + 2] == 0) break;
+            if(zobristHistory[ply - i] == zobrist && (metaHistory[ply - i] & 15) == castling){
+                count += i < searchDepth ? 2 : 1;
+                if(count >= limit) break;
+            }
+        }
+        return count;
     }
 
     @Override
     public int getCurrent50MoveRuleCount() {
-        return getBoardStatus().getFiftyMoveCounter()/2;
+        return fiftyMoveHistory[ply]/2;
     }
 
     @Override
     public int getEnPassantSquare() {
-        int pos = BitBoard.bitscanForward(getBoardStatus().getEnPassantTarget());
+        int pos = BitBoard.bitscanForward(enPassantHistory[ply]);
         if(pos == 64) return -1;
         return pos;
     }
 
     @Override
     public void setEnPassantSquare(int square) {
-        if(square == 0) getBoardStatus().setEnPassantTarget(0L);
-        else getBoardStatus().setEnPassantTarget(1L << square);
+        if(square == 0) enPassantHistory[ply] = 0L;
+        else enPassantHistory[ply] = 1L << square;
     }
 
-    public void setPiece(int piece, int index) {
-        int p = getPiece(index);
-        if (p > 0) {
-            white_pieces[p - 1].remove(new Integer(index));
-            white_values[p - 1] = BitBoard.unsetBit(white_values[p - 1], index);
-            zobrist ^= BitBoard.white_hashes[p-1][index];
-        } else if (p < 0) {
-            black_pieces[-p - 1].remove(new Integer(index));
-            black_values[-p - 1] = BitBoard.unsetBit(black_values[-p - 1], index);
-            zobrist ^= BitBoard.black_hashes[-p - 1][index];
-        }
+    /**
+     * adds the piece to the given square. The square is expected to be empty.
+     * @param piece
+     * @param index
+     */
+    private void addPiece(int piece, int index){
+        long square = 1L << index;
         indexBoard[index] = piece;
-
+        pst_early[Math.abs(piece) - 1] += pst_early_table[piece + 6][index];
+        pst_late[Math.abs(piece) - 1] += pst_late_table[piece + 6][index];
         if (piece > 0) {
-
             white_pieces[piece - 1].add(index);
-            white_values[piece - 1] = BitBoard.setBit(white_values[piece - 1], index);
-            zobrist ^= BitBoard.white_hashes[piece-1][index];
-        } else if(piece < 0){
+            white_values[piece - 1] ^= square;
+            team_total[0] ^= square;
+            zobrist ^= BitBoard.white_hashes[piece - 1][index];
+            if(piece == 1) pawnZobrist ^= BitBoard.white_hashes[0][index];
+        } else {
             black_pieces[-piece - 1].add(index);
-            black_values[-piece - 1] = BitBoard.setBit(black_values[-piece - 1], index);
+            black_values[-piece - 1] ^= square;
+            team_total[1] ^= square;
             zobrist ^= BitBoard.black_hashes[-piece - 1][index];
+            if(piece == -1) pawnZobrist ^= BitBoard.black_hashes[0][index];
+        }
+        occupied ^= square;
+    }
+
+    /**
+     * removes the piece from the given square. The square is expected to be occupied.
+     * @param index
+     */
+    private void removePiece(int index){
+        long square = 1L << index;
+        int piece = indexBoard[index];
+        indexBoard[index] = 0;
+        pst_early[Math.abs(piece) - 1] -= pst_early_table[piece + 6][index];
+        pst_late[Math.abs(piece) - 1] -= pst_late_table[piece + 6][index];
+        if (piece > 0) {
+            white_pieces[piece - 1].remove(index);
+            white_values[piece - 1] ^= square;
+            team_total[0] ^= square;
+            zobrist ^= BitBoard.white_hashes[piece - 1][index];
+            if(piece == 1) pawnZobrist ^= BitBoard.white_hashes[0][index];
+        } else {
+            black_pieces[-piece - 1].remove(index);
+            black_values[-piece - 1] ^= square;
+            team_total[1] ^= square;
+            zobrist ^= BitBoard.black_hashes[-piece - 1][index];
+            if(piece == -1) pawnZobrist ^= BitBoard.black_hashes[0][index];
+        }
+        occupied ^= square;
+    }
+
+    /**
+     * moves the piece on the origin square to the target square. The target square is expected to be empty.
+     * @param from
+     * @param to
+     */
+    private void movePiece(int from, int to){
+        long squares = (1L << from) | (1L << to);
+        int piece = indexBoard[from];
+        indexBoard[from] = 0;
+        indexBoard[to] = piece;
+        pst_early[Math.abs(piece) - 1] += pst_early_table[piece + 6][to] - pst_early_table[piece + 6][from];
+        pst_late[Math.abs(piece) - 1] += pst_late_table[piece + 6][to] - pst_late_table[piece + 6][from];
+        if (piece > 0) {
+            white_pieces[piece - 1].move(from, to);
+            white_values[piece - 1] ^= squares;
+            team_total[0] ^= squares;
+            zobrist ^= BitBoard.white_hashes[piece - 1][from] ^ BitBoard.white_hashes[piece - 1][to];
+            if(piece == 1) pawnZobrist ^= BitBoard.white_hashes[0][from] ^ BitBoard.white_hashes[0][to];
+        } else {
+            black_pieces[-piece - 1].move(from, to);
+            black_values[-piece - 1] ^= squares;
+            team_total[1] ^= squares;
+            zobrist ^= BitBoard.black_hashes[-piece - 1][from] ^ BitBoard.black_hashes[-piece - 1][to];
+            if(piece == -1) pawnZobrist ^= BitBoard.black_hashes[0][from] ^ BitBoard.black_hashes[0][to];
+        }
+        occupied ^= squares;
+    }
+
+    public void setPiece(int piece, int index) {
+        if (indexBoard[index] != 0) {
+            removePiece(index);
+        }
+        if (piece != 0) {
+            addPiece(piece, index);
         }
-        update_longs();
     }
 
     @Override
@@ -216,8 +319,14 @@ public class FastBoard extends Board<FastBoard> {
 
     @Override
     public boolean isDraw() {
-        return (getBoardStatus().metaInformation & FastBoard.BoardStatus.MASK_DRAW_BY_THREE_FOLD) != 0 ||
-               getCurrent50MoveRuleCount() >= 50;
+        return getCurrent50MoveRuleCount() >= 50 ||
+               countRepetitions(-1, 2) >= 2;
+    }
+
+    @Override
+    public boolean isDraw(int searchDepth) {
+        return getCurrent50MoveRuleCount() >= 50 ||
+               countRepetitions(searchDepth, 2) >= 2;
     }
 
     @Override
@@ -251,192 +360,200 @@ public class FastBoard extends Board<FastBoard> {
         return zobrist;
     }
 
+    /**
+     * returns the zobrist key of the pawns on the board
+     * @return
+     */
+    public long getPawnZobrist() {
+        return pawnZobrist;
+    }
+
 
     @Override
     public void move_null() {
-
-        BoardStatus previousStatus = getBoardStatus();
-        BoardStatus newBoardStatus = new BoardStatus(0L,
-                                                     previousStatus.getMetaInformation(),
-                                                     previousStatus.getFiftyMoveCounter()+1);
+        zobristHistory[ply] = zobrist;
+        pushStatus(0, 0L, metaHistory[ply], fiftyMoveHistory[ply]+1);
         //zobrist = ~zobrist;
-        boardStatus.add(newBoardStatus);
         this.changeActivePlayer();
     }
 
     @Override
     public void undoMove_null() {
         //zobrist = ~zobrist;
-        boardStatus.pop();
+        ply--;
         this.changeActivePlayer();
     }
 
     @Override
-    public void move(Move m) {
-        BoardStatus previousStatus = getBoardStatus();
-        BoardStatus newBoardStatus = new BoardStatus(0L,
-                                                     previousStatus.getMetaInformation(),
-                                                     previousStatus.getFiftyMoveCounter()+1);
-        boardStatus.add(newBoardStatus);
-
-        if(m.isPromotion()){
-            this.setPiece(0,m.getFrom());
-            this.setPiece(m.getPieceFrom(), m.getTo());
-            this.changeActivePlayer();
-            this.moveHistory.push(m);
-            return;
-        }
-
-        if(getActivePlayer() == 1){
-            //checking if en passent is possible next
-            if(m.getPieceFrom() == 1 && m.getTo() - m.getFrom() == 16){
-                newBoardStatus.enPassantTarget = (1L << (m.getFrom() + 8));
+    public void move(int m) {
+        int  from               = Move.getFrom(m);
+        int  to                 = Move.getTo(m);
+        int  pieceFrom          = Move.getPieceFrom(m);
+        int  pieceTo            = Move.getPieceTo(m);
+        byte type               = Move.getType(m);
+        long previousMeta       = metaHistory[ply];
+        long enPassantTarget    = 0L;
+        long metaInformation    = previousMeta;
+        int  fiftyMoveCounter   = fiftyMoveHistory[ply] + 1;
+
+        zobristHistory[ply] = zobrist;
+
+        if(type == Move.PROMOTION){
+            removePiece(from);
+            if(pieceTo != 0){
+                removePiece(to);
             }
-
-            //making sure that castling is not allowed after rook moved
-            else if(m.getPieceFrom() == 2){
-                if(m.getFrom() == 0 && (previousStatus.metaInformation & FastBoard.BoardStatus.MASK_WHITE_QUEENSIDE_CASTLING) != 0){
-                    newBoardStatus.metaInformation = BitBoard.unsetBit(newBoardStatus.metaInformation, 0);
-                }else if(m.getFrom() == 7 && (previousStatus.metaInformation & FastBoard.BoardStatus.MASK_WHITE_KINGSIDE_CASTLING) != 0){
-                    newBoardStatus.metaInformation = BitBoard.unsetBit(newBoardStatus.metaInformation, 1);
+            addPiece(pieceFrom, to);
+        }else{
+            if(getActivePlayer() == 1){
+                //checking if en passent is possible next
+                if(pieceFrom == 1 && to - from == 16){
+                    enPassantTarget = (1L << (from + 8));
                 }
-            }
 
-            //making sure to remove the pawn after en passant
-            else if(m.isEn_passent_capture()){
-                this.setPiece(0,m.getTo() - 8);
-            }
-            //castling
-            else if (m.isCastle_move()) {
-                if (m.getTo() - m.getFrom() == 2) {
-                    this.moveSimpleMove(new Move(7, 5, 2, 0));
-                } else {
-                    this.moveSimpleMove(new Move(0, 3, 2, 0));
+                //making sure that castling is not allowed after rook moved
+                else if(pieceFrom == 2){
+                    if(from == 0 && (previousMeta & MASK_WHITE_QUEENSIDE_CASTLING) != 0){
+                        metaInformation = BitBoard.unsetBit(metaInformation, 0);
+                    }else if(from == 7 && (previousMeta & MASK_WHITE_KINGSIDE_CASTLING) != 0){
+                        metaInformation = BitBoard.unsetBit(metaInformation, 1);
+                    }
                 }
 
-                newBoardStatus.metaInformation = BitBoard.unsetBit(newBoardStatus.metaInformation, 0);
-                newBoardStatus.metaInformation = BitBoard.unsetBit(newBoardStatus.metaInformation, 1);
-            }
-            //king move will disable castling
-            else if (
-                    m.getPieceFrom() == 6 && (previousStatus.metaInformation & (FastBoard.BoardStatus.MASK_WHITE_QUEENSIDE_CASTLING | FastBoard.BoardStatus.MASK_WHITE_KINGSIDE_CASTLING)) != 0){
-
-                newBoardStatus.metaInformation = BitBoard.unsetBit(newBoardStatus.metaInformation, 0);
-                newBoardStatus.metaInformation = BitBoard.unsetBit(newBoardStatus.metaInformation, 1);
-            }
-        }
-        else {
-            //checking if en passent is possible next
-            if (m.getPieceFrom() == -1 && m.getTo() - m.getFrom() == -16) {
-                newBoardStatus.enPassantTarget = (1L << (m.getFrom() - 8));
-            }
-
-
-            //making sure that castling is not allowed after rook moved
-            else if(m.getPieceFrom() == -2){
-                if(m.getFrom() == 7*8 && (previousStatus.metaInformation & FastBoard.BoardStatus.MASK_BLACK_QUEENSIDE_CASTLING) != 0){
-                    newBoardStatus.metaInformation = BitBoard.unsetBit(newBoardStatus.metaInformation, 2);
-                }else if(m.getFrom() == 7*8+7 && (previousStatus.metaInformation & FastBoard.BoardStatus.MASK_BLACK_KINGSIDE_CASTLING) != 0){
-                    newBoardStatus.metaInformation = BitBoard.unsetBit(newBoardStatus.metaInformation, 3);
+                //making sure to remove the pawn after en passant
+                else if(type == Move.EN_PASSENT){
+                    removePiece(to - 8);
+                }
+                //castling
+                else if (type == Move.CASTLING) {
+                    if (to - from == 2) {
+                        movePiece(7, 5);
+                    } else {
+                        movePiece(0, 3);
+                    }
+                    metaInformation &= ~(MASK_WHITE_QUEENSIDE_CASTLING | MASK_WHITE_KINGSIDE_CASTLING);
+                }
+                //king move will disable castling
+                else if (pieceFrom == 6) {
+                    metaInformation &= ~(MASK_WHITE_QUEENSIDE_CASTLING | MASK_WHITE_KINGSIDE_CASTLING);
                 }
             }
+            else {
+                //checking if en passent is possible next
+                if (pieceFrom == -1 && to - from == -16) {
+                    enPassantTarget = (1L << (from - 8));
+                }
 
+                //making sure that castling is not allowed after rook moved
+                else if(pieceFrom == -2){
+                    if(from == 7*8 && (previousMeta & MASK_BLACK_QUEENSIDE_CASTLING) != 0){
+                        metaInformation = BitBoard.unsetBit(metaInformation, 2);
+                    }else if(from == 7*8+7 && (previousMeta & MASK_BLACK_KINGSIDE_CASTLING) != 0){
+                        metaInformation = BitBoard.unsetBit(metaInformation, 3);
+                    }
+                }
 
-            //making sure to remove the pawn after en passant
-            else if(m.isEn_passent_capture()){
-                this.setPiece(0,m.getTo()+8);
-            }
+                //making sure to remove the pawn after en passant
+                else if(type == Move.EN_PASSENT){
+                    removePiece(to + 8);
+                }
 
-            //castling
-            else if(m.isCastle_move()){
-                if(m.getTo() - m.getFrom() == 2){
-                    this.moveSimpleMove(new Move(63,61,-2,0));
-                }else{
-                    this.moveSimpleMove(new Move(56,59,-2,0));
+                //castling
+                else if(type == Move.CASTLING){
+                    if(to - from == 2){
+                        movePiece(63, 61);
+                    }else{
+                        movePiece(56, 59);
+                    }
+                    metaInformation &= ~(MASK_BLACK_QUEENSIDE_CASTLING | MASK_BLACK_KINGSIDE_CASTLING);
+                }
+                //king move will disable castling
+                else if (pieceFrom == -6) {
+                    metaInformation &= ~(MASK_BLACK_QUEENSIDE_CASTLING | MASK_BLACK_KINGSIDE_CASTLING);
                 }
-                newBoardStatus.metaInformation = BitBoard.unsetBit(newBoardStatus.metaInformation, 2);
-                newBoardStatus.metaInformation = BitBoard.unsetBit(newBoardStatus.metaInformation, 3);
             }
-            //king move will disable castling
-            else if (
-                    m.getPieceFrom() == -6 &&
-                    (previousStatus.metaInformation & (FastBoard.BoardStatus.MASK_BLACK_QUEENSIDE_CASTLING | FastBoard.BoardStatus.MASK_BLACK_KINGSIDE_CASTLING)) != 0) {
 
-                newBoardStatus.metaInformation = BitBoard.unsetBit(newBoardStatus.metaInformation, 2);
-                newBoardStatus.metaInformation = BitBoard.unsetBit(newBoardStatus.metaInformation, 3);
+            if(pieceTo != 0){
+                removePiece(to);
             }
+            movePiece(from, to);
         }
 
-        this.moveSimpleMove(m);
         this.changeActivePlayer();
 
-        if (m.getPieceTo() != 0 || Math.abs(m.getPieceFrom()) == 1 || m.isPromotion()){
-            newBoardStatus.fiftyMoveCounter = 0;
+        if (pieceTo != 0 || Math.abs(pieceFrom) == 1 || type == Move.PROMOTION){
+            fiftyMoveCounter = 0;
         }
 
-        if (this.repetitionList.add(zobrist, getActivePlayer())) {
-            newBoardStatus.metaInformation |= FastBoard.BoardStatus.MASK_DRAW_BY_THREE_FOLD;
-        }
+        pushStatus(m, enPassantTarget, metaInformation, fiftyMoveCounter);
     }
 
     @Override
     public void undoMove() {
-        if (this.moveHistory.size() == 0) return;
+        if (this.ply == 0) return;
 
-        this.boardStatus.pop();
-        this.repetitionList.sub(zobrist, getActivePlayer());
+        int  last    = this.moveHistory[ply];
+        int  from    = Move.getFrom(last);
+        int  to      = Move.getTo(last);
+        int  pieceTo = Move.getPieceTo(last);
+        byte type    = Move.getType(last);
 
-        Move last = this.moveHistory.peek();
+        this.changeActivePlayer();
+        this.ply--;
 
-        if(last.isPromotion()){
-            this.setPiece(-getActivePlayer(), last.getFrom());
-            this.setPiece(last.getPieceTo(),last.getTo());
-            this.changeActivePlayer();
-            moveHistory.pop();
+        if(type == Move.PROMOTION){
+            removePiece(to);
+            addPiece(Move.getPieceFrom(last) > 0 ? 1 : -1, from);
+            if(pieceTo != 0){
+                addPiece(pieceTo, to);
+            }
             return;
         }
 
-        this.undoMoveSimpleMove();
+        movePiece(to, from);
+        if(pieceTo != 0){
+            addPiece(pieceTo, to);
+        }
 
-        if(last.isCastle_move()){
-            this.undoMoveSimpleMove();      //need to undo the rook move aswell
+        //need to undo the rook move aswell
+        if(type == Move.CASTLING){
+            switch (to){
+                case 6:  movePiece(5, 7);   break;
+                case 2:  movePiece(3, 0);   break;
+                case 62: movePiece(61, 63); break;
+                case 58: movePiece(59, 56); break;
+            }
         }
 
-        if(last.isEn_passent_capture()){
-            if(last.getTo() < 30){
-                this.setPiece(1,last.getTo()+8);
+        if(type == Move.EN_PASSENT){
+            if(to < 30){
+                addPiece(1, to + 8);
             }else{
-                this.setPiece(-1,last.getTo()-8);
+                addPiece(-1, to - 8);
             }
         }
-
-        this.changeActivePlayer();
-        this.update_longs();
-    }
-
-    private void moveSimpleMove(Move m) {
-        this.setPiece(0, m.getFrom());
-        this.setPiece(m.getPieceFrom(), m.getTo());
-        this.moveHistory.push(m);
-    }
-
-    private void undoMoveSimpleMove() {
-        Move old = this.moveHistory.pop();
-        this.setPiece(old.getPieceFrom(), old.getFrom());
-        this.setPiece(old.getPieceTo(), old.getTo());
     }
 
     @Override
     public FastBoard copy() {
         FastBoard copy = new FastBoard();
         copy.occupied = occupied;
-        copy.repetitionList = this.repetitionList.copy();
         copy.zobrist = this.zobrist;
+        copy.pawnZobrist = this.pawnZobrist;
         copy.indexBoard = Arrays.copyOf(indexBoard, 64);
+        copy.pieceSquareTables = pieceSquareTables;
+        copy.pst_early_table = pst_early_table;
+        copy.pst_late_table = pst_late_table;
+        copy.pst_early = Arrays.copyOf(pst_early, 6);
+        copy.pst_late = Arrays.copyOf(pst_late, 6);
         copy.team_total[0] = team_total[0];
         copy.team_total[1] = team_total[1];
-        copy.boardStatus.clear();
-        copy.boardStatus.add(getBoardStatus().copy());
+        copy.enPassantHistory = Arrays.copyOf(enPassantHistory, enPassantHistory.length);
+        copy.metaHistory = Arrays.copyOf(metaHistory, metaHistory.length);
+        copy.fiftyMoveHistory = Arrays.copyOf(fiftyMoveHistory, fiftyMoveHistory.length);
+        copy.moveHistory = Arrays.copyOf(moveHistory, moveHistory.length);
+        copy.zobristHistory = Arrays.copyOf(zobristHistory, zobristHistory.length);
+        copy.ply = ply;
         for (int i = 0; i < 6; i++) {
             copy.white_values[i] = this.white_values[i];
             copy.black_values[i] = this.black_values[i];
@@ -489,11 +606,19 @@ public class FastBoard extends Board<FastBoard> {
         return attacks & ~team_total[1];
     }
 
-    private void getPseudoLegalMoves(int color, PieceList[] pieces, long team, MoveList moves){
+    /**
+     * generates the moves of all pieces except pawns.
+     * @param color
+     * @param pieces
+     * @param targets       the squares the rooks, knights, bishops and queens may move to
+     * @param kingTargets   the squares the king may move to
+     * @param moves
+     */
+    private void getPseudoLegalMoves(int color, PieceList[] pieces, long targets, long kingTargets, MoveList moves){
         int index;
         for (int i = 0; i < pieces[1].size(); i++) {
             index = pieces[1].get(i);
-            long attacks = BitBoard.lookUpRookAttack(index, occupied) & ~team;
+            long attacks = BitBoard.lookUpRookAttack(index, occupied) & targets;
             while(attacks != 0){
                 int to = BitBoard.bitscanForward(attacks);
                 moves.add(index, to, 2*color,indexBoard[to]);
@@ -503,7 +628,7 @@ public class FastBoard extends Board<FastBoard> {
 
         for (int i = 0; i < pieces[2].size(); i++) {
             index = pieces[2].get(i);
-            long attacks = BitBoard.KNIGHT_ATTACKS[index] & ~team;
+            long attacks = BitBoard.KNIGHT_ATTACKS[index] & targets;
             while(attacks != 0){
                 int to = BitBoard.bitscanForward(attacks);
                 moves.add(index, to, 3*color,indexBoard[to]);
@@ -513,7 +638,7 @@ public class FastBoard extends Board<FastBoard> {
 
         for (int i = 0; i < pieces[3].size(); i++){
             index = pieces[3].get(i);
-            long attacks = BitBoard.lookUpBishopAttack(index, occupied) & ~team;
+            long attacks = BitBoard.lookUpBishopAttack(index, occupied) & targets;
             while(attacks != 0){
                 int to = BitBoard.bitscanForward(attacks);
                 moves.add(index, to, 4*color,indexBoard[to]);
@@ -523,13 +648,13 @@ public class FastBoard extends Board<FastBoard> {
 
         for (int i = 0; i < pieces[4].size(); i++){
             index = pieces[4].get(i);
-            long attacks = BitBoard.lookUpBishopAttack(index, occupied) & ~team;
+            long attacks = BitBoard.lookUpBishopAttack(index, occupied) & targets;
             while(attacks != 0){
                 int to = BitBoard.bitscanForward(attacks);
                 moves.add(index, to, 5*color,indexBoard[to]);
                 attacks = BitBoard.lsbReset(attacks);
             }
-            attacks = BitBoard.lookUpRookAttack(index, occupied) & ~team;
+            attacks = BitBoard.lookUpRookAttack(index, occupied) & targets;
             while(attacks != 0){
                 int to = BitBoard.bitscanForward(attacks);
                 moves.add(index, to, 5*color,indexBoard[to]);
@@ -539,7 +664,7 @@ public class FastBoard extends Board<FastBoard> {
 
         for (int i = 0; i < pieces[5].size(); i++){
             index = pieces[5].get(i);
-            long attacks = BitBoard.KING_ATTACKS[index] & ~team;
+            long attacks = BitBoard.KING_ATTACKS[index] & kingTargets;
             while(attacks != 0){
                 int to = BitBoard.bitscanForward(attacks);
                 moves.add(index, to, 6*color,indexBoard[to]);
@@ -550,19 +675,19 @@ public class FastBoard extends Board<FastBoard> {
 
     private void getPseudoLegalMovesWhitePawns(MoveList moves) {
 
-        long enPassantTarget = getBoardStatus().getEnPassantTarget();
+        long enPassantTarget = enPassantHistory[ply];
         long rightAttacks = BitBoard.shiftSouthWest(team_total[1] | enPassantTarget & BitBoard.rank_6) & (this.white_values[0]) & ~BitBoard.rank_7;
         while (rightAttacks != 0) {
             int from = BitBoard.bitscanForward(rightAttacks);
-            moves.add(from, from + 9, 1, indexBoard[from + 9])
-                    .setType(((1L << (from + 9)) & enPassantTarget) != 0 ? Move.EN_PASSENT:Move.DEFAULT);
+            moves.add(from, from + 9, 1, indexBoard[from + 9],
+                    ((1L << (from + 9)) & enPassantTarget) != 0 ? Move.EN_PASSENT:Move.DEFAULT);
             rightAttacks = BitBoard.lsbReset(rightAttacks);
         }
         long leftAttacks = BitBoard.shiftSouthEast(team_total[1] | enPassantTarget & BitBoard.rank_6) & (this.white_values[0]) & ~BitBoard.rank_7;
         while (leftAttacks != 0) {
             int from = BitBoard.bitscanForward(leftAttacks);
-            moves.add(from, from + 7, 1, indexBoard[from + 7])
-                    .setType(((1L << (from + 7)) & enPassantTarget) != 0 ? Move.EN_PASSENT:Move.DEFAULT);
+            moves.add(from, from + 7, 1, indexBoard[from + 7],
+                    ((1L << (from + 7)) & enPassantTarget) != 0 ? Move.EN_PASSENT:Move.DEFAULT);
             leftAttacks = BitBoard.lsbReset(leftAttacks);
         }
 
@@ -581,52 +706,55 @@ public class FastBoard extends Board<FastBoard> {
         }
 
 
+        getPseudoLegalPromotionsWhitePawns(moves);
+    }
+
+    private void getPseudoLegalPromotionsWhitePawns(MoveList moves) {
         long promotes = white_values[0] & BitBoard.rank_7 & ~BitBoard.shiftSouth(occupied);
         while(promotes != 0){
             int to = BitBoard.bitscanForward(promotes);
-            moves.add(to, to+8, 5, 0).setType(Move.PROMOTION);
-            moves.add(to, to+8, 4, 0).setType(Move.PROMOTION);
-            moves.add(to, to+8, 3, 0).setType(Move.PROMOTION);
-            moves.add(to, to+8, 2, 0).setType(Move.PROMOTION);
+            moves.add(to, to+8, 5, 0, Move.PROMOTION);
+            moves.add(to, to+8, 4, 0, Move.PROMOTION);
+            moves.add(to, to+8, 3, 0, Move.PROMOTION);
+            moves.add(to, to+8, 2, 0, Move.PROMOTION);
             promotes = BitBoard.lsbReset(promotes);
         }
         long capturePromotesLeft = white_values[0] & BitBoard.rank_7 & (BitBoard.shiftSouthEast(team_total[1]));
         while(capturePromotesLeft != 0){
             int to = BitBoard.bitscanForward(capturePromotesLeft);
-            moves.add(to, to+7, 5, getPiece(to+7)).setType(Move.PROMOTION);
-            moves.add(to, to+7, 4, getPiece(to+7)).setType(Move.PROMOTION);
-            moves.add(to, to+7, 3, getPiece(to+7)).setType(Move.PROMOTION);
-            moves.add(to, to+7, 2, getPiece(to+7)).setType(Move.PROMOTION);
+            moves.add(to, to+7, 5, getPiece(to+7), Move.PROMOTION);
+            moves.add(to, to+7, 4, getPiece(to+7), Move.PROMOTION);
+            moves.add(to, to+7, 3, getPiece(to+7), Move.PROMOTION);
+            moves.add(to, to+7, 2, getPiece(to+7), Move.PROMOTION);
             capturePromotesLeft = BitBoard.lsbReset(capturePromotesLeft);
         }
         long capturePromotesRight = white_values[0] & BitBoard.rank_7 & (BitBoard.shiftSouthWest(team_total[1]));
         while(capturePromotesRight != 0){
             int to = BitBoard.bitscanForward(capturePromotesRight);
-            moves.add(to, to+9, 5, getPiece(to+9)).setType(Move.PROMOTION);
-            moves.add(to, to+9, 4, getPiece(to+9)).setType(Move.PROMOTION);
-            moves.add(to, to+9, 3, getPiece(to+9)).setType(Move.PROMOTION);
-            moves.add(to, to+9, 2, getPiece(to+9)).setType(Move.PROMOTION);
+            moves.add(to, to+9, 5, getPiece(to+9), Move.PROMOTION);
+            moves.add(to, to+9, 4, getPiece(to+9), Move.PROMOTION);
+            moves.add(to, to+9, 3, getPiece(to+9), Move.PROMOTION);
+            moves.add(to, to+9, 2, getPiece(to+9), Move.PROMOTION);
             capturePromotesRight = BitBoard.lsbReset(capturePromotesRight);
         }
-
     }
 
     private void getPseudoLegalMovesBlackPawns(MoveList moves) {
-        long enPassantTarget = getBoardStatus().getEnPassantTarget();
+        long enPassantTarget = enPassantHistory[ply];
         long rightAttacks = BitBoard.shiftNorthWest(team_total[0] | enPassantTarget & BitBoard.rank_3) &
                 (this.black_values[0]) & ~BitBoard.rank_2;
         while (rightAttacks != 0) {
             int from = BitBoard.bitscanForward(rightAttacks);
-            moves.add(from, from - 7, -1, indexBoard[from - 7])
-                    .setType(((1L << (from - 7)) & enPassantTarget) != 0 ? Move.EN_PASSENT: Move.DEFAULT);
+            moves.add(from, from - 7, -1, indexBoard[from - 7],
+                    ((1L << (from - 7)) & enPassantTarget) != 0 ? Move.EN_PASSENT:Move.DEFAULT);
             rightAttacks = BitBoard.lsbReset(rightAttacks);
         }
         long leftAttacks = BitBoard.shiftNorthEast(team_total[0] | enPassantTarget & BitBoard.rank_3) &
                 (this.black_values[0]) & ~BitBoard.rank_2;
         while (leftAttacks != 0) {
             int from = BitBoard.bitscanForward(leftAttacks);
-            moves.add(from, from - 9, -1, indexBoard[from - 9])
-                    .setType(((1L << (from - 9)) & enPassantTarget) != 0 ? Move.EN_PASSENT: Move.DEFAULT);
+            moves.add(from, from - 9, -1, indexBoard[from - 9],
+                    ((1L << (from - 9)) & enPassantTarget) != 0 ? Move.EN_PASSENT:Move.DEFAULT);
             leftAttacks = BitBoard.lsbReset(leftAttacks);
         }
 
@@ -644,67 +772,71 @@ public class FastBoard extends Board<FastBoard> {
             advance2 = BitBoard.lsbReset(advance2);
         }
 
+        getPseudoLegalPromotionsBlackPawns(moves);
+    }
+
+    private void getPseudoLegalPromotionsBlackPawns(MoveList moves) {
         long promotes = black_values[0] & BitBoard.rank_2 & ~BitBoard.shiftNorth(occupied);
         while(promotes != 0){
             int to = BitBoard.bitscanForward(promotes);
-            moves.add(to, to-8, -5, 0).setType(Move.PROMOTION);
-            moves.add(to, to-8, -4, 0).setType(Move.PROMOTION);
-            moves.add(to, to-8, -3, 0).setType(Move.PROMOTION);
-            moves.add(to, to-8, -2, 0).setType(Move.PROMOTION);
+            moves.add(to, to-8, -5, 0, Move.PROMOTION);
+            moves.add(to, to-8, -4, 0, Move.PROMOTION);
+            moves.add(to, to-8, -3, 0, Move.PROMOTION);
+            moves.add(to, to-8, -2, 0, Move.PROMOTION);
             promotes = BitBoard.lsbReset(promotes);
         }
 
         long capturePromotesLeft = black_values[0] & BitBoard.rank_2 & (BitBoard.shiftNorthWest(team_total[0]));
         while(capturePromotesLeft != 0){
             int to = BitBoard.bitscanForward(capturePromotesLeft);
-            moves.add(to, to-7, -5, getPiece(to-7)).setType(Move.PROMOTION);
-            moves.add(to, to-7, -4, getPiece(to-7)).setType(Move.PROMOTION);
-            moves.add(to, to-7, -3, getPiece(to-7)).setType(Move.PROMOTION);
-            moves.add(to, to-7, -2, getPiece(to-7)).setType(Move.PROMOTION);
+            moves.add(to, to-7, -5, getPiece(to-7), Move.PROMOTION);
+            moves.add(to, to-7, -4, getPiece(to-7), Move.PROMOTION);
+            moves.add(to, to-7, -3, getPiece(to-7), Move.PROMOTION);
+            moves.add(to, to-7, -2, getPiece(to-7), Move.PROMOTION);
             capturePromotesLeft = BitBoard.lsbReset(capturePromotesLeft);
         }
         long capturePromotesRight = black_values[0] & BitBoard.rank_2 & (BitBoard.shiftNorthEast(team_total[0]));
         while(capturePromotesRight != 0){
             int to = BitBoard.bitscanForward(capturePromotesRight);
-            moves.add(to, to-9, -5, getPiece(to-9)).setType(Move.PROMOTION);
-            moves.add(to, to-9, -4, getPiece(to-9)).setType(Move.PROMOTION);
-            moves.add(to, to-9, -3, getPiece(to-9)).setType(Move.PROMOTION);
-            moves.add(to, to-9, -2, getPiece(to-9)).setType(Move.PROMOTION);
+            moves.add(to, to-9, -5, getPiece(to-9), Move.PROMOTION);
+            moves.add(to, to-9, -4, getPiece(to-9), Move.PROMOTION);
+            moves.add(to, to-9, -3, getPiece(to-9), Move.PROMOTION);
+            moves.add(to, to-9, -2, getPiece(to-9), Move.PROMOTION);
             capturePromotesRight = BitBoard.lsbReset(capturePromotesRight);
         }
     }
 
     private void getPseudoLegalMovesWhiteCastling(MoveList moves) {
         if(!BitBoard.getBit(white_values[5],4)) return;
-        long metaInformation = getBoardStatus().getMetaInformation();
+        long metaInformation = metaHistory[ply];
 
         if(BitBoard.getBit(metaInformation, 0) &&
                 BitBoard.getBit(white_values[1], 0) &&
                 (BitBoard.castling_white_queenside_mask & occupied) == 0){
-            moves.add(4, 2, 6, 0).setType(Move.CASTLING);
+            moves.add(4, 2, 6, 0, Move.CASTLING);
         }
 
         if(BitBoard.getBit(metaInformation, 1) &&
                 BitBoard.getBit(white_values[1], 7) &&
                 (BitBoard.castling_white_kingside_mask & occupied) == 0){
-            moves.add(4, 6, 6, 0).setType(Move.CASTLING);
+            moves.add(4, 6, 6, 0, Move.CASTLING);
         }
     }
 
     private void getPseudoLegalMovesBlackCastling(MoveList moves) {
         if(!BitBoard.getBit(black_values[5],4+56)) return;
-        long metaInformation = getBoardStatus().getMetaInformation();
+        long metaInformation = metaHistory[ply];
 
         if(BitBoard.getBit(metaInformation, 2) &&
                 BitBoard.getBit(black_values[1], 0+56)&&
                 (BitBoard.castling_black_queenside_mask & occupied) == 0){
-            moves.add(4+56, 2+56, -6, 0).setType(Move.CASTLING);
+            moves.add(4+56, 2+56, -6, 0, Move.CASTLING);
         }
 
         if(BitBoard.getBit(metaInformation, 3) &&
                 BitBoard.getBit(black_values[1], 7+56)&&
                 (BitBoard.castling_black_kingside_mask & occupied) == 0){
-            moves.add(4+56, 6+56, -6, 0).setType(Move.CASTLING);
+            moves.add(4+56, 6+56, -6, 0, Move.CASTLING);
         }
     }
 
@@ -768,42 +900,42 @@ public class FastBoard extends Board<FastBoard> {
     }
 
     private void getPseudoLegalCaptureMovesWhitePawns(MoveList moves) {
-        long enPassantTarget = getBoardStatus().getEnPassantTarget();
+        long enPassantTarget = enPassantHistory[ply];
         long rightAttacks = BitBoard.shiftSouthWest(team_total[1] | enPassantTarget & BitBoard.rank_6) &
-                (this.white_values[0]) & ~BitBoard.rank_8;
+                (this.white_values[0]) & ~BitBoard.rank_7;
         while (rightAttacks != 0) {
             int from = BitBoard.bitscanForward(rightAttacks);
-            moves.add(from, from + 9, 1, indexBoard[from + 9])
-                    .setType(((1L << (from + 9)) & enPassantTarget) != 0 ? Move.EN_PASSENT:Move.DEFAULT);
+            moves.add(from, from + 9, 1, indexBoard[from + 9],
+                    ((1L << (from + 9)) & enPassantTarget) != 0 ? Move.EN_PASSENT:Move.DEFAULT);
             rightAttacks = BitBoard.lsbReset(rightAttacks);
         }
         long leftAttacks = BitBoard.shiftSouthEast(team_total[1] | enPassantTarget & BitBoard.rank_6) &
-                (this.white_values[0]) & ~BitBoard.rank_8;
+                (this.white_values[0]) & ~BitBoard.rank_7;
         while (leftAttacks != 0) {
             int from = BitBoard.bitscanForward(leftAttacks);
-            moves.add(from, from + 7, 1, indexBoard[from + 7])
-                    .setType(((1L << (from + 7)) & enPassantTarget) != 0 ? Move.EN_PASSENT:Move.DEFAULT);
+            moves.add(from, from + 7, 1, indexBoard[from + 7],
+                    ((1L << (from + 7)) & enPassantTarget) != 0 ? Move.EN_PASSENT:Move.DEFAULT);
             leftAttacks = BitBoard.lsbReset(leftAttacks);
         }
 
     }
 
     private void getPseudoLegalCaptureMovesBlackPawns(MoveList moves) {
-        long enPassantTarget = getBoardStatus().getEnPassantTarget();
+        long enPassantTarget = enPassantHistory[ply];
         long rightAttacks = BitBoard.shiftNorthWest(team_total[0] | enPassantTarget & BitBoard.rank_3) &
-                (this.black_values[0]) & ~BitBoard.rank_1;
+                (this.black_values[0]) & ~BitBoard.rank_2;
         while (rightAttacks != 0) {
             int from = BitBoard.bitscanForward(rightAttacks);
-            moves.add(from, from - 7, -1, indexBoard[from - 7])
-                    .setType(((1L << (from - 7)) & enPassantTarget) != 0 ? Move.EN_PASSENT:Move.DEFAULT);
+            moves.add(from, from - 7, -1, indexBoard[from - 7],
+                    ((1L << (from - 7)) & enPassantTarget) != 0 ? Move.EN_PASSENT:Move.DEFAULT);
             rightAttacks = BitBoard.lsbReset(rightAttacks);
         }
         long leftAttacks = BitBoard.shiftNorthEast(team_total[0] | enPassantTarget & BitBoard.rank_3) &
-                (this.black_values[0]) & ~BitBoard.rank_1;
+                (this.black_values[0]) & ~BitBoard.rank_2;
         while (leftAttacks != 0) {
             int from = BitBoard.bitscanForward(leftAttacks);
-            moves.add(from, from - 9, -1, indexBoard[from - 9])
-                    .setType(((1L << (from - 9)) & enPassantTarget) != 0 ? Move.EN_PASSENT:Move.DEFAULT);
+            moves.add(from, from - 9, -1, indexBoard[from - 9],
+                    ((1L << (from - 9)) & enPassantTarget) != 0 ? Move.EN_PASSENT:Move.DEFAULT);
             leftAttacks = BitBoard.lsbReset(leftAttacks);
         }
 
@@ -811,140 +943,362 @@ public class FastBoard extends Board<FastBoard> {
 
 
     public List<Move> getPseudoLegalMoves() {
-        return getPseudoLegalMoves(new MoveList(50));
+        return getPseudoLegalMoves(new MoveList(50)).toList();
     }
 
     @Override
     public MoveList getPseudoLegalMoves(MoveList list) {
         list.clear();
         if(getActivePlayer() == 1) {
-            getPseudoLegalMoves(1 ,white_pieces, team_total[0], list);
+            getPseudoLegalMoves(1 ,white_pieces, ~team_total[0], ~team_total[0], list);
             getPseudoLegalMovesWhitePawns(list);
             getPseudoLegalMovesWhiteCastling(list);
         }
         else if(getActivePlayer() ==-1) {
-            getPseudoLegalMoves(-1,black_pieces, team_total[1], list);
+            getPseudoLegalMoves(-1,black_pieces, ~team_total[1], ~team_total[1], list);
             getPseudoLegalMovesBlackPawns(list);
             getPseudoLegalMovesBlackCastling(list);
         }
         return list;
     }
 
+    /**
+     * generates all legal moves.
+     * The checking pieces and the pinned pieces are computed once. If the king is in check, only the king and
+     * moves which capture the checking piece or block the check are generated. Castling is only generated if the
+     * king is not in check and only the king moves are generated in a double check.
+     * The remaining moves are filtered by removeIllegalMoves() which does not modify the board.
+     * @param list
+     * @return
+     */
     @Override
-    public List<Move> getLegalMoves(MoveList list) {
-        return getPseudoLegalMoves(list);
+    public MoveList getLegalMoves(MoveList list) {
+        list.clear();
+        int     color       = getActivePlayer();
+        int     king        = color == 1 ? white_pieces[5].get(0) : black_pieces[5].get(0);
+        long    notTeam     = ~team_total[color == 1 ? 0 : 1];
+        long    checkers    = attackersTo(king, occupied, -color);
+        long    targets     = evasionTargets(king, checkers);
+
+        if(color == 1) {
+            getPseudoLegalMoves(1 ,white_pieces, targets & notTeam, notTeam, list);
+            if(BitBoard.lsbReset(checkers) == 0){
+                getPseudoLegalMovesWhitePawns(list);
+            }
+            if(checkers == 0){
+                getPseudoLegalMovesWhiteCastling(list);
+            }
+        }else{
+            getPseudoLegalMoves(-1,black_pieces, targets & notTeam, notTeam, list);
+            if(BitBoard.lsbReset(checkers) == 0){
+                getPseudoLegalMovesBlackPawns(list);
+            }
+            if(checkers == 0){
+                getPseudoLegalMovesBlackCastling(list);
+            }
+        }
+
+        removeIllegalMoves(list, king, checkers, targets);
+        return list;
     }
 
     @Override
     public List<Move> getLegalMoves() {
-        return getPseudoLegalMoves();
+        return getLegalMoves(new MoveList(50)).toList();
     }
 
     @Override
     public List<Move> getCaptureMoves() {
-        return getPseudoLegalMoves();
+        return getCaptureMoves(new MoveList(50)).toList();
     }
 
     @Override
-    public List<Move> getCaptureMoves(MoveList list) {
+    public MoveList getCaptureMoves(MoveList list) {
         list.clear();
         if(getActivePlayer() == 1) {
             getPseudoLegalCaptures(1 ,white_pieces, team_total[1], list);
             getPseudoLegalCaptureMovesWhitePawns(list);
+            getPseudoLegalPromotionsWhitePawns(list);
         }
         else if(getActivePlayer() ==-1) {
             getPseudoLegalCaptures(-1,black_pieces, team_total[0], list);
             getPseudoLegalCaptureMovesBlackPawns(list);
+            getPseudoLegalPromotionsBlackPawns(list);
         }
+
+        int  king       = getActivePlayer() == 1 ? white_pieces[5].get(0) : black_pieces[5].get(0);
+        long checkers   = attackersTo(king, occupied, -getActivePlayer());
+        removeIllegalMoves(list, king, checkers, evasionTargets(king, checkers));
         return list;
     }
 
+    /**
+     * generates all legal quiet moves which give check.
+     * A move gives a direct check if the moved piece attacks the opponent king from its target square. These
+     * squares are computed once for each piece type starting at the opponent king. A move gives a discovered check
+     * if the piece is the only blocker between the opponent king and one of our sliding pieces and leaves the line.
+     * Promotions, en passant and castling are not generated.
+     * @param list
+     * @return
+     */
     @Override
-    public boolean isLegal(Move m) {
+    public MoveList getQuietChecks(MoveList list) {
+        list.clear();
+        int         color           = getActivePlayer();
+        PieceList[] pieces          = color == 1 ? white_pieces : black_pieces;
+        long[]      values          = color == 1 ? white_values : black_values;
+        long        team            = team_total[color == 1 ? 0 : 1];
+        int         king            = pieces[5].get(0);
+        int         opponentKing    = color == 1 ? black_pieces[5].get(0) : white_pieces[5].get(0);
+        long        empty           = ~occupied;
+        long        discoverers     = blockersForKing(opponentKing, values, team);
+
+        long rookChecks     = BitBoard.lookUpRookAttack(opponentKing, occupied);
+        long bishopChecks   = BitBoard.lookUpBishopAttack(opponentKing, occupied);
+
+        for(int type = 1; type < 6; type++){
+            long checkSquares;
+            switch (type){
+                case 1:  checkSquares = rookChecks;                             break;
+                case 2:  checkSquares = BitBoard.KNIGHT_ATTACKS[opponentKing];  break;
+                case 3:  checkSquares = bishopChecks;                           break;
+                case 4:  checkSquares = rookChecks | bishopChecks;              break;
+                default: checkSquares = 0;                                      break;
+            }
+            for(int i = 0; i < pieces[type].size(); i++){
+                int  from    = pieces[type].get(i);
+                long targets = checkSquares;
+                if((discoverers & (1L << from)) != 0){
+                    targets |= ~BitBoard.LINE_SQUARES[opponentKing][from];
+                }
+                long attacks = pieceAttacks(type, from) & targets & empty;
+                while(attacks != 0){
+                    list.add(from, BitBoard.bitscanForward(attacks), (type+1) * color, 0);
+                    attacks = BitBoard.lsbReset(attacks);
+                }
+            }
+        }
 
-        int  thisKing;
-        long opponentQueenBitboard;
-        long opponentRookBitboard;
-        long opponentBishopBitboard;
+        long opponentKingBit = 1L << opponentKing;
+        long single, pawnChecks;
+        int  forward;
+        if(color == 1){
+            single      = BitBoard.shiftNorth(values[0] & ~BitBoard.rank_7) & empty;
+            pawnChecks  = BitBoard.shiftSouthEast(opponentKingBit) | BitBoard.shiftSouthWest(opponentKingBit);
+            forward     = 8;
+        }else{
+            single      = BitBoard.shiftSouth(values[0] & ~BitBoard.rank_2) & empty;
+            pawnChecks  = BitBoard.shiftNorthEast(opponentKingBit) | BitBoard.shiftNorthWest(opponentKingBit);
+            forward     = -8;
+        }
+        long doubles = (color == 1 ?
+                        BitBoard.shiftNorth(single & BitBoard.rank_3) :
+                        BitBoard.shiftSouth(single & BitBoard.rank_6)) & empty;
+        for(int steps = 1; steps <= 2; steps++){
+            long pushes = steps == 1 ? single : doubles;
+            while(pushes != 0){
+                int  to     = BitBoard.bitscanForward(pushes);
+                int  from   = to - steps * forward;
+                long toBit  = 1L << to;
+                if((pawnChecks & toBit) != 0
+                   || (discoverers & (1L << from)) != 0 && (BitBoard.LINE_SQUARES[opponentKing][from] & toBit) == 0){
+                    list.add(from, to, color, 0);
+                }
+                pushes = BitBoard.lsbReset(pushes);
+            }
+        }
 
+        long checkers = attackersTo(king, occupied, -color);
+        removeIllegalMoves(list, king, checkers, evasionTargets(king, checkers));
+        return list;
+    }
 
-        if(this.getActivePlayer() == 1){
-            thisKing = white_pieces[5].get(0);
-            opponentQueenBitboard =     black_values[4];
-            opponentRookBitboard =      black_values[1];
-            opponentBishopBitboard =    black_values[3];
-        }else{
-            thisKing = black_pieces[5].get(0);
-            opponentQueenBitboard =     white_values[4];
-            opponentRookBitboard =      white_values[1];
-            opponentBishopBitboard =    white_values[3];
+    /**
+     * returns the squares attacked by the piece of the given type (index inside the piece lists) on the given square.
+     * @param type
+     * @param square
+     * @return
+     */
+    private long pieceAttacks(int type, int square){
+        switch (type){
+            case 1: return BitBoard.lookUpRookAttack(square, occupied);
+            case 2: return BitBoard.KNIGHT_ATTACKS[square];
+            case 3: return BitBoard.lookUpBishopAttack(square, occupied);
+            case 4: return BitBoard.lookUpRookAttack(square, occupied) | BitBoard.lookUpBishopAttack(square, occupied);
+            default: return BitBoard.KING_ATTACKS[square];
         }
+    }
 
-        if (m.isEn_passent_capture()) {
-            this.move(m);
-            boolean isOk =
-                    (BitBoard.lookUpRookAttack(thisKing, occupied) & (opponentQueenBitboard | opponentRookBitboard)) == 0 &&
-                    (BitBoard.lookUpBishopAttack(thisKing, occupied) & (opponentQueenBitboard | opponentBishopBitboard)) == 0;
-            this.undoMove();
-            return isOk;
+    /**
+     * returns the squares a piece other than the king may move to if the king is attacked by the given checkers.
+     * These are all squares if there is no check, the checking piece and the squares between the king and the
+     * checking piece for a single check and no squares for a double check.
+     * @param king
+     * @param checkers
+     * @return
+     */
+    private long evasionTargets(int king, long checkers){
+        if(checkers == 0) return -1L;
+        if(BitBoard.lsbReset(checkers) != 0) return 0L;
+        return checkers | BitBoard.BETWEEN_SQUARES[king][BitBoard.bitscanForward(checkers)];
+    }
+
+    /**
+     * returns the pieces of the given team which are the only piece between the king and one of the given
+     * sliding pieces. For the sliding pieces of the opponent these are the pinned pieces, for the own sliding pieces
+     * these are the pieces which can give a discovered check.
+     * @param king      the square of the king
+     * @param sliders   the piece bitboards (white_values or black_values) of the sliding pieces
+     * @param team      the pieces which are considered as blockers
+     * @return
+     */
+    private long blockersForKing(int king, long[] sliders, long team){
+        long snipers = (BitBoard.lookUpRookAttack(king, 0L) & (sliders[1] | sliders[4]))
+                     | (BitBoard.lookUpBishopAttack(king, 0L) & (sliders[3] | sliders[4]));
+        long result = 0;
+        while(snipers != 0){
+            long blockers = BitBoard.BETWEEN_SQUARES[king][BitBoard.bitscanForward(snipers)] & occupied;
+            if(blockers != 0 && BitBoard.lsbReset(blockers) == 0){
+                result |= blockers & team;
+            }
+            snipers = BitBoard.lsbReset(snipers);
         }
+        return result;
+    }
 
-        if (m.isCastle_move()){
-            long secure = 0L;
-            if(this.getActivePlayer() == 1){
-                secure = m.getTo() - m.getFrom() > 0 ? BitBoard.castling_white_kingside_safe:BitBoard.castling_white_queenside_safe;
-                return (getAttackedSquaresFromBlack() & secure) == 0;
-            }else {
-                secure = m.getTo() - m.getFrom() > 0 ? BitBoard.castling_black_kingside_safe : BitBoard.castling_black_queenside_safe;
-                return (getAttackedSquaresFromWhite() & secure) == 0;
+    /**
+     * removes all moves from the list which would leave the king of the active player in check.
+     * The moves of the king are tested directly, all other moves only need to reach one of the evasion targets
+     * and stay on the line to the king if the piece is pinned. En passant captures are tested separately
+     * because they remove two pieces from the line of the king.
+     * @param list
+     * @param king              the square of the king
+     * @param checkers          the pieces giving check
+     * @param evasionTargets    see evasionTargets()
+     */
+    private void removeIllegalMoves(MoveList list, int king, long checkers, long evasionTargets){
+        int  color  = getActivePlayer();
+        long pinned = color == 1 ?
+                      blockersForKing(king, black_values, team_total[0]) :
+                      blockersForKing(king, white_values, team_total[1]);
+
+        for(int i = list.size()-1; i >= 0; i--){
+            int  m      = list.get(i);
+            int  from   = Move.getFrom(m);
+            long to     = 1L << Move.getTo(m);
+            byte type   = Move.getType(m);
+
+            boolean legal;
+            if(from == king){
+                legal = type == Move.CASTLING ?
+                        isCastlingLegal(Move.getTo(m), color) :
+                        attackersTo(Move.getTo(m), occupied ^ (1L << from), -color) == 0;
+            }else if(type == Move.EN_PASSENT){
+                legal = isEnPassantLegal(from, Move.getTo(m), king, color);
+            }else{
+                legal = (to & evasionTargets) != 0
+                        && ((pinned & (1L << from)) == 0 || (BitBoard.LINE_SQUARES[king][from] & to) != 0);
+            }
+            if(!legal){
+                list.remove(i);
             }
         }
+    }
 
-//        if(m.isPromotion()){
-//            this.occupied = BitBoard.unsetBit(this.occupied, m.getFrom());             //removing the moving piece
-//            this.occupied = BitBoard.setBit(this.occupied, m.getTo());                  //setting a bit where moved
-//
-//            boolean underAttack = isUnderAttack(thisKing, -this.getActivePlayer());
-//
-//            this.occupied = BitBoard.unsetBit(this.occupied, m.getTo());             //removing the moving piece
-//            this.occupied = BitBoard.setBit(this.occupied, m.getFrom());             //adding the moved piece
-//            return !underAttack;
-//        }
+    /**
+     * checks if the king of the given color can castle to the given square. The king must not be in check
+     * and must not pass or end on an attacked square.
+     * @param to
+     * @param color
+     * @return
+     */
+    private boolean isCastlingLegal(int to, int color){
+        long secure;
+        if(color == 1){
+            secure = to == 6 ? BitBoard.castling_white_kingside_safe : BitBoard.castling_white_queenside_safe;
+        }else{
+            secure = to == 6+56 ? BitBoard.castling_black_kingside_safe : BitBoard.castling_black_queenside_safe;
+        }
+        while(secure != 0){
+            if(attackersTo(BitBoard.bitscanForward(secure), occupied, -color) != 0){
+                return false;
+            }
+            secure = BitBoard.lsbReset(secure);
+        }
+        return true;
+    }
 
-        boolean isCap = m.getPieceTo() != 0;
+    /**
+     * checks if the en passant capture leaves the king in check. The captured pawn is not on the target square
+     * so the occupancy is computed for the position after the move.
+     * @param from
+     * @param to
+     * @param king
+     * @param color
+     * @return
+     */
+    private boolean isEnPassantLegal(int from, int to, int king, int color){
+        long captured = 1L << (to - 8 * color);
+        long occ = (occupied ^ (1L << from) ^ captured) | (1L << to);
+        return (attackersTo(king, occ, -color) & ~captured) == 0;
+    }
 
-        this.occupied = BitBoard.unsetBit(this.occupied, m.getFrom());             //removing the moving piece
-        this.occupied = BitBoard.setBit(this.occupied, m.getTo());                  //setting a bit where moved
+    /**
+     * tests a single pseudo legal move. The occupancy after the move is computed without modifying the board.
+     * Generating the legal moves with getLegalMoves() is faster if all moves need to be tested.
+     * @param m
+     * @return
+     */
+    @Override
+    public boolean isLegal(int m) {
 
-        boolean isAttacked;
+        int  from       = Move.getFrom(m);
+        int  to         = Move.getTo(m);
+        byte type       = Move.getType(m);
+        int  color      = getActivePlayer();
+        int  thisKing   = color == 1 ? white_pieces[5].get(0) : black_pieces[5].get(0);
 
-        if(Math.abs(m.getPieceFrom()) == 6){
-            thisKing = m.getTo();
+        if (type == Move.EN_PASSENT) {
+            return isEnPassantLegal(from, to, thisKing, color);
         }
 
-        if(isCap){
-            if(this.getActivePlayer() == 1){
-                this.black_values[-m.getPieceTo()-1] = BitBoard.unsetBit(this.black_values[-m.getPieceTo()-1], m.getTo());
-                isAttacked = isUnderAttack(thisKing, -this.getActivePlayer());
-                this.black_values[-m.getPieceTo()-1] = BitBoard.setBit(this.black_values[-m.getPieceTo()-1], m.getTo());
-            }else{
-                this.white_values[m.getPieceTo()-1] = BitBoard.unsetBit(this.white_values[m.getPieceTo()-1], m.getTo());
-                isAttacked = isUnderAttack(thisKing, -this.getActivePlayer());
-                this.white_values[m.getPieceTo()-1] = BitBoard.setBit(this.white_values[m.getPieceTo()-1], m.getTo());
-            }
-        }else{
-            isAttacked = isUnderAttack(thisKing, -this.getActivePlayer());
+        if (type == Move.CASTLING){
+            return isCastlingLegal(to, color);
         }
 
-        this.occupied = BitBoard.setBit(this.occupied, m.getFrom());                //adding the moved piece
-        if(isCap){
-            this.occupied = BitBoard.setBit(this.occupied, m.getTo());              //setting the piece back if captured
-        }else{
-            this.occupied = BitBoard.unsetBit(this.occupied, m.getTo());            //otherwise removing
+        if (from == thisKing){
+            return attackersTo(to, occupied ^ (1L << from), -color) == 0;
         }
 
+        //a captured piece does not attack the king anymore
+        long target = 1L << to;
+        return (attackersTo(thisKing, (occupied ^ (1L << from)) | target, -color) & ~target) == 0;
+    }
 
-        return !isAttacked;
+    /**
+     * returns all pieces of the given color which attack the square for the given occupancy.
+     * The board itself is not modified so the occupancy of a position after a move can be tested.
+     * @param square
+     * @param occupied
+     * @param attacker
+     * @return
+     */
+    public long attackersTo(int square, long occupied, int attacker){
+        long sq = 1L << square;
+        long[] values;
+        long pawns;
+        if(attacker == 1){
+            values = white_values;
+            pawns = BitBoard.shiftSouthEast(sq) | BitBoard.shiftSouthWest(sq);
+        }else{
+            values = black_values;
+            pawns = BitBoard.shiftNorthEast(sq) | BitBoard.shiftNorthWest(sq);
+        }
+        return  (BitBoard.lookUpRookAttack(square, occupied) & (values[4] | values[1])) |
+                (BitBoard.lookUpBishopAttack(square, occupied) & (values[4] | values[3])) |
+                (BitBoard.KNIGHT_ATTACKS[square] & values[2]) |
+                (pawns & values[0]) |
+                (BitBoard.KING_ATTACKS[square] & values[5]);
     }
 
     /**
@@ -976,8 +1330,12 @@ public class FastBoard extends Board<FastBoard> {
 
 
 
-    public boolean givesCheck(Move m){
-        long thisPos = 1L << m.getFrom();
+    @Override
+    public boolean givesCheck(int m){
+        int  from       = Move.getFrom(m);
+        int  to         = Move.getTo(m);
+        byte type       = Move.getType(m);
+        long target     = 1L << to;
         int  opponentKingPos;
         long opponentKing;
         long thisQueenBitboard;
@@ -1001,34 +1359,34 @@ public class FastBoard extends Board<FastBoard> {
 
 
         //direct check
-        switch (Math.abs(m.getPieceFrom())){
+        switch (Math.abs(Move.getPieceFrom(m))){
             case 5: {
-                if (((BitBoard.lookUpBishopAttack(m.getTo(), occupied) | (BitBoard.lookUpRookAttack(m.getTo(), occupied))) & opponentKing) != 0){
+                if (((BitBoard.lookUpBishopAttack(to, occupied) | (BitBoard.lookUpRookAttack(to, occupied))) & opponentKing) != 0){
                     return true;
                 }
                 break;
             }case 4: {
-                if (((BitBoard.lookUpBishopAttack(m.getTo(), occupied)) & opponentKing) != 0){
+                if (((BitBoard.lookUpBishopAttack(to, occupied)) & opponentKing) != 0){
                     return true;
                 }
                 break;
             }case 2: {
-                if (((BitBoard.lookUpRookAttack(m.getTo(), occupied)) & opponentKing) != 0){
+                if (((BitBoard.lookUpRookAttack(to, occupied)) & opponentKing) != 0){
                     return true;
                 }
                 break;
             }case 3: {
-                if (((BitBoard.KNIGHT_ATTACKS[m.getTo()]) & opponentKing) != 0){
+                if (((BitBoard.KNIGHT_ATTACKS[to]) & opponentKing) != 0){
                     return true;
                 }
                 break;
             }case 1: {
                 if(getActivePlayer() == 1){
-                    if(((BitBoard.shiftNorthEast(thisPos) | BitBoard.shiftNorthWest(thisPos)) & opponentKing)!= 0){
+                    if(((BitBoard.shiftNorthEast(target) | BitBoard.shiftNorthWest(target)) & opponentKing)!= 0){
                         return true;
                     }
                 }else{
-                    if(((BitBoard.shiftSouthEast(thisPos) | BitBoard.shiftSouthWest(thisPos)) & opponentKing)!= 0){
+                    if(((BitBoard.shiftSouthEast(target) | BitBoard.shiftSouthWest(target)) & opponentKing)!= 0){
                         return true;
                     }
                 }
@@ -1038,46 +1396,46 @@ public class FastBoard extends Board<FastBoard> {
 
         //discovered check
 
-        this.occupied = BitBoard.unsetBit(this.occupied, m.getFrom());
-        this.occupied = BitBoard.setBit(this.occupied, m.getTo());
-        if(isUnderAttack(opponentKingPos, getActivePlayer())){
-            this.occupied = BitBoard.unsetBit(this.occupied, m.getTo());
-            this.occupied = BitBoard.setBit(this.occupied, m.getFrom());
-            return true;
+        this.occupied = BitBoard.unsetBit(this.occupied, from);
+        this.occupied = BitBoard.setBit(this.occupied, to);
+        boolean discovered = isUnderAttack(opponentKingPos, getActivePlayer());
+        //the target square stays occupied if a piece is captured
+        if(Move.getPieceTo(m) == 0){
+            this.occupied = BitBoard.unsetBit(this.occupied, to);
         }
-        if(m.getPieceTo() == 0){
-            this.occupied = BitBoard.unsetBit(this.occupied, m.getTo());
+        this.occupied = BitBoard.setBit(this.occupied, from);
+        if(discovered){
+            return true;
         }
-        this.occupied = BitBoard.setBit(this.occupied, m.getFrom());
 
 
-        if(m.isCastle_move()){
-            this.occupied = BitBoard.unsetBit(this.occupied, m.getFrom());
+        if(type == Move.CASTLING){
+            this.occupied = BitBoard.unsetBit(this.occupied, from);
             int rookSquare = getActivePlayer() == 1 ?
-                    m.getTo()-m.getFrom()>0?5:3:
-                    m.getTo()-m.getFrom()>0?5+56:3+56;
-            if((BitBoard.lookUpRookAttack(rookSquare, occupied) & opponentKing) != 0){
-                this.occupied = BitBoard.unsetBit(this.occupied, m.getFrom());
+                    to-from>0?5:3:
+                    to-from>0?5+56:3+56;
+            boolean check = (BitBoard.lookUpRookAttack(rookSquare, occupied) & opponentKing) != 0;
+            this.occupied = BitBoard.setBit(this.occupied, from);
+            if(check){
                 return true;
             }
-            this.occupied = BitBoard.unsetBit(this.occupied, m.getFrom());
         }
 
-        if(m.isEn_passent_capture()){
+        if(type == Move.EN_PASSENT){
             if(this.getActivePlayer() == 1){
-                this.occupied = BitBoard.unsetBit(this.occupied, m.getTo()-8);
+                this.occupied = BitBoard.unsetBit(this.occupied, to-8);
                 if(isUnderAttack(opponentKingPos, 1)){
-                    this.occupied = BitBoard.setBit(this.occupied, m.getTo()-8);
+                    this.occupied = BitBoard.setBit(this.occupied, to-8);
                     return true;
                 }
-                this.occupied = BitBoard.setBit(this.occupied, m.getTo()-8);
+                this.occupied = BitBoard.setBit(this.occupied, to-8);
             }else{
-                this.occupied = BitBoard.unsetBit(this.occupied, m.getTo()+8);
+                this.occupied = BitBoard.unsetBit(this.occupied, to+8);
                 if(isUnderAttack(opponentKingPos, -1)){
-                    this.occupied = BitBoard.setBit(this.occupied, m.getTo()+8);
+                    this.occupied = BitBoard.setBit(this.occupied, to+8);
                     return true;
                 }
-                this.occupied = BitBoard.setBit(this.occupied, m.getTo()+8);
+                this.occupied = BitBoard.setBit(this.occupied, to+8);
             }
         }
         return false;
@@ -1109,33 +1467,131 @@ public class FastBoard extends Board<FastBoard> {
 
     @Override
     public Move generateMove(int from, int to, int promotionTarget) {
+        return new Move(generatePackedMove(from, to, promotionTarget));
+    }
+
+    @Override
+    public int generatePackedMove(int from, int to, int promotionTarget) {
         int pieceFrom = this.getPiece(from);
         int pieceTo = this.getPiece(to);
-
-        Move m = new Move(from, to, pieceFrom, pieceTo);
+        int type = Move.DEFAULT;
 
         if(Math.abs(pieceFrom) == 6 && Math.abs(to-from) == 2){
-            m.setType(Move.CASTLING);
+            type = Move.CASTLING;
         }
         if (Math.abs(pieceFrom) == 1){
             if (Math.abs(to - from) % 8 != 0 && pieceTo == 0) {
-                m.setType(Move.EN_PASSENT);
+                type = Move.EN_PASSENT;
             }
             if (pieceFrom > 0){
                 if(((1L << to) & BitBoard.rank_8) != 0){
                     assert promotionTarget > 0;
-                    m.setType(Move.PROMOTION);
-                    m.setPieceFrom(getActivePlayer() * promotionTarget);
+                    type = Move.PROMOTION;
+                    pieceFrom = getActivePlayer() * promotionTarget;
                 }
             }else{
                 if(((1L << to) & BitBoard.rank_1) != 0){
                     assert promotionTarget > 0;
-                    m.setType(Move.PROMOTION);
-                    m.setPieceFrom(getActivePlayer() * promotionTarget);
+                    type = Move.PROMOTION;
+                    pieceFrom = getActivePlayer() * promotionTarget;
                 }
             }
         }
-        return m;
+        return Move.create(from, to, pieceFrom, pieceTo, type);
+    }
+
+    @Override
+    public boolean isPseudoLegal(int m) {
+        int  from       = Move.getFrom(m);
+        int  to         = Move.getTo(m);
+        int  pieceFrom  = Move.getPieceFrom(m);
+        int  pieceTo    = Move.getPieceTo(m);
+        byte type       = Move.getType(m);
+        int  color      = getActivePlayer();
+        int  moving     = indexBoard[from];
+        long target     = 1L << to;
+
+        //the moving piece must belong to the active player and the captured piece must be an opponent piece
+        if(moving * color <= 0 || indexBoard[to] != pieceTo || pieceTo * color > 0 || Math.abs(pieceTo) == 6){
+            return false;
+        }
+        if(type == Move.PROMOTION){
+            if(moving != color || pieceFrom * color < 2 || pieceFrom * color > 5) return false;
+        }else if(moving != pieceFrom){
+            return false;
+        }
+
+        switch (Math.abs(moving)){
+            case 2:
+                return type == Move.DEFAULT && (BitBoard.lookUpRookAttack(from, occupied) & target) != 0;
+            case 3:
+                return type == Move.DEFAULT && (BitBoard.KNIGHT_ATTACKS[from] & target) != 0;
+            case 4:
+                return type == Move.DEFAULT && (BitBoard.lookUpBishopAttack(from, occupied) & target) != 0;
+            case 5:
+                return type == Move.DEFAULT && ((BitBoard.lookUpRookAttack(from, occupied) |
+                                                 BitBoard.lookUpBishopAttack(from, occupied)) & target) != 0;
+            case 6:
+                if(type == Move.CASTLING){
+                    return isPseudoLegalCastling(from, to, color);
+                }
+                return type == Move.DEFAULT && (BitBoard.KING_ATTACKS[from] & target) != 0;
+            case 1:
+                return isPseudoLegalPawnMove(from, to, pieceTo, type, color);
+        }
+        return false;
+    }
+
+    private boolean isPseudoLegalCastling(int from, int to, int color){
+        long metaInformation = metaHistory[ply];
+        if(color == 1){
+            if(from != 4) return false;
+            if(to == 2) return BitBoard.getBit(metaInformation, 0) &&
+                               BitBoard.getBit(white_values[1], 0) &&
+                               (BitBoard.castling_white_queenside_mask & occupied) == 0;
+            if(to == 6) return BitBoard.getBit(metaInformation, 1) &&
+                               BitBoard.getBit(white_values[1], 7) &&
+                               (BitBoard.castling_white_kingside_mask & occupied) == 0;
+        }else{
+            if(from != 4+56) return false;
+            if(to == 2+56) return BitBoard.getBit(metaInformation, 2) &&
+                                  BitBoard.getBit(black_values[1], 0+56) &&
+                                  (BitBoard.castling_black_queenside_mask & occupied) == 0;
+            if(to == 6+56) return BitBoard.getBit(metaInformation, 3) &&
+                                  BitBoard.getBit(black_values[1], 7+56) &&
+                                  (BitBoard.castling_black_kingside_mask & occupied) == 0;
+        }
+        return false;
+    }
+
+    private boolean isPseudoLegalPawnMove(int from, int to, int pieceTo, byte type, int color){
+        long origin     = 1L << from;
+        long target     = 1L << to;
+        int  forward    = 8 * color;
+        boolean lastRank = ((color == 1 ? BitBoard.rank_8 : BitBoard.rank_1) & target) != 0;
+
+        if(type == Move.CASTLING || lastRank != (type == Move.PROMOTION)){
+            return false;
+        }
+
+        long attacks = color == 1 ?
+                BitBoard.shiftNorthEast(origin) | BitBoard.shiftNorthWest(origin) :
+                BitBoard.shiftSouthEast(origin) | BitBoard.shiftSouthWest(origin);
+
+        if(type == Move.EN_PASSENT){
+            return (attacks & target & enPassantHistory[ply]) != 0;
+        }
+        if(pieceTo != 0){
+            return (attacks & target) != 0;
+        }
+        if(to - from == forward){
+            return true;
+        }
+        if(to - from == 2 * forward){
+            long startRank = color == 1 ? BitBoard.rank_2 : BitBoard.rank_7;
+            return (origin & startRank) != 0 && indexBoard[from + forward] == 0;
+        }
+        return false;
     }
 
     @Override
@@ -1171,13 +1627,54 @@ public class FastBoard extends Board<FastBoard> {
         return black_pieces;
     }
 
-    public RepetitionList getRepetitionList() {
-        return repetitionList;
+    /**
+     * returns the piece square tables whose sums are maintained by this board
+     * @return
+     */
+    public PieceSquareTables getPieceSquareTables() {
+        return pieceSquareTables;
+    }
+
+    /**
+     * sets the piece square tables whose sums are maintained by this board and recomputes the sums.
+     * Boards start with PieceSquareTables.EMPTY. Copies of the board share the tables.
+     * @param pieceSquareTables
+     */
+    public void setPieceSquareTables(PieceSquareTables pieceSquareTables) {
+        this.pieceSquareTables = pieceSquareTables;
+        this.pst_early_table = pieceSquareTables.getEarly();
+        this.pst_late_table = pieceSquareTables.getLate();
+        Arrays.fill(pst_early, 0);
+        Arrays.fill(pst_late, 0);
+        for(int i = 0; i < 64; i++){
+            int piece = indexBoard[i];
+            if(piece == 0) continue;
+            pst_early[Math.abs(piece) - 1] += pst_early_table[piece + 6][i];
+            pst_late[Math.abs(piece) - 1] += pst_late_table[piece + 6][i];
+        }
+    }
+
+    /**
+     * returns the sum of the early piece square values in centipawns for each piece type.
+     * white pieces are counted positive, black pieces negative.
+     * @return
+     */
+    public int[] getPst_early() {
+        return pst_early;
+    }
+
+    /**
+     * returns the sum of the late piece square values in centipawns for each piece type.
+     * white pieces are counted positive, black pieces negative.
+     * @return
+     */
+    public int[] getPst_late() {
+        return pst_late;
     }
 
     @Override
     public int hashCode() {
-        int result = Objects.hash(occupied, repetitionList, zobrist,getBoardStatus());
+        int result = Objects.hash(occupied, zobrist, enPassantHistory[ply], metaHistory[ply], fiftyMoveHistory[ply]);
         result = 31 * result + Arrays.hashCode(white_values);
         result = 31 * result + Arrays.hashCode(black_values);
         result = 31 * result + Arrays.hashCode(team_total);
@@ -1194,14 +1691,15 @@ public class FastBoard extends Board<FastBoard> {
         FastBoard board = (FastBoard) o;
         return occupied == board.occupied &&
                 zobrist == board.zobrist &&
-                getBoardStatus().equals(board.getBoardStatus()) &&
+                enPassantHistory[ply] == board.enPassantHistory[board.ply] &&
+                metaHistory[ply] == board.metaHistory[board.ply] &&
+                fiftyMoveHistory[ply] == board.fiftyMoveHistory[board.ply] &&
                 Arrays.equals(white_values, board.white_values) &&
                 Arrays.equals(black_values, board.black_values) &&
                 Arrays.equals(team_total, board.team_total) &&
                 Arrays.equals(indexBoard, board.indexBoard) &&
                 Arrays.equals(white_pieces, board.white_pieces) &&
-                Arrays.equals(black_pieces, board.black_pieces) &&
-                Objects.equals(repetitionList, board.repetitionList);
+                Arrays.equals(black_pieces, board.black_pieces);
     }
 
     public void compare(FastBoard o){
@@ -1212,8 +1710,8 @@ public class FastBoard extends Board<FastBoard> {
         System.out.println("occupied: " + zobrist);
         System.out.println("occupied: " + o.zobrist);
         System.out.println("----------------------------------------------------------------------------");
-        System.out.println("occupied: " + boardStatus);
-        System.out.println("occupied: " + o.boardStatus);
+        System.out.println("occupied: " + metaHistory[ply]);
+        System.out.println("occupied: " + o.metaHistory[o.ply]);
         System.out.println("----------------------------------------------------------------------------");
         System.out.println("occupied: " + Arrays.toString(white_values));
         System.out.println("occupied: " + Arrays.toString(o.white_values));
@@ -1233,9 +1731,6 @@ public class FastBoard extends Board<FastBoard> {
         System.out.println("occupied: " + Arrays.toString(black_pieces));
         System.out.println("occupied: " + Arrays.toString(o.black_pieces));
         System.out.println("----------------------------------------------------------------------------");
-        System.out.println("occupied: " + repetitionList);
-        System.out.println("occupied: " + o.repetitionList);
-        System.out.println("----------------------------------------------------------------------------");
     }
 
     public static void main(String[] args) {
@@ -0,0 +1,33 @@
+package board;
+
+/**
+ * piece square tables in centipawns indexed by [piece + 6][square] whose sums are maintained incrementally
+ * by the FastBoard. Values for black pieces are negated so the sums can be updated without checking the color.
+ *
+ * The tables belong to the evaluator which uses the sums. It supplies them to the board with
+ * FastBoard.setPieceSquareTables().
+ */
+public class PieceSquareTables {
+
+    public static final PieceSquareTables EMPTY = new PieceSquareTables(new int[13][64], new int[13][64]);
+
+    private final int[][] early;
+    private final int[][] late;
+
+    /**
+     * @param early     the early game values indexed by [piece + 6][square]
+     * @param late      the late game values indexed by [piece + 6][square]
+     */
+    public PieceSquareTables(int[][] early, int[][] late) {
+        this.early = early;
+        this.late = late;
+    }
+
+    public int[][] getEarly() {
+        return early;
+    }
+
+    public int[][] getLate() {
+        return late;
+    }
+}
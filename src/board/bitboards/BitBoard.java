@@ -1,12 +1,6 @@
 package board.bitboards;
 
 
-import java.io.*;
-import java.nio.ByteBuffer;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.StandardCopyOption;
-import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.Random;
 import java.util.Vector;
@@ -117,9 +111,10 @@ public class BitBoard {
 
 
     public static final boolean VALIDATE_MAGICS                     = false;
-    public static final boolean GENERATE_SLIDING_ATTACKS            = false;
-    public static final String  SLIDING_ATTACKS_SOURCE              = "board/bitboards/slidingAttacks.txt";
-    public static final long    NEW_LINE                            = 0xFFFFFFFFFFFFFFFFL;
+
+    //file and rank steps of the sliding pieces used to generate the attack tables
+    private static final int[][] ROOK_DIRECTIONS                    = {{1,0},{-1,0},{0,1},{0,-1}};
+    private static final int[][] BISHOP_DIRECTIONS                  = {{1,1},{1,-1},{-1,1},{-1,-1}};
 
 
     public static final long[][] all_hashes                         = new long[12][64];
@@ -301,11 +296,20 @@ public class BitBoard {
             0x0004020000000000L, 0x0008050000000000L, 0x00110a0000000000L, 0x0022140000000000L,
             0x0044280000000000L, 0x0088500000000000L, 0x0010a00000000000L, 0x0020400000000000L
     };
-    public static final long[][]                    ROOK_ATTACKS    = new long[64][];
-    public static final long[][]                    BISHOP_ATTACKS  = new long[64][];
+    /**
+     * the attacks of all rooks and bishops are stored in a single table. The attacks of a square start at its offset
+     * and are indexed by the magic index of the relevant occupancy (see lookUpRookAttack()).
+     */
+    public static final int[]                       ROOK_OFFSETS    = new int[64];
+    public static final int[]                       BISHOP_OFFSETS  = new int[64];
+    public static final long[]                      SLIDING_ATTACKS = new long[generateOffsets()];
 
-    public static final SlidingPieceBuffer[]        ROOK_BUFFER     = new SlidingPieceBuffer[64];
-    public static final SlidingPieceBuffer[]        BISHOP_BUFFER   = new SlidingPieceBuffer[64];
+    /**
+     * the squares strictly between two squares and the full line through two squares indexed by [square1][square2].
+     * Both are empty if the squares are not on a common rank, file or diagonal.
+     */
+    public static final long[][]                    BETWEEN_SQUARES = new long[64][64];
+    public static final long[][]                    LINE_SQUARES    = new long[64][64];
 
     public static final int index64[] = {
             0, 47,  1, 56, 48, 27,  2, 60,
@@ -321,24 +325,22 @@ public class BitBoard {
     public static final long seed                                   = 11291283;
     
 
+    public static final long initialisationTime;                   //time in ms which was required to generate the tables
+
     static {
         System.out.print("generating attack tables...");
         long t = System.currentTimeMillis();
         generateData();
-        System.out.println("       done! ["+String.format("%7s",(System.currentTimeMillis()-t)+ " ms") + "]");
+        initialisationTime = System.currentTimeMillis()-t;
+        System.out.println("       done! ["+String.format("%7s",initialisationTime+ " ms") + "]");
     }
 
     public static void generateData() {
-        generateBuffers();
         if(VALIDATE_MAGICS && !validateMagics())
             System.out.println("[Error] The magic numbers can not be used.");
         generateZobristKeys();
-
-        if(GENERATE_SLIDING_ATTACKS){
-            generateAttackTables();
-        }else{
-            loadAttackTables();
-        }
+        generateAttackTables();
+        generateLineTables();
     }
 
     public static void generateZobristKeys() {
@@ -353,25 +355,29 @@ public class BitBoard {
         }
     }
 
-    public static void generateBuffers() {
+    /**
+     * computes the offsets of each square inside the sliding attack table and returns the total size of the table
+     * @return
+     */
+    private static int generateOffsets() {
+        int size = 0;
         for (int i = 0; i < 64; i++){
-            long relevant = bishopMasks[i];
-            BISHOP_BUFFER[i] = new SlidingPieceBuffer(relevant, bishopMagics[i], bishopShifts[i]);
-            relevant = rookMasks[i];
-            ROOK_BUFFER[i] = new SlidingPieceBuffer(relevant, rookMagics[i], rookShifts[i]);
+            ROOK_OFFSETS[i] = size;
+            size += 1 << (64 - rookShifts[i]);
+            BISHOP_OFFSETS[i] = size;
+            size += 1 << (64 - bishopShifts[i]);
         }
+        return size;
     }
 
     public static boolean validateMagics() {
         boolean works = true;
         for(int i = 0; i < 64; i++){
-            if(!isValidMagic(ROOK_BUFFER[i].getMask(), ROOK_BUFFER[i].getShift(),
-                    ROOK_BUFFER[i].getMagic(),i,false)) {
+            if(!isValidMagic(rookMasks[i], rookShifts[i], rookMagics[i],i,false)) {
                 System.err.println("Error at: " + i);
                 works = false;
             }
-            if(!isValidMagic(BISHOP_BUFFER[i].getMask(), BISHOP_BUFFER[i].getShift(),
-                    BISHOP_BUFFER[i].getMagic(),i,true)){
+            if(!isValidMagic(bishopMasks[i], bishopShifts[i], bishopMagics[i],i,true)){
                 System.err.println("Error at: " + i);
                 works = false;
             }
@@ -379,104 +385,82 @@ public class BitBoard {
         return works;
     }
 
+    /**
+     * generates the attack tables of the sliding pieces for the stored magic numbers.
+     * The occupancies of each square are enumerated directly (carry-rippler) instead of populating the mask
+     * for every index so the tables are built in a few milliseconds during startup.
+     */
     public static void generateAttackTables() {
         for(int n = 0; n < 64; n++){
-            ROOK_ATTACKS[n] = new long[(int)Math.pow(2, 64-ROOK_BUFFER[n].getShift())];
-            for(int i = 0; i < (int)Math.pow(2, 64-ROOK_BUFFER[n].getShift()); i++){
-                long rel_occ = BitBoard.populateMask(ROOK_BUFFER[n].getMask(), i);
-                int index =(int)((rel_occ * ROOK_BUFFER[n].getMagic()) >>> (ROOK_BUFFER[n].getShift()));
-                ROOK_ATTACKS[n][index] = BitBoard.generateRookAttack(n, rel_occ);
-            }
-            BISHOP_ATTACKS[n] = new long[(int)Math.pow(2, 64-BISHOP_BUFFER[n].getShift())];
-            for(int i = 0; i < (int)Math.pow(2, 64-BISHOP_BUFFER[n].getShift()); i++){
-                long rel_occ = BitBoard.populateMask(BISHOP_BUFFER[n].getMask(), i);
-                int index =(int)((rel_occ * BISHOP_BUFFER[n].getMagic()) >>> (BISHOP_BUFFER[n].getShift()));
-                BISHOP_ATTACKS[n][index] = BitBoard.generateBishopAttack(n, rel_occ);
-            }
+            generateAttackTable(SLIDING_ATTACKS, n, ROOK_OFFSETS[n], rookMasks[n], rookMagics[n], rookShifts[n], ROOK_DIRECTIONS);
+            generateAttackTable(SLIDING_ATTACKS, n, BISHOP_OFFSETS[n], bishopMasks[n], bishopMagics[n], bishopShifts[n], BISHOP_DIRECTIONS);
         }
     }
 
-    public static void loadAttackTables() {
-        try{
-
-            ClassLoader classLoader = ClassLoader.getSystemClassLoader();
-            Path temp = Files.createTempFile("resource-", ".ext");
-
-            //System.out.println(classLoader+ "  " + temp + "  "  + classLoader.getResourceAsStream(SLIDING_ATTACKS_SOURCE));
-
-            Files.copy(classLoader.getResourceAsStream(SLIDING_ATTACKS_SOURCE), temp, StandardCopyOption.REPLACE_EXISTING);
-            FileInputStream fis = new FileInputStream(temp.toFile());
-
-            //System.out.println(fis);
-
-            //FileInputStream ins = BitBoard.class.getResourceAsStream("images/search_folder.png");
-            byte[] in = new byte[8];
-
-            ArrayList<Long> ar = new ArrayList<>();
-            int squareIndex = 0;
-            int counter = 0;
-
-            while(fis.read(in) != -1){
-                counter++;
-                long l = ((long) in[0] << 56)
-                        | ((long) in[1] & 0xff) << 48
-                        | ((long) in[2] & 0xff) << 40
-                        | ((long) in[3] & 0xff) << 32
-                        | ((long) in[4] & 0xff) << 24
-                        | ((long) in[5] & 0xff) << 16
-                        | ((long) in[6] & 0xff) << 8
-                        | ((long) in[7] & 0xff);
-
-                //long l = ByteBuffer.allocate(8).putLong(in).array();
-
-                if(l == NEW_LINE){
-                    long[] re = new long[ar.size()];
-                    for(int i = 0; i < ar.size(); i++) {
-                        re[i] = ar.get(i);
-                    }
-                    if(squareIndex > 63){
-                        BISHOP_ATTACKS[squareIndex-64] = re;
-                    }else{
-                        ROOK_ATTACKS[squareIndex] = re;
-                    }
-                    ar.clear();
-                    squareIndex++;
-                }else{
-                    ar.add(l);
+    /**
+     * generates the attacks of a single square for a sliding piece and writes them to the sliding attack table.
+     * The table is passed as an argument because static fields are slow to access while the class is initialised.
+     * @param table         the sliding attack table
+     * @param square        the square of the piece
+     * @param offset        the offset of the square inside the table
+     * @param mask          the relevant occupancy of the square
+     * @param magic
+     * @param shift
+     * @param directions    the file and rank steps of the piece
+     */
+    private static void generateAttackTable(long[] table, int square, int offset, long mask, long magic, int shift, int[][] directions){
+        long occupied = 0;
+        do{
+            table[offset + (int) ((occupied * magic) >>> shift)] = generateSlidingAttack(square, occupied, directions);
+            occupied = (occupied - mask) & mask;
+        }while(occupied != 0);
+    }
+
+    /**
+     * generates the tables of the squares between and on the line through two aligned squares.
+     * Requires the sliding attack tables.
+     */
+    public static void generateLineTables() {
+        for(int a = 0; a < 64; a++){
+            for(int b = 0; b < 64; b++){
+                if(a == b) continue;
+                long bitA = 1L << a;
+                long bitB = 1L << b;
+                if((lookUpRookAttack(a, 0L) & bitB) != 0){
+                    BETWEEN_SQUARES[a][b] = lookUpRookAttack(a, bitB) & lookUpRookAttack(b, bitA);
+                    LINE_SQUARES[a][b] = (lookUpRookAttack(a, 0L) & lookUpRookAttack(b, 0L)) | bitA | bitB;
+                }else if((lookUpBishopAttack(a, 0L) & bitB) != 0){
+                    BETWEEN_SQUARES[a][b] = lookUpBishopAttack(a, bitB) & lookUpBishopAttack(b, bitA);
+                    LINE_SQUARES[a][b] = (lookUpBishopAttack(a, 0L) & lookUpBishopAttack(b, 0L)) | bitA | bitB;
                 }
             }
-
-        } catch (FileNotFoundException e) {
-            e.printStackTrace();
-        } catch (IOException e) {
-            e.printStackTrace();
         }
     }
 
-    public static void writeAttackTables(String file){
-        try (FileOutputStream fos = new FileOutputStream(file)) {
-            for(int i = 0; i < 64; i++){
-                ByteBuffer bb = ByteBuffer.allocate(ROOK_ATTACKS[i].length * Long.BYTES);
-                bb.asLongBuffer().put(ROOK_ATTACKS[i]);
-                fos.write(bb.array());
-                bb = ByteBuffer.allocate(Long.BYTES);
-                bb.asLongBuffer().put(NEW_LINE);
-                fos.write(bb.array());
-            }
-            for(int i = 0; i < 64; i++){
-                ByteBuffer bb = ByteBuffer.allocate(BISHOP_ATTACKS[i].length * Long.BYTES);
-                bb.asLongBuffer().put(BISHOP_ATTACKS[i]);
-                fos.write(bb.array());
-                bb = ByteBuffer.allocate(Long.BYTES);
-                bb.asLongBuffer().put(NEW_LINE);
-                fos.write(bb.array());
+    /**
+     * generates the attacks of a sliding piece on the given square. The first occupied square in each direction
+     * is included.
+     * @param square
+     * @param occupied
+     * @param directions    the file and rank steps of the piece
+     * @return
+     */
+    private static long generateSlidingAttack(int square, long occupied, int[][] directions){
+        long attacks = 0;
+        int file = square & 7;
+        int rank = square >>> 3;
+        for(int[] direction:directions){
+            int f = file + direction[0];
+            int r = rank + direction[1];
+            while(f >= 0 && f < 8 && r >= 0 && r < 8){
+                long bit = 1L << (r * 8 + f);
+                attacks |= bit;
+                if((occupied & bit) != 0) break;
+                f += direction[0];
+                r += direction[1];
             }
-
-        } catch (FileNotFoundException e) {
-            e.printStackTrace();
-        } catch (IOException e) {
-            e.printStackTrace();
         }
+        return attacks;
     }
 
     /**
@@ -632,17 +616,15 @@ public class BitBoard {
 
 
     public static long lookUpRookAttack(int index, long occupied){
-        SlidingPieceBuffer buff = ROOK_BUFFER[index];
-        return ROOK_ATTACKS[index][(int)((occupied & buff.getMask()) *
-                buff.getMagic() >>> (buff.getShift()))];
+        return SLIDING_ATTACKS[ROOK_OFFSETS[index] + (int)((occupied & rookMasks[index]) *
+                rookMagics[index] >>> rookShifts[index])];
 
         //return generateRookAttack(index, occupied);
     }
 
     public static long lookUpBishopAttack(int index, long occupied){
-        SlidingPieceBuffer buff = BISHOP_BUFFER[index];
-        return BISHOP_ATTACKS[index][(int)((occupied & buff.getMask()) *
-                buff.getMagic() >>> (buff.getShift()))];
+        return SLIDING_ATTACKS[BISHOP_OFFSETS[index] + (int)((occupied & bishopMasks[index]) *
+                bishopMagics[index] >>> bishopShifts[index])];
 
         //return generateBishopAttack(index, occupied);
     }
@@ -1062,8 +1044,6 @@ public class BitBoard {
 
         //System.out.println("written");
 
-//        writeAttackTables(SLIDING_ATTACKS_SOURCE);
-
 
 
 //        BitBoard.printBitmap(castling_white_queenside_safe);
@@ -22,10 +22,6 @@ public final class Move {
     byte    type;
 
 
-    long orderPriority;
-    int seeScore;
-
-
 
     public Move(int from, int to, int pieceFrom, int pieceTo) {
         this.from = from;
@@ -34,6 +30,18 @@ public final class Move {
         this.pieceTo = pieceTo;
     }
 
+    /**
+     * decodes a move which has been packed by {@link #packMove()} or {@link #create(int, int, int, int, int)}
+     * @param move
+     */
+    public Move(int move) {
+        this.from = getFrom(move);
+        this.to = getTo(move);
+        this.pieceFrom = getPieceFrom(move);
+        this.pieceTo = getPieceTo(move);
+        this.type = getType(move);
+    }
+
     public Move(int from, int to, Board board) {
         this.from = from;
         this.to = to;
@@ -45,24 +53,9 @@ public final class Move {
     public Move copy() {
         Move copy = new Move(from, to, pieceFrom, pieceTo);
         copy.setType(type);
-        copy.setOrderPriority(orderPriority);
         return copy;
     }
 
-    public int getSeeScore() {
-        return seeScore;
-    }
-
-    public void setSeeScore(int seeScore) {
-        this.seeScore = seeScore;
-    }
-
-    public long getOrderPriority() { return orderPriority; }
-
-    public void setOrderPriority(long orderPriority) {
-        this.orderPriority = orderPriority;
-    }
-
     public int getPieceFrom() {
         return pieceFrom;
     }
@@ -120,14 +113,84 @@ public final class Move {
         return getPieceTo() != 0;
     }
 
+    /**
+     * compresses the move into 16 bits which is enough to identify a move within a given position.
+     * bits 0-5 contain the origin, bits 6-11 the target and bits 12-14 the (absolute) promotion piece.
+     * used to store moves inside the transposition table.
+     * @return
+     */
+    public int compress(){
+        return from | (to << 6) | ((isPromotion() ? Math.abs(pieceFrom) : 0) << 12);
+    }
+
     public int packMove(){
-        int i = 0;
-        i |= (this.getFrom());
-        i |= (this.getTo()) << 6;
-        i |= (this.getPieceFrom()+6) << 12;
-        i |= (this.getPieceTo()+6) << 16;
-        i |= (this.getType()) << 20;
-        return i;
+        return create(from, to, pieceFrom, pieceTo, type);
+    }
+
+    /**
+     * packs a move into a single int. This is the representation used inside the search and the move lists.
+     *
+     *      bits  0 -  5    origin
+     *      bits  6 - 11    target
+     *      bits 12 - 15    moving piece + 6 (the promoted piece for promotions)
+     *      bits 16 - 19    captured piece + 6
+     *      bits 20 - 21    type
+     *
+     * a packed move is never 0 because the moving piece is never empty. 0 can therefor be used for "no move".
+     * @param from
+     * @param to
+     * @param pieceFrom
+     * @param pieceTo
+     * @param type
+     * @return
+     */
+    public static int create(int from, int to, int pieceFrom, int pieceTo, int type){
+        return from | (to << 6) | ((pieceFrom + 6) << 12) | ((pieceTo + 6) << 16) | (type << 20);
+    }
+
+    public static int getFrom(int move){
+        return move & 0x3F;
+    }
+
+    public static int getTo(int move){
+        return (move >>> 6) & 0x3F;
+    }
+
+    public static int getPieceFrom(int move){
+        return ((move >>> 12) & 0xF) - 6;
+    }
+
+    public static int getPieceTo(int move){
+        return ((move >>> 16) & 0xF) - 6;
+    }
+
+    public static byte getType(int move){
+        return (byte) ((move >>> 20) & 0x3);
+    }
+
+    public static boolean isCapture(int move){
+        return (move & 0xF0000) != (6 << 16);
+    }
+
+    public static boolean isPromotion(int move){
+        return getType(move) == PROMOTION;
+    }
+
+    public static boolean isCastle_move(int move){
+        return getType(move) == CASTLING;
+    }
+
+    public static boolean isEn_passent_capture(int move){
+        return getType(move) == EN_PASSENT;
+    }
+
+    /**
+     * compresses a packed move into 16 bits (see {@link #compress()})
+     * @param move
+     * @return
+     */
+    public static int compress(int move){
+        return (move & 0xFFF) | ((isPromotion(move) ? Math.abs(getPieceFrom(move)) : 0) << 12);
     }
 
 
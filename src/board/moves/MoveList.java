@@ -2,267 +2,160 @@ package board.moves;
 
 import board.Board;
 
-import java.util.*;
-import java.util.function.Consumer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
-public class MoveList implements Iterable<Move>, List<Move> {
+/**
+ * a list of packed moves (see {@link Move#create(int, int, int, int, int)}).
+ * The moves, their order scores and their SEE scores are stored in parallel primitive arrays
+ * so generating and sorting moves does not create any objects.
+ */
+public class MoveList {
 
-    private Move[] moves;
-    private int size = 0;
+    private int[]  moves;
+    private long[] scores;
+    private int[]  seeScores;
+    private int    size = 0;
 
 
     public MoveList(int maxSize) {
-        this.moves = new Move[maxSize];
-        for(int i = 0; i < this.moves.length; i++){
-            this.moves[i] = new Move(0,0,0,0);
-        }
+        this.moves = new int[maxSize];
+        this.scores = new long[maxSize];
+        this.seeScores = new int[maxSize];
     }
 
     public void clear(){
         this.size = 0;
     }
 
-    @Override
-    public Move get(int index) {
+    public int get(int index) {
         return this.moves[index];
     }
 
-    @Override
-    public Move set(int index, Move element) {
-        Move old = this.moves[index];
-        this.moves[index] = element;
-        return old;
+    public long getScore(int index) {
+        return this.scores[index];
     }
 
-    @Override
-    public void add(int index, Move element) {
-        this.swap(index, size);
-        this.set(index, element);
+    public void setScore(int index, long score) {
+        this.scores[index] = score;
+    }
+
+    public int getSeeScore(int index) {
+        return this.seeScores[index];
+    }
+
+    public void setSeeScore(int index, int seeScore) {
+        this.seeScores[index] = seeScore;
     }
 
     public void swap(int index1, int index2){
-        Move m = moves[index1];
+        int m = moves[index1];
         moves[index1] = moves[index2];
         moves[index2] = m;
+
+        long s = scores[index1];
+        scores[index1] = scores[index2];
+        scores[index2] = s;
+
+        int see = seeScores[index1];
+        seeScores[index1] = seeScores[index2];
+        seeScores[index2] = see;
     }
 
-    @Override
-    public Move remove(int index) {
-        Move m = moves[index];
-        moves[index] = moves[size-1];
-        moves[size-1] = m;
+    /**
+     * removes the move at the given index by swapping it with the last move.
+     * @param index
+     * @return
+     */
+    public int remove(int index) {
+        int m = moves[index];
+        swap(index, size-1);
         size--;
         return m;
     }
 
-    @Override
-    public int indexOf(Object o) {
+    public int indexOf(int move) {
         for(int i = 0; i < size; i++){
-            if(moves[i].equals(o)){
+            if(moves[i] == move){
                 return i;
             }
         }return -1;
     }
 
-    @Override
-    public int lastIndexOf(Object o) {
-        for(int i = size-1; i >= 0; i++){
-            if(o.equals(moves[i])){
-                return i;
-            }
-        }return -1;
+    public boolean contains(int move) {
+        return indexOf(move) != -1;
     }
 
     public void setCapacity(int newCap){
-        Move[] ar = new Move[newCap];
-        for(int i = 0; i < this.moves.length; i++){
-            ar[i] = this.moves[i];
-        }
-        for(int i = this.moves.length; i < ar.length; i++){
-            ar[i] = new Move(0,0,0,0);
-        }
-        this.moves = ar;
-    }
-
-    @Override
-    public ListIterator<Move> listIterator() {
-        return this.listIterator(-1);
-    }
-
-    @Override
-    public ListIterator<Move> listIterator(int pindex) {
-        return new ListIterator<Move>() {
-
-            int index = pindex;
-
-            @Override
-            public boolean hasNext() {
-                return index < size - 1;
-            }
-
-            @Override
-            public Move next() {
-                return moves[++index];
-            }
-
-            @Override
-            public boolean hasPrevious() {
-                return index > 0;
-            }
-
-            @Override
-            public Move previous() {
-                return moves[--index];
-            }
-
-            @Override
-            public int nextIndex() {
-                return index + 1;
-            }
-
-            @Override
-            public int previousIndex() {
-                return index - 1;
-            }
-
-            @Override
-            public void remove() {
-                throw new RuntimeException();
-            }
-
-            @Override
-            public void set(Move move) {
-                throw new RuntimeException();
-            }
-
-            @Override
-            public void add(Move move) {
-                throw new RuntimeException();
-            }
-        };
-    }
-
-    @Override
-    public void sort(Comparator<? super Move> c) {
-        if (this.size == 0) return;
-        quicksort(0, this.size-1);
-    }
-
-    private void quicksort(int low, int high) {
-        int i = low, j = high;
-        // Get the pivot element from the middle of the list
-        long pivot = moves[low + (high-low)/2].getOrderPriority();
-
-        // Divide into two lists
-        while (i <= j) {
-            // If the current value from the left list is smaller than the pivot
-            // element then get the next element from the left list
-            while (moves[i].getOrderPriority() > pivot) {
-                i++;
-            }
-            // If the current value from the right list is larger than the pivot
-            // element then get the next element from the right list
-            while (moves[j].getOrderPriority() < pivot) {
-                j--;
-            }
-
-            // If we have found a value in the left list which is larger than
-            // the pivot element and if we have found a value in the right list
-            // which is smaller than the pivot element then we exchange the
-            // values.
-            // As we are done we can increase i and j
-            if (i <= j) {
-                swap(i, j);
-                i++;
+        this.moves = Arrays.copyOf(moves, newCap);
+        this.scores = Arrays.copyOf(scores, newCap);
+        this.seeScores = Arrays.copyOf(seeScores, newCap);
+    }
+
+    /**
+     * sorts the moves by their score in descending order.
+     * The sort is stable so moves with the same score keep the order in which they have been generated.
+     * Insertion sort is used because the lists are short.
+     */
+    public void sort() {
+        for(int i = 1; i < size; i++){
+            int  m   = moves[i];
+            long s   = scores[i];
+            int  see = seeScores[i];
+            int  j   = i - 1;
+            while(j >= 0 && scores[j] < s){
+                moves[j+1] = moves[j];
+                scores[j+1] = scores[j];
+                seeScores[j+1] = seeScores[j];
                 j--;
             }
+            moves[j+1] = m;
+            scores[j+1] = s;
+            seeScores[j+1] = see;
         }
-        // Recursion
-        if (low < j)
-            quicksort(low, j);
-        if (i < high)
-            quicksort(i, high);
     }
 
-        @Override
-    public List<Move> subList(int fromIndex, int toIndex) {
-        throw new RuntimeException();
+    public void add(int from, int to, Board board) {
+        this.add(from,to,board.getPiece(from),board.getPiece(to));
     }
 
+    public void add(int from, int to, int pieceFrom, int pieceTo) {
+        this.add(Move.create(from, to, pieceFrom, pieceTo, Move.DEFAULT));
+    }
 
-    public Move add(int from, int to, Board board) {
-        return this.add(from,to,board.getPiece(from),board.getPiece(to));
+    public void add(int from, int to, int pieceFrom, int pieceTo, int type) {
+        this.add(Move.create(from, to, pieceFrom, pieceTo, type));
     }
 
-    public Move add(int from, int to, int pieceFrom, int pieceTo) {
+    public void add(int move) {
         if(this.size == moves.length){
             this.setCapacity(moves.length * 2);
         }
-        Move m = this.moves[size];
-        m.from = from;
-        m.to = to;
-        m.pieceFrom = pieceFrom;
-        m.pieceTo = pieceTo;
-        m.type = 0;
+        this.moves[size] = move;
+        this.scores[size] = 0;
+        this.seeScores[size] = 0;
         this.size ++;
-        return m;
     }
 
-
-    @Override
     public int size() {
         return size;
     }
 
-    @Override
     public boolean isEmpty() {
         return size == 0;
     }
 
-    @Override
-    public boolean contains(Object o) {
-        for(int i = 0; i < this.size; i++){
-            if(o.equals(moves[i])) return true;
-        }
-        return false;
-    }
-
-    @Override
-    public Iterator<Move> iterator() {
-        return new Iterator<Move>() {
-            int index = 0;
-
-            @Override
-            public boolean hasNext() {
-                return index < size;
-            }
-
-            @Override
-            public Move next() {
-                return moves[index++];
-            }
-        };
-    }
-
-
-    @Override
-    public Object[] toArray() {
-        return Arrays.copyOf(moves, size);
-    }
-
-    @Override
-    public <T> T[] toArray(T[] a) {
-        throw new RuntimeException("Not yet implemented");
-    }
-
-    @Override
-    public boolean add(Move move) {
-        if(size == this.moves.length){
-            setCapacity(size * 2);
+    /**
+     * decodes all moves into move objects. Should not be used inside the search.
+     * @return
+     */
+    public List<Move> toList() {
+        ArrayList<Move> list = new ArrayList<>(size);
+        for(int i = 0; i < size; i++){
+            list.add(new Move(moves[i]));
         }
-        this.moves[size] = move;
-        size++;
-        return true;
+        return list;
     }
 
     @Override
@@ -272,64 +165,19 @@ public class MoveList implements Iterable<Move>, List<Move> {
         StringBuilder builder = new StringBuilder();
         builder.append("MoveList:\n");
         for(int i = 0; i < size(); i++){
-            builder.append("\t"+moves[i]+"\n");
+            builder.append("\t"+new Move(moves[i])+"\n");
         }
 
         return builder.toString();
     }
 
-    @Override
-    public boolean remove(Object o) {
-        throw new RuntimeException("Not yet implemented");
-    }
-
-    @Override
-    public boolean containsAll(Collection<?> c) {
-        throw new RuntimeException("Not yet implemented");
-    }
-
-    @Override
-    public boolean addAll(Collection<? extends Move> c) {
-        for(Move m:c){
-            moves[size] = m;
-            size++;
-        }
-        return true;
-    }
-
-    @Override
-    public boolean addAll(int index, Collection<? extends Move> c) {
-        throw new RuntimeException("Not yet implemented");
-    }
-
-    @Override
-    public boolean removeAll(Collection<?> c) {
-        throw new RuntimeException("Not yet implemented");
-    }
-
-    @Override
-    public boolean retainAll(Collection<?> c) {
-        throw new RuntimeException("Not yet implemented");
-    }
-
-    @Override
-    public void forEach(Consumer<? super Move> action) {
-        for(int i = 0; i < size; i++){
-            action.accept(moves[i]);
-        }
-    }
-
-    @Override
-    public Spliterator<Move> spliterator() {
-        throw new RuntimeException("Not yet implemented");
-    }
-
     public static void main(String[] args) {
         MoveList moves = new MoveList(10);
         for(int i = 0; i < 10; i++){
-            moves.add(i,6,3,4).setOrderPriority(i);
+            moves.add(i,6,3,4);
+            moves.setScore(i, i);
         }
-        moves.sort(null);
+        moves.sort();
         System.out.println(moves);
     }
 }
@@ -92,6 +92,20 @@ public class PieceList {
         size--;
     }
 
+    /**
+     * replaces the given position with a new one. The order of the positions is kept.
+     * @param from
+     * @param to
+     */
+    public void move(int from, int to){
+        for(int i = 0; i < this.size; i++){
+            if(this.indices[i] == from){
+                this.indices[i] = to;
+                return;
+            }
+        }
+    }
+
     /**
      * checks if this list equals another list.
      * this also checks if the positions are equal
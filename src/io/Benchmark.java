@@ -0,0 +1,207 @@
+package io;
+
+import ai.evaluator.Evaluator;
+import ai.search.AdvancedSearch;
+import board.FastBoard;
+import board.bitboards.BitBoard;
+import board.moves.Move;
+import board.moves.MoveList;
+import board.setup.Setup;
+
+/**
+ * a small benchmark suite for the board, the move generation, the evaluation and the search.
+ * Every benchmark runs over the same set of standard positions. It is warmed up first so the jit has compiled
+ * the code before the measured iterations start. The results are printed as nanoseconds per operation
+ * (milliseconds per position for the search) so they can be compared between two versions of the engine.
+ *
+ * The suite can be started with the "bench" command of the UCI interface.
+ */
+public class Benchmark {
+
+    public static final String[] POSITIONS = new String[]{
+            "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1",
+            "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+            "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+            "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1",
+            "rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8",
+            "r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10",
+            "r1bq1rk1/pp2bppp/2n1pn2/3p4/2PP4/2N1PN2/PP1QBPPP/R3KB1R w KQ - 4 9",
+            "2r2rk1/1bqnbppp/p2ppn2/1p6/3NP3/1BN1BP2/PPPQ2PP/2KR3R w - - 0 14",
+            "8/5pk1/6p1/3P4/1p3P2/1P4P1/5K2/8 w - - 0 45",
+            "6k1/5ppp/8/8/8/8/2Q2PPP/6K1 w - - 0 1",
+    };
+
+    public static final int DEFAULT_WARMUP_ITERATIONS   = 200;
+    public static final int DEFAULT_ITERATIONS          = 1000;
+    public static final int ATTACK_TABLE_ITERATIONS     = 20;
+
+    private static long     sink;                       //results are collected here so the jit cannot remove the work
+
+
+    /**
+     * a single benchmark which is run once for each position.
+     */
+    private interface Task {
+        /**
+         * runs the benchmark on the given board and returns the amount of operations that have been done.
+         * The board needs to be in the same state after the call.
+         */
+        int run(FastBoard board, MoveList moves);
+    }
+
+    /**
+     * runs all benchmarks and prints the results.
+     * @param search        the search used for the search benchmark. its evaluator is used for the evaluation benchmarks.
+     * @param searchDepth   the depth to which each position is searched
+     */
+    public static void run(AdvancedSearch search, int searchDepth){
+        FastBoard[] boards = new FastBoard[POSITIONS.length];
+        for(int i = 0; i < boards.length; i++){
+            boards[i] = IO.read_FEN(new FastBoard(Setup.DEFAULT), POSITIONS[i]);
+        }
+        MoveList moves = new MoveList(256);
+        Evaluator evaluator = search.getEvaluator();
+        for(FastBoard board:boards){
+            evaluator.attach(board);
+        }
+
+        measureStartup();
+        measure("getPseudoLegalMoves", boards, moves, (board, list) -> {
+            board.getPseudoLegalMoves(list);
+            sink += list.size();
+            return 1;
+        });
+        measure("getLegalMoves", boards, moves, (board, list) -> {
+            board.getLegalMoves(list);
+            sink += list.size();
+            return 1;
+        });
+        measure("move/undoMove", boards, moves, (board, list) -> {
+            board.getPseudoLegalMoves(list);
+            int count = 0;
+            for(int i = 0; i < list.size(); i++){
+                board.move(list.get(i));
+                sink += board.zobrist();
+                board.undoMove();
+                count ++;
+            }
+            return count;
+        });
+        measure("isLegal", boards, moves, (board, list) -> {
+            board.getPseudoLegalMoves(list);
+            for(int i = 0; i < list.size(); i++){
+                if(board.isLegal(list.get(i))) sink ++;
+            }
+            return list.size();
+        });
+        measure("givesCheck", boards, moves, (board, list) -> {
+            board.getPseudoLegalMoves(list);
+            for(int i = 0; i < list.size(); i++){
+                if(board.givesCheck(list.get(i))) sink ++;
+            }
+            return list.size();
+        });
+        measure("evaluate", boards, moves, (board, list) -> {
+            sink += (long) evaluator.evaluate(board);
+            return 1;
+        });
+        measure("staticExchangeEvaluation", boards, moves, (board, list) -> {
+            board.getPseudoLegalMoves(list);
+            int count = 0;
+            for(int i = 0; i < list.size(); i++){
+                int m = list.get(i);
+                if(Move.getType(m) != Move.DEFAULT || !Move.isCapture(m)) continue;
+                sink += evaluator.staticExchangeEvaluation(board, Move.getTo(m), Move.getPieceTo(m),
+                                                                  Move.getFrom(m), Move.getPieceFrom(m), board.getActivePlayer());
+                count ++;
+            }
+            return count;
+        });
+        measure("see_ge", boards, moves, (board, list) -> {
+            board.getPseudoLegalMoves(list);
+            int count = 0;
+            for(int i = 0; i < list.size(); i++){
+                int m = list.get(i);
+                if(Move.getType(m) != Move.DEFAULT || !Move.isCapture(m)) continue;
+                if(evaluator.see_ge(board, m, 0)) sink ++;
+                count ++;
+            }
+            return count;
+        });
+
+        measureSearch(search, boards, searchDepth);
+
+        if(sink == 42) System.out.println();
+    }
+
+    /**
+     * warms up the task and measures the average time per operation.
+     * @param name      the name printed with the result
+     * @param boards    the positions
+     * @param moves     the move list passed to the task
+     * @param task      the benchmark
+     */
+    private static void measure(String name, FastBoard[] boards, MoveList moves, Task task){
+        for(int i = 0; i < DEFAULT_WARMUP_ITERATIONS; i++){
+            for(FastBoard board:boards){
+                task.run(board, moves);
+            }
+        }
+
+        long operations = 0;
+        long t0 = System.nanoTime();
+        for(int i = 0; i < DEFAULT_ITERATIONS; i++){
+            for(FastBoard board:boards){
+                operations += task.run(board, moves);
+            }
+        }
+        long time = System.nanoTime() - t0;
+
+        System.out.println(String.format("%-30s : %10.2f ns/op %12d ops", name, (double) time / Math.max(1, operations), operations));
+    }
+
+    /**
+     * prints the time which has been required to generate the attack tables when the engine started
+     * and the time to generate them with a warmed up jit.
+     */
+    private static void measureStartup(){
+        System.out.println(String.format("%-30s : %10d ms", "attack tables (startup)", BitBoard.initialisationTime));
+
+        for(int i = 0; i < ATTACK_TABLE_ITERATIONS; i++){
+            BitBoard.generateAttackTables();
+        }
+        long t0 = System.nanoTime();
+        for(int i = 0; i < ATTACK_TABLE_ITERATIONS; i++){
+            BitBoard.generateAttackTables();
+        }
+        long time = System.nanoTime() - t0;
+        System.out.println(String.format("%-30s : %10.2f ms", "generateAttackTables", time / 1E6 / ATTACK_TABLE_ITERATIONS));
+    }
+
+    /**
+     * searches each position to a fixed depth with an empty transposition table and prints the time per position.
+     * @param search    the search
+     * @param boards    the positions
+     * @param depth     the search depth
+     */
+    private static void measureSearch(AdvancedSearch search, FastBoard[] boards, int depth){
+        boolean printOverview = search.isPrint_overview();
+        search.setPrint_overview(false);
+        search.setLimit_flag(AdvancedSearch.FLAG_DEPTH_LIMIT);
+        search.setLimit(depth);
+
+        long total = 0;
+        for(int i = 0; i < boards.length; i++){
+            search.clearHash();
+            long t0 = System.currentTimeMillis();
+            Move best = search.bestMove(boards[i]);
+            long time = System.currentTimeMillis() - t0;
+            total += time;
+            System.out.println(String.format("%-30s : %10d ms    %s", "bestMove [" + (i+1) + "]", time, UCI.moveToUCI(best, boards[i])));
+        }
+        System.out.println(String.format("%-30s : %10d ms", "bestMove depth " + depth, total));
+
+        search.setPrint_overview(printOverview);
+    }
+
+}
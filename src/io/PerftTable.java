@@ -0,0 +1,99 @@
+package io;
+
+import board.Board;
+
+import java.util.Random;
+
+/**
+ * a hash table which stores the perft results of already counted subtrees.
+ * The zobrist key of the board only contains the pieces so the key is extended by the active player,
+ * the castling rights, the en passant square and the remaining depth.
+ *
+ * The table can be shared between threads without locking. The key is stored xor-ed with the node count
+ * so an entry which has been partially overwritten by another thread will not match the key anymore.
+ */
+public class PerftTable {
+
+    private static final long   ACTIVE_PLAYER_HASH;
+    private static final long[] CASTLING_HASHES    = new long[16];
+    private static final long[] EN_PASSANT_HASHES  = new long[64];
+    private static final long[] DEPTH_HASHES       = new long[128];
+
+    static {
+        Random random = new Random(2345678);
+        ACTIVE_PLAYER_HASH = random.nextLong();
+        for(int i = 0; i < CASTLING_HASHES.length; i++){
+            CASTLING_HASHES[i] = random.nextLong();
+        }
+        for(int i = 0; i < EN_PASSANT_HASHES.length; i++){
+            EN_PASSANT_HASHES[i] = random.nextLong();
+        }
+        for(int i = 0; i < DEPTH_HASHES.length; i++){
+            DEPTH_HASHES[i] = random.nextLong();
+        }
+    }
+
+    private final long[] keys;
+    private final long[] nodes;
+    private final int    mask;
+
+    /**
+     * creates a table with the given size in MB. The amount of entries is rounded down to a power of two.
+     * @param sizeMB
+     */
+    public PerftTable(int sizeMB) {
+        long entries = Long.highestOneBit(Math.max(1, (long) sizeMB * 1024 * 1024 / 16));
+        this.keys = new long[(int) entries];
+        this.nodes = new long[(int) entries];
+        this.mask = (int) entries - 1;
+    }
+
+    /**
+     * computes the key of the current position for the given depth
+     * @param board
+     * @param depth
+     * @return
+     */
+    public static long key(Board board, int depth){
+        long key = board.zobrist() ^ DEPTH_HASHES[depth];
+        if(board.getActivePlayer() < 0){
+            key ^= ACTIVE_PLAYER_HASH;
+        }
+        int castling = 0;
+        for(int i = 0; i < 4; i++){
+            if(board.getCastlingChance(i)){
+                castling |= 1 << i;
+            }
+        }
+        key ^= CASTLING_HASHES[castling];
+        if(board.getEnPassantSquare() >= 0){
+            key ^= EN_PASSANT_HASHES[board.getEnPassantSquare()];
+        }
+        return key;
+    }
+
+    /**
+     * returns the stored node count for the key or -1 if the key is not stored.
+     * @param key
+     * @return
+     */
+    public long get(long key){
+        int index = (int) key & mask;
+        long n = nodes[index];
+        if((keys[index] ^ n) == key){
+            return n;
+        }
+        return -1;
+    }
+
+    /**
+     * stores the node count for the key. Existing entries are always replaced.
+     * @param key
+     * @param n
+     */
+    public void put(long key, long n){
+        int index = (int) key & mask;
+        keys[index] = key ^ n;
+        nodes[index] = n;
+    }
+}
@@ -2,10 +2,15 @@ package io;
 
 import board.Board;
 import board.moves.Move;
+import board.moves.MoveList;
 import board.moves.MoveListBuffer;
 import ai.search.AI;
 import ai.tools.SearchOverview;
+import ai.tools.threads.Pool;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -26,24 +31,26 @@ public class Testing {
         }
         int nodes = 0;
 
-        List<Move> moves = board.getPseudoLegalMoves(buffer.get(depthLeft));
+        MoveList moves = board.getPseudoLegalMoves(buffer.get(depthLeft));
 
-        for(Object m:moves){
+        for(int i = 0; i < moves.size(); i++){
 
-            if(!board.isLegal((Move)m)){
+            int m = moves.get(i);
+
+            if(!board.isLegal(m)){
                 continue;
             }
 
             if(depthLeft == 1){
                 nodes ++;
             }else{
-                board.move((Move)m);
+                board.move(m);
                 int nd = perft_pseudo(board, depthLeft-1,buffer, false);
                 nodes += nd;
                 board.undoMove();
 
                 if(printDiv){
-                    System.out.println(IO.getSquareString(((Move) m).getFrom())+ IO.getSquareString(((Move) m).getTo()) + "  " + nd);
+                    System.out.println(IO.getSquareString(Move.getFrom(m))+ IO.getSquareString(Move.getTo(m)) + "  " + nd);
                 }
             }
 
@@ -53,6 +60,175 @@ public class Testing {
         return nodes;
     }
 
+    /**
+     * calculates the perft value for a given board until it reaches a given depth.
+     * The moves at the root are distributed over the given amount of threads. Each thread works on its own copy of the board.
+     * At depth 1 the legal moves are counted without making them and already counted subtrees are read from
+     * the hash table.
+     * @param board         the board object
+     * @param depth         set this to your depth
+     * @param threads       the amount of threads
+     * @param hashMB        size of the perft hash table in MB. 0 disables the hash table
+     * @param printDiv      display the childs at the root
+     * @return
+     */
+    public static long perft(Board board, int depth, int threads, int hashMB, boolean printDiv){
+        if(depth <= 1){
+            return perft(board, depth, new MoveListBuffer(2, 128), null);
+        }
+
+        PerftTable table = hashMB > 0 ? new PerftTable(hashMB) : null;
+
+        MoveList rootMoves = board.getLegalMoves(new MoveList(128));
+
+        threads = Math.max(1, Math.min(threads, rootMoves.size()));
+        Board[] boards = new Board[threads];
+        MoveListBuffer[] buffers = new MoveListBuffer[threads];
+        for(int i = 0; i < threads; i++){
+            boards[i] = board.copy();
+            buffers[i] = new MoveListBuffer(depth + 1, 128);
+        }
+
+        long[] results = new long[rootMoves.size()];
+        Pool pool = new Pool(threads);
+        pool.executeSequential((index, core) -> {
+            Board b = boards[core];
+            b.move(rootMoves.get(index));
+            results[index] = perft(b, depth - 1, buffers[core], table);
+            b.undoMove();
+        }, rootMoves.size(), false);
+        pool.stop();
+
+        long nodes = 0;
+        for(int i = 0; i < results.length; i++){
+            nodes += results[i];
+            if(printDiv){
+                int m = rootMoves.get(i);
+                System.out.println(IO.getSquareString(Move.getFrom(m))+ IO.getSquareString(Move.getTo(m)) + "  " + results[i]);
+            }
+        }
+        return nodes;
+    }
+
+    /**
+     * single threaded perft which uses bulk counting at depth 1 and the given hash table.
+     * @param board         the board object
+     * @param depthLeft     the remaining depth
+     * @param buffer        buffer to store moves
+     * @param table         [can be NULL]
+     * @return
+     */
+    private static long perft(Board board, int depthLeft, MoveListBuffer buffer, PerftTable table){
+        if(depthLeft == 0) {
+            return 1;
+        }
+
+        long key = 0;
+        if(table != null && depthLeft > 1){
+            key = PerftTable.key(board, depthLeft);
+            long stored = table.get(key);
+            if(stored >= 0){
+                return stored;
+            }
+        }
+
+        MoveList moves = board.getLegalMoves(buffer.get(depthLeft));
+        if(depthLeft == 1){
+            return moves.size();
+        }
+
+        long nodes = 0;
+        for(int i = 0; i < moves.size(); i++){
+            board.move(moves.get(i));
+            nodes += perft(board, depthLeft - 1, buffer, table);
+            board.undoMove();
+        }
+
+        if(table != null && depthLeft > 1){
+            table.put(key, nodes);
+        }
+        return nodes;
+    }
+
+    /**
+     * runs the perft test for each position of an EPD file and compares the results to the expected node counts.
+     * Each line contains a fen followed by the expected counts for each depth:
+     *
+     *      rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1 ;D1 20 ;D2 400 ;D3 8902
+     *
+     * The positions are distributed over the given amount of threads. For every mismatch the divide output
+     * of the position is printed so the wrong subtree can be found.
+     * @param template      a template to create the boards
+     * @param file          path to the EPD file
+     * @param maxDepth      depths above this are skipped
+     * @param threads       the amount of threads
+     * @param hashMB        size of the shared perft hash table in MB. 0 disables the hash table
+     * @return              true if all positions matched
+     */
+    public static boolean perft_suite(Board template, String file, int maxDepth, int threads, int hashMB){
+        List<String> lines;
+        try {
+            lines = Files.readAllLines(Paths.get(file));
+        } catch (IOException e) {
+            System.out.println("could not read " + file);
+            return false;
+        }
+        lines.removeIf(l -> l.trim().isEmpty() || l.trim().startsWith("#"));
+
+        PerftTable table = hashMB > 0 ? new PerftTable(hashMB) : null;
+
+        threads = Math.max(1, Math.min(threads, lines.size()));
+        MoveListBuffer[] buffers = new MoveListBuffer[threads];
+        for(int i = 0; i < threads; i++){
+            buffers[i] = new MoveListBuffer(maxDepth + 1, 128);
+        }
+
+        int[]  failedDepth = new int[lines.size()];         //the depth at which the position failed. 0 if it passed
+        long[] expectedNodes = new long[lines.size()];
+        long[] foundNodes = new long[lines.size()];
+        long[] nodes = new long[lines.size()];
+
+        long t0 = System.currentTimeMillis();
+        Pool pool = new Pool(threads);
+        pool.executeSequential((index, core) -> {
+            String[] split = lines.get(index).split(";");
+            Board board = IO.read_FEN(template, split[0]);
+            for(int i = 1; i < split.length; i++){
+                String[] entry = split[i].trim().split("\\s+");
+                int depth = Integer.parseInt(entry[0].substring(1));
+                if(depth > maxDepth) continue;
+                long expected = Long.parseLong(entry[1]);
+                long result = perft(board, depth, buffers[core], table);
+                nodes[index] += result;
+                if(result != expected){
+                    failedDepth[index] = depth;
+                    expectedNodes[index] = expected;
+                    foundNodes[index] = result;
+                    break;
+                }
+            }
+        }, lines.size(), false);
+        pool.stop();
+        long time = System.currentTimeMillis() - t0;
+
+        long totalNodes = 0;
+        int failed = 0;
+        for(int i = 0; i < lines.size(); i++){
+            totalNodes += nodes[i];
+            if(failedDepth[i] != 0){
+                failed ++;
+                String fen = lines.get(i).split(";")[0].trim();
+                System.out.println("mismatch [" + (i+1) + "] " + fen + " depth " + failedDepth[i] +
+                                   ": expected " + expectedNodes[i] + " got " + foundNodes[i]);
+                perft(IO.read_FEN(template, fen), failedDepth[i], 1, 0, true);
+            }
+        }
+
+        System.out.println("positions: " + lines.size() + " failed: " + failed);
+        System.out.println("nodes: " + totalNodes + " time: " + time + " ms nps: " + totalNodes / Math.max(1, time) * 1000);
+        return failed == 0;
+    }
+
     public static String loadingBar(int count, int max, String msg){
         StringBuilder builder = new StringBuilder();
         double p = count / (double)max;
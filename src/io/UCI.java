@@ -8,13 +8,11 @@ import ai.ordering.NoOrderer;
 import ai.search.AdvancedSearch;
 import ai.time_manager.SimpleTimeManager;
 import ai.time_manager.TimeManager;
-import ai.tools.transpositions.TranspositionEntry;
 import ai.tools.transpositions.TranspositionTable;
 import board.Board;
 import board.FastBoard;
 import board.bitboards.BitBoard;
 import board.moves.Move;
-import board.moves.MoveListBuffer;
 import board.setup.Setup;
 import ai.ordering.SystematicOrderer2;
 import ai.reducing.SenpaiReducer;
@@ -32,6 +30,12 @@ import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.nio.file.StandardOpenOption;
 import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 import static io.IO.*;
 
@@ -77,12 +81,19 @@ public class UCI {
 
     private static CommandDataBase cdb = new CommandDataBase();
 
+    private static final Object searchLock = new Object();
+    private static Future<?> search;                //the running search. NULL if there is none
+    //the search always runs on the same thread so the evaluation context of that thread is kept between searches
+    private static final ExecutorService searchExecutor = Executors.newSingleThreadExecutor();
+    private static volatile boolean waitForStop;    //infinite and ponder searches only print their best move after stop/ponderhit
+
     static {
         long t = System.currentTimeMillis();
 
         ai.getEvaluator().setEvolvableValues(new double[]{
                 55.4703094475441, 13.648375478424141, -19.77593141178159, -16.224879318490203, -12.345671594506127, 20.3557362892776, -10.0, 49.421633996564154, 421.04475783854724, 9.641086486739166, -11.928263238269363, -38.18922184666997, 135.1224748592701, 612.3152195680466, 3.326648204218068, -7.708766996311868, -11.28661976567006, 24.880671312589662, 18.519102210498033, 31.029598715149334, 43.76123023196711, 451.8084526468821, 5.28137218904248, -5.632125715859021, -26.332175471409858, 34.2021603949306, -4.465078440616596, 4.989497688917051, 68.74920010635222, 1482.5767839966381, 1.807982886349699, 10.791399146837776, -11.28690159211988, 114.18549470842594, 5.3460352805394376, -57.081967552900494, -33.53754133417173, 23.847031547235893, 102.20623535972696, 18.490781061161112, 87.13077946644272, -16.286572437239293, -6.765374494492307, 75.5187170450166, -40.0, 130.25786563023865, 376.85095767293893, 12.054890300932136, -5.748839366003089, -20.81558761127461, 83.03494360851471, 732.14603878538, 4.923848211793169, -0.6943692249874183, 2.286807135769611, -8.342948227609005, -3.7467380667012167, 6.741856933251827, 76.08312043641705, 382.2816911053168, 8.191493775708867, 0.3888182950093371, 1.5020675749900578, 73.01276670659827, -13.631253788909248, 20.88737538608716, 47.980077292579445, 1191.740987410907, 11.354682559947324, -69.09967810559168, 9.129259760095925, 27.429651094159272, 1.6009076938645943, 50.780941378842314, 13.338632696382415, -3.527839234047727
         });
+        ai.clearEvalCache();
 
         System.out.print("registering commands...");
         cdb.registerCommand(
@@ -104,12 +115,16 @@ public class UCI {
                         .registerArgument(new TextArgument("name", true, "none"))
                         .registerArgument(new TextArgument("value", false, "none"))
                         .setExecutable(c -> {
+                            stopSearch();
                             if (c.getTextArgument("value").isSet()) {
                                 String value = c.getTextArgument("value").getValue();
                                 switch (c.getTextArgument("name").getValue()) {
                                     case "log":
                                         useLog(Boolean.parseBoolean(value));
                                         break;
+                                    case "Ponder":
+                                        //the gui decides when to ponder by sending "go ponder". the engine only needs to accept the option
+                                        break;
 
                                     case "null_moves":
                                         ai.setUse_null_moves(Boolean.parseBoolean(value));
@@ -129,6 +144,12 @@ public class UCI {
                                     case "transpositions":
                                         ai.setUse_transposition(Boolean.parseBoolean(value));
                                         break;
+                                    case "Hash":
+                                        ai.setHash_size(Integer.parseInt(value));
+                                        break;
+                                    case "Threads":
+                                        ai.setThreads(Integer.parseInt(value));
+                                        break;
 
                                     case "iterative":
                                         ai.setUse_iteration(Boolean.parseBoolean(value));
@@ -177,6 +198,7 @@ public class UCI {
                             System.out.println("id name " + ENGINENAME);
                             System.out.println("id author Finn/Noah");
                             System.out.println("option name log type check default false");
+                            System.out.println("option name Ponder type check default false");
 
                             System.out.println("option name null_moves type check default "+ai.isUse_null_moves());
                             System.out.println("option name null_moves_reduction type spin default "+ai.getNull_move_reduction()+ " min 1 max 99");
@@ -184,6 +206,8 @@ public class UCI {
                             System.out.println("option name lmr type check default " + ai.isUse_LMR());
                             System.out.println("option name killers type check default " + ai.isUse_killer_heuristic());
                             System.out.println("option name transpositions type check default " + ai.isUse_transposition());
+                            System.out.println("option name Hash type spin default " + ai.getHash_size() + " min 1 max " + TranspositionTable.MAXIMUM_SIZE_MB);
+                            System.out.println("option name Threads type spin default " + ai.getThreads() + " min 1 max 256");
 
                             System.out.println("option name iterative type check default " + ai.isUse_iteration());
                             System.out.println("option name deepening_initial_depth type spin default " + ai.getDeepening_start_depth() + " min 1 max 99");
@@ -211,7 +235,9 @@ public class UCI {
         cdb.registerCommand(
                 new Command("ucinewgame")
                         .setExecutable(c -> {
+                            stopSearch();
                             b = new FastBoard(Setup.DEFAULT);
+                            ai.clearHash();
                         }));
         cdb.registerCommand(
                 new Command("print", "prints the board including the fen string to the console")
@@ -239,35 +265,91 @@ public class UCI {
                         .registerArgument(new NumericArgument("binc", false, 0d))
                         .registerArgument(new NumericArgument("movestogo", false, 0d))
                         .registerArgument(new NumericArgument("depth", false, 12d))
+                        .registerArgument(new NumericArgument("movetime", false, 1000d))
+                        .registerArgument(new NumericArgument("nodes", false, 1000000d))
+                        .registerArgument(new NumericArgument("mate", false, 1d))
+                        .registerArgument(new BooleanArgument("infinite", false))
+                        .registerArgument(new BooleanArgument("ponder", false))
                         .setExecutable(c -> {
-                            if (c.getNumericArgument("wtime").isSet() ||
+                            stopSearch();
+                            ai.setPonder(c.getArgument("ponder").isSet());
+                            if (c.getArgument("infinite").isSet()) {
+                                ai.setLimit_flag(AdvancedSearch.FLAG_INFINITE);
+                            } else if (c.getNumericArgument("movetime").isSet()) {
+                                ai.setLimit_flag(AdvancedSearch.FLAG_TIME_LIMIT);
+                                ai.setLimit((int) (double) c.getNumericArgument("movetime").getValue());
+                                ai.setTimeManager(null);
+                            } else if (c.getNumericArgument("nodes").isSet()) {
+                                ai.setLimit_flag(AdvancedSearch.FLAG_NODE_LIMIT);
+                                ai.setLimit((int) (double) c.getNumericArgument("nodes").getValue());
+                            } else if (c.getNumericArgument("mate").isSet()) {
+                                ai.setLimit_flag(AdvancedSearch.FLAG_MATE_LIMIT);
+                                ai.setLimit((int) (double) c.getNumericArgument("mate").getValue());
+                            } else if (c.getNumericArgument("wtime").isSet() ||
                                 c.getNumericArgument("btime").isSet() ||
                                 c.getNumericArgument("winc").isSet() ||
                                 c.getNumericArgument("binc").isSet() ||
                                 c.getNumericArgument("movestogo").isSet()) {
                                 ai.setLimit_flag(AdvancedSearch.FLAG_TIME_LIMIT);
-                                ai.setLimit(timeManager.time(b.getActivePlayer(),
-                                                             (int) (double) c.getNumericArgument("wtime").getValue(),
-                                                             (int) (double) c.getNumericArgument("btime").getValue(),
-                                                             (int) (double) c.getNumericArgument("winc").getValue(),
-                                                             (int) (double) c.getNumericArgument("binc").getValue(),
-                                                             (int) (double) c.getNumericArgument("movestogo").getValue()));
+                                timeManager.init(b.getActivePlayer(),
+                                                 (int) (double) c.getNumericArgument("wtime").getValue(),
+                                                 (int) (double) c.getNumericArgument("btime").getValue(),
+                                                 (int) (double) c.getNumericArgument("winc").getValue(),
+                                                 (int) (double) c.getNumericArgument("binc").getValue(),
+                                                 (int) (double) c.getNumericArgument("movestogo").getValue());
+                                ai.setTimeManager(timeManager);
                             } else {
                                 ai.setLimit_flag(AdvancedSearch.FLAG_DEPTH_LIMIT);
                                 ai.setLimit((int) (double) c.getNumericArgument("depth").getValue());
                             }
-                            String out = "bestmove " + moveToUCI(ai.bestMove(b), b);
-                            System.out.println(out);
-                            log(out + "\n");
+                            startSearch(c.getArgument("infinite").isSet() || c.getArgument("ponder").isSet());
+                        }));
+        cdb.registerCommand(
+                new Command("stop", "stops the current search and prints the best move")
+                        .setExecutable(c -> stopSearch()));
+        cdb.registerCommand(
+                new Command("ponderhit", "the expected move has been played. the search continues with its time limits")
+                        .setExecutable(c -> {
+                            ai.ponderhit();
+                            synchronized (searchLock) {
+                                waitForStop = false;
+                                searchLock.notifyAll();
+                            }
+                        }));
+        cdb.registerCommand(
+                new Command("quit", "stops the current search and exits the engine")
+                        .setExecutable(c -> {
+                            stopSearch();
+                            System.exit(0);
                         }));
         cdb.registerCommand(
                 new Command("perft", "print the perft results for the given position")
                         .registerArgument(new NumericArgument("depth", true, 5d))
                         .registerArgument(new BooleanArgument("dif", false))
-                        .setExecutable(c -> System.out.println("total:" + Testing.perft_pseudo(b,
-                                                                                               (int) (double) c.getNumericArgument("depth").getValue(),
-                                                                                               new MoveListBuffer(20, 300),
-                                                                                               c.getBooleanArgument("dif").getValue()))));
+                        .registerArgument(new NumericArgument("threads", false, 1d))
+                        .registerArgument(new NumericArgument("hash", false, 0d))
+                        .setExecutable(c -> System.out.println("total:" + Testing.perft(b,
+                                                                                        (int) (double) c.getNumericArgument("depth").getValue(),
+                                                                                        (int) (double) c.getNumericArgument("threads").getValue(),
+                                                                                        (int) (double) c.getNumericArgument("hash").getValue(),
+                                                                                        c.getBooleanArgument("dif").getValue()))));
+
+        cdb.registerCommand(
+                new Command("perftsuite", "runs perft on all positions of an EPD file and reports mismatches")
+                        .registerArgument(new TextArgument("file", true, ""))
+                        .registerArgument(new NumericArgument("depth", false, 6d))
+                        .registerArgument(new NumericArgument("threads", false, 1d))
+                        .registerArgument(new NumericArgument("hash", false, 0d))
+                        .setExecutable(c -> Testing.perft_suite(b,
+                                                                c.getTextArgument("file").getValue(),
+                                                                (int) (double) c.getNumericArgument("depth").getValue(),
+                                                                (int) (double) c.getNumericArgument("threads").getValue(),
+                                                                (int) (double) c.getNumericArgument("hash").getValue())));
+
+        cdb.registerCommand(
+                new Command("bench", "runs the benchmarks for the board, the move generation, the evaluation and the search")
+                        .registerArgument(new NumericArgument("depth", false, 8d))
+                        .setExecutable(c -> Benchmark.run(ai, (int) (double) c.getNumericArgument("depth").getValue())));
 
         cdb.registerCommand(
                 new Command("eval", "print a detailed evaluation of the board")
@@ -294,7 +376,63 @@ public class UCI {
             log("[EXCEPTION] " + e.getMessage()+ "\n");
             input.close();
         }
-        
+        //a running search is finished before the engine exits
+        searchExecutor.shutdown();
+
+    }
+
+    /**
+     * starts the search on a copy of the current board in a separate thread so the input stays responsive.
+     * The best move is printed once the search has finished.
+     * @param infinite      if true, the best move is not printed before stop or ponderhit has been received
+     */
+    private static void startSearch(boolean infinite) {
+        Board board = b.copy();
+        waitForStop = infinite;
+        search = searchExecutor.submit(() -> {
+            Move best = ai.bestMove(board);
+            Move ponder = best == null ? null : ai.getPonderMove();
+            synchronized (searchLock) {
+                while (waitForStop) {
+                    try {
+                        searchLock.wait();
+                    } catch (InterruptedException e) {
+                        e.printStackTrace();
+                    }
+                }
+            }
+            String out = "bestmove " + (best == null ? "0000" : moveToUCI(best, board));
+            if (ponder != null) {
+                out += " ponder " + moveToUCI(ponder, board);
+            }
+            System.out.println(out);
+            log(out + "\n");
+        });
+    }
+
+    /**
+     * stops the running search (if there is one) and waits until its best move has been printed.
+     */
+    private static void stopSearch() {
+        if (search == null) return;
+        synchronized (searchLock) {
+            waitForStop = false;
+            searchLock.notifyAll();
+        }
+        try {
+            //the search might not have reset its flags yet. therefor stop is repeated until it has finished
+            while (!search.isDone()) {
+                ai.stop();
+                try {
+                    search.get(10, TimeUnit.MILLISECONDS);
+                } catch (TimeoutException e) {
+                    //still searching
+                }
+            }
+        } catch (InterruptedException | ExecutionException e) {
+            e.printStackTrace();
+        }
+        search = null;
     }
 
     public static void useLog(boolean val) {